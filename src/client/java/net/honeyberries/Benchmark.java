@@ -0,0 +1,315 @@
+package net.honeyberries;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Fixed-length benchmark runs for comparing builds, shader packs and JVM flags.
+ * <p>
+ * A run records every frame that passes through the {@link FPSStats} pipeline: the
+ * statistics consumer hands each drained frame to {@link #onFrame(long, long)}, so the
+ * render thread does no extra work. Frames that end during the warm-up are discarded.
+ * The first frame that ends after the measured part finishes the run; the report is
+ * calculated exactly from the sorted frame times and handed to the completion callback.
+ * <p>
+ * Reports are written to {@code <game dir>/fpsdisplay/benchmarks/} as a JSON summary
+ * and a CSV of every measured frame time. One report can be stored as the baseline,
+ * and later runs are compared against it.
+ */
+public final class Benchmark {
+    /**
+     * File name pattern for new reports, without the extension.
+     */
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'bench-'yyyyMMdd-HHmmss");
+
+    /**
+     * File name of the stored baseline report.
+     */
+    private static final String BASELINE = "baseline.json";
+
+    /**
+     * JSON serializer for reports.
+     */
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    /**
+     * The running benchmark, or null when none is running.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile Benchmark active = null;
+
+    /**
+     * JSON report written most recently, or null before the first one.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile Path lastReport = null;
+
+    /**
+     * Label given when the run was started.
+     */
+    private final String label;
+
+    /**
+     * Seconds discarded before measuring.
+     */
+    private final int warmupSec;
+
+    /**
+     * Timestamp the measured part starts at in nanoseconds.
+     */
+    private final long measureStartNs;
+
+    /**
+     * Timestamp the measured part ends at in nanoseconds.
+     */
+    private final long endNs;
+
+    /**
+     * Called on the statistics consumer with the finished run.
+     */
+    private final Consumer<Result> onFinish;
+
+    /**
+     * Measured frame durations in nanoseconds, in frame order. Owned by the consumer.
+     */
+    private long[] durations = new long[8192];
+
+    /**
+     * Number of measured frames. Owned by the consumer.
+     */
+    private int count = 0;
+
+    /**
+     * Creates a run that starts now.
+     *
+     * @param seconds Length of the measured part in seconds
+     * @param warmupSec Seconds to discard first
+     * @param label Label for the report
+     * @param onFinish Called on the statistics consumer with the finished run
+     */
+    private Benchmark(int seconds, int warmupSec, String label, Consumer<Result> onFinish) {
+        this.label = label;
+        this.warmupSec = warmupSec;
+        this.measureStartNs = System.nanoTime() + warmupSec * 1_000_000_000L;
+        this.endNs = measureStartNs + seconds * 1_000_000_000L;
+        this.onFinish = onFinish;
+    }
+
+    /**
+     * A finished run.
+     *
+     * @param report The summary
+     * @param frameTimesNs Every measured frame duration in nanoseconds, in frame order
+     */
+    public record Result(BenchmarkReport report, long[] frameTimesNs) {
+    }
+
+    /**
+     * Starts a benchmark unless one is already running.
+     *
+     * @param seconds Length of the measured part in seconds
+     * @param warmupSec Seconds to discard first
+     * @param label Label for the report
+     * @param onFinish Called on the statistics consumer thread with the finished run;
+     *                 must hand any slow work to another thread
+     * @return Whether the run was started
+     */
+    public static synchronized boolean start(int seconds, int warmupSec, String label, Consumer<Result> onFinish) {
+        if (active != null) return false;
+        active = new Benchmark(seconds, warmupSec, label, onFinish);
+        return true;
+    }
+
+    /**
+     * Cancels the running benchmark without a report.
+     *
+     * @return Whether a benchmark was running
+     */
+    public static synchronized boolean cancel() {
+        boolean running = active != null;
+        active = null;
+        return running;
+    }
+
+    /**
+     * Checks whether a benchmark is running.
+     * Safe to call from any thread; the renderer records frames while this is true.
+     *
+     * @return Whether a benchmark is running
+     */
+    public static boolean isRunning() {
+        return active != null;
+    }
+
+    /**
+     * Adds a frame to the running benchmark. Called by the statistics consumer for every frame.
+     *
+     * @param endNs Timestamp of the end of the frame in nanoseconds
+     * @param durationNs Frame duration in nanoseconds
+     */
+    static void onFrame(long endNs, long durationNs) {
+        Benchmark run = active;
+        if (run == null || endNs < run.measureStartNs) return;
+        if (endNs > run.endNs) {
+            run.finish();
+            return;
+        }
+        if (run.count == run.durations.length) {
+            run.durations = Arrays.copyOf(run.durations, run.count * 2);
+        }
+        run.durations[run.count++] = durationNs;
+    }
+
+    /**
+     * Ends the run and hands its result to the completion callback.
+     */
+    private void finish() {
+        synchronized (Benchmark.class) {
+            if (active != this) return; // Cancelled in the meantime
+            active = null;
+        }
+        onFinish.accept(new Result(report(), Arrays.copyOf(durations, count)));
+    }
+
+    /**
+     * Calculates the summary of the measured frames.
+     *
+     * @return The report
+     */
+    private BenchmarkReport report() {
+        int n = count;
+        double durationSec = (endNs - measureStartNs) / 1_000_000_000.0;
+        long startEpochMs = System.currentTimeMillis() - (System.nanoTime() - measureStartNs) / 1_000_000L;
+        if (n == 0) {
+            return new BenchmarkReport(label, startEpochMs, durationSec, warmupSec, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+
+        long sum = 0;
+        for (int i = 0; i < n; i++) sum += durations[i];
+        double meanNs = (double) sum / n;
+        double squares = 0;
+        for (int i = 0; i < n; i++) {
+            double delta = durations[i] - meanNs;
+            squares += delta * delta;
+        }
+
+        StatsSnapshot s = FrameStats.exactSnapshot(Arrays.copyOf(durations, n), n, endNs);
+        long threshold = HitchDetector.threshold(s.p50FrameTimeMs());
+        int hitches = 0;
+        for (int i = 0; i < n; i++) {
+            if (durations[i] > threshold) hitches++;
+        }
+
+        return new BenchmarkReport(label, startEpochMs, durationSec, warmupSec, n,
+                s.avgFps(), s.onePercentLowFps(), s.pointOnePercentLowFps(),
+                s.p50FrameTimeMs(), s.p95FrameTimeMs(), s.p99FrameTimeMs(), s.p999FrameTimeMs(),
+                Math.sqrt(squares / n) / 1_000_000.0, hitches);
+    }
+
+    /**
+     * Writes a finished run as a JSON summary and a CSV of its frame times.
+     *
+     * @param dir Directory to create the files in
+     * @param result The finished run
+     * @return The JSON file written
+     * @throws IOException If a file cannot be written
+     */
+    public static Path write(Path dir, Result result) throws IOException {
+        Files.createDirectories(dir);
+        String name = LocalDateTime.now().format(FILE_NAME);
+        Path json = dir.resolve(name + ".json");
+        Files.writeString(json, GSON.toJson(result.report()), StandardCharsets.UTF_8);
+
+        try (BufferedWriter out = Files.newBufferedWriter(dir.resolve(name + ".csv"), StandardCharsets.UTF_8)) {
+            out.write("Frame,FrameTimeMs");
+            out.newLine();
+            long[] times = result.frameTimesNs();
+            for (int i = 0; i < times.length; i++) {
+                out.write(i + "," + times[i] / 1_000_000.0);
+                out.newLine();
+            }
+        }
+        lastReport = json;
+        return json;
+    }
+
+    /**
+     * Stores the most recently written report as the baseline.
+     *
+     * @param dir Directory the reports are in
+     * @return The report that became the baseline, or null if no report was written yet
+     * @throws IOException If the baseline cannot be written
+     */
+    public static Path saveBaseline(Path dir) throws IOException {
+        Path report = lastReport;
+        if (report == null) return null;
+        Files.copy(report, dir.resolve(BASELINE), StandardCopyOption.REPLACE_EXISTING);
+        return report;
+    }
+
+    /**
+     * Reads the stored baseline report.
+     *
+     * @param dir Directory the reports are in
+     * @return The baseline, or null if none is stored
+     * @throws IOException If the baseline exists but cannot be read
+     */
+    public static BenchmarkReport readBaseline(Path dir) throws IOException {
+        Path file = dir.resolve(BASELINE);
+        if (!Files.exists(file)) return null;
+        return GSON.fromJson(Files.readString(file, StandardCharsets.UTF_8), BenchmarkReport.class);
+    }
+
+    /**
+     * Describes a report for chat, with percentage changes against a baseline.
+     * For FPS a positive change is better; for frame times and hitches a negative one is.
+     *
+     * @param run The report to describe
+     * @param baseline Report to compare against, or null to describe the run alone
+     * @return One line per metric
+     */
+    public static List<String> describe(BenchmarkReport run, BenchmarkReport baseline) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "Benchmark '%s': %d frames in %.0f s", run.label(), run.frames(), run.durationSec()));
+        lines.add(line("Avg", run.avgFps(), baseline == null ? Double.NaN : baseline.avgFps(), "%.0f FPS"));
+        lines.add(line("1% Low", run.onePercentLowFps(), baseline == null ? Double.NaN : baseline.onePercentLowFps(), "%.0f FPS"));
+        lines.add(line("0.1% Low", run.pointOnePercentLowFps(), baseline == null ? Double.NaN : baseline.pointOnePercentLowFps(), "%.0f FPS"));
+        lines.add(line("p50", run.p50FrameTimeMs(), baseline == null ? Double.NaN : baseline.p50FrameTimeMs(), "%.2f ms"));
+        lines.add(line("p95", run.p95FrameTimeMs(), baseline == null ? Double.NaN : baseline.p95FrameTimeMs(), "%.2f ms"));
+        lines.add(line("p99", run.p99FrameTimeMs(), baseline == null ? Double.NaN : baseline.p99FrameTimeMs(), "%.2f ms"));
+        lines.add(line("p99.9", run.p999FrameTimeMs(), baseline == null ? Double.NaN : baseline.p999FrameTimeMs(), "%.2f ms"));
+        lines.add(line("Std dev", run.stdDevFrameTimeMs(), baseline == null ? Double.NaN : baseline.stdDevFrameTimeMs(), "%.2f ms"));
+        lines.add(line("Hitches", run.hitches(), baseline == null ? Double.NaN : baseline.hitches(), "%.0f"));
+        return lines;
+    }
+
+    /**
+     * Formats one metric with its change against the baseline.
+     *
+     * @param name Metric name
+     * @param value Value of the run
+     * @param base Value of the baseline, or NaN for no comparison
+     * @param format Format of the value
+     * @return The formatted line, e.g. "Avg: 142 FPS (+3.1%)"
+     */
+    private static String line(String name, double value, double base, String format) {
+        String text = name + ": " + String.format(Locale.ROOT, format, value);
+        if (Double.isNaN(base)) return text;
+        if (base == 0) return text + " (baseline 0)";
+        return text + String.format(Locale.ROOT, " (%+.1f%%)", (value - base) / base * 100.0);
+    }
+}
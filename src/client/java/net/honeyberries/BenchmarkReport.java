@@ -0,0 +1,37 @@
+package net.honeyberries;
+
+/**
+ * Summary of one finished benchmark run, as written to its JSON report.
+ *
+ * @param label Label given when the run was started
+ * @param startEpochMs Wall-clock time the measured part started, in milliseconds since the epoch
+ * @param durationSec Length of the measured part in seconds
+ * @param warmupSec Seconds discarded before measuring
+ * @param frames Number of frames measured
+ * @param avgFps Average frames per second
+ * @param onePercentLowFps Average FPS of the slowest 1% of frames
+ * @param pointOnePercentLowFps Average FPS of the slowest 0.1% of frames
+ * @param p50FrameTimeMs Median frame time in milliseconds
+ * @param p95FrameTimeMs 95th percentile frame time in milliseconds
+ * @param p99FrameTimeMs 99th percentile frame time in milliseconds
+ * @param p999FrameTimeMs 99.9th percentile frame time in milliseconds
+ * @param stdDevFrameTimeMs Standard deviation of the frame time in milliseconds
+ * @param hitches Frames over the hitch threshold for the run's median
+ */
+public record BenchmarkReport(
+        String label,
+        long startEpochMs,
+        double durationSec,
+        int warmupSec,
+        int frames,
+        double avgFps,
+        double onePercentLowFps,
+        double pointOnePercentLowFps,
+        double p50FrameTimeMs,
+        double p95FrameTimeMs,
+        double p99FrameTimeMs,
+        double p999FrameTimeMs,
+        double stdDevFrameTimeMs,
+        int hitches
+) {
+}
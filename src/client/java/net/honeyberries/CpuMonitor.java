@@ -0,0 +1,162 @@
+package net.honeyberries;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Samples per-thread CPU time on the {@link MetricsScheduler} thread.
+ * <p>
+ * Each sample reads {@link ThreadMXBean#getThreadCpuTime(long)} for:
+ * - The render thread
+ * - The integrated server thread ("Server thread"), while a singleplayer world is open
+ * - The background worker pool ("Worker-Main-*"), which builds chunk sections among other work
+ * <p>
+ * Usage is the CPU time a thread gained since the previous sample divided by the wall
+ * time between them, published as an immutable {@link CpuSnapshot}. Threads are found
+ * by name on every sample, so servers and workers that start later are picked up.
+ */
+public final class CpuMonitor {
+    /**
+     * Time between samples in milliseconds.
+     */
+    private static final long SAMPLE_INTERVAL_MS = 1000;
+
+    /**
+     * Name of the integrated server's main thread.
+     */
+    private static final String SERVER_THREAD = "Server thread";
+
+    /**
+     * Name prefix of the background worker pool threads.
+     */
+    private static final String WORKER_PREFIX = "Worker-Main-";
+
+    /**
+     * Thread MXBean, or null if this JVM cannot measure thread CPU time.
+     */
+    private static final ThreadMXBean THREADS = threadBean();
+
+    /**
+     * Running sampler task, or null when disabled. Only changed from setEnabled.
+     */
+    private static ScheduledFuture<?> task = null;
+
+    /**
+     * Time of the previous sample, or 0 before the first one. Owned by the metrics thread.
+     */
+    private static long lastSampleNs = 0;
+
+    /**
+     * CPU time of each measured thread at the previous sample, by thread id.
+     * Owned by the metrics thread.
+     */
+    private static Map<Long, Long> lastCpuNs = new HashMap<>();
+
+    /**
+     * Formatter for the HUD line. Owned by the metrics thread.
+     */
+    private static final StatsTextFormatter formatter = new StatsTextFormatter();
+
+    /**
+     * Latest published usage, or null before the second sample or when disabled.
+     * Volatile so that readers always see a fully constructed snapshot.
+     */
+    private static volatile CpuSnapshot snapshot = null;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private CpuMonitor() {
+    }
+
+    /**
+     * Starts or stops sampling to match the configuration.
+     * Stays off if this JVM cannot measure thread CPU time.
+     *
+     * @param enabled Whether CPU usage should be collected
+     */
+    public static synchronized void setEnabled(boolean enabled) {
+        enabled &= THREADS != null;
+        if (enabled == (task != null)) return;
+        if (enabled) {
+            lastSampleNs = 0; // Start a fresh baseline; published to the task by scheduling it
+            task = MetricsScheduler.schedule("cpu", CpuMonitor::sample, SAMPLE_INTERVAL_MS);
+        } else {
+            task.cancel(false);
+            task = null;
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Gets the latest CPU usage.
+     * Safe to call from any thread.
+     *
+     * @return The most recent snapshot, or null if sampling is off or has not completed yet
+     */
+    public static CpuSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Takes one sample and publishes a new snapshot. Runs on the metrics thread.
+     */
+    private static void sample() {
+        long now = System.nanoTime();
+        Map<Long, Long> cpuNs = new HashMap<>();
+        long renderId = MemoryMonitor.renderThreadId();
+        long render = -1, server = -1, workers = 0;
+        int workerCount = 0;
+
+        for (ThreadInfo info : THREADS.getThreadInfo(THREADS.getAllThreadIds())) {
+            if (info == null) continue; // Thread ended
+            long id = info.getThreadId();
+            String name = info.getThreadName();
+            boolean isServer = name.equals(SERVER_THREAD);
+            boolean isWorker = name.startsWith(WORKER_PREFIX);
+            if (id != renderId && !isServer && !isWorker) continue;
+
+            long cpu = THREADS.getThreadCpuTime(id);
+            if (cpu < 0) continue; // Thread ended or not measurable
+            cpuNs.put(id, cpu);
+            long gained = cpu - lastCpuNs.getOrDefault(id, cpu); // New threads start at zero
+            if (id == renderId) {
+                render = gained;
+            } else if (isServer) {
+                server = gained;
+            } else {
+                workers += gained;
+                workerCount++;
+            }
+        }
+
+        long elapsed = now - lastSampleNs;
+        boolean first = lastSampleNs == 0;
+        lastSampleNs = now;
+        lastCpuNs = cpuNs;
+        if (first || elapsed <= 0) return;
+
+        double renderPercent = Math.max(0, render) * 100.0 / elapsed;
+        double serverPercent = server < 0 ? -1 : server * 100.0 / elapsed;
+        double workerPercent = workers * 100.0 / elapsed;
+        snapshot = new CpuSnapshot(renderPercent, serverPercent, workerPercent, workerCount,
+                formatter.formatCpu(renderPercent, serverPercent, workerPercent, workerCount));
+    }
+
+    /**
+     * Gets the thread MXBean and makes sure CPU time measurement is on.
+     *
+     * @return The bean, or null if this JVM does not support thread CPU time
+     */
+    private static ThreadMXBean threadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadCpuTimeSupported()) return null;
+        if (!bean.isThreadCpuTimeEnabled()) bean.setThreadCpuTimeEnabled(true);
+        return bean;
+    }
+}
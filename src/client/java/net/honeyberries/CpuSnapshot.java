@@ -0,0 +1,21 @@
+package net.honeyberries;
+
+/**
+ * Immutable view of per-thread CPU usage over the last sample interval.
+ * Published by {@link CpuMonitor}; percentages are of one core, so a pool of threads
+ * can exceed 100.
+ *
+ * @param renderPercent CPU usage of the render thread
+ * @param serverPercent CPU usage of the integrated server thread, or -1 if there is none
+ * @param workerPercent Combined CPU usage of the background worker pool
+ * @param workers Number of worker pool threads
+ * @param line Pre-formatted HUD line
+ */
+public record CpuSnapshot(
+        double renderPercent,
+        double serverPercent,
+        double workerPercent,
+        int workers,
+        String line
+) {
+}
@@ -0,0 +1,175 @@
+package net.honeyberries;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandManager;
+import net.fabricmc.fabric.api.client.command.v2.FabricClientCommandSource;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+import net.minecraft.commands.CommandBuildContext;
+import net.minecraft.network.chat.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Client-side commands for the FPS Display mod:
+ * - {@code /fpsdisplay hitches dump}: write the hitch log to {@code fpsdisplay/hitches/}
+ * - {@code /fpsdisplay hitches clear}: empty the hitch log
+ * - {@code /fpsdisplay loadtimes}: show this launch's load times against earlier launches
+ * - {@code /fpsbench start <seconds> [label]}: run a benchmark and report it against the baseline
+ * - {@code /fpsbench stop}: cancel the running benchmark
+ * - {@code /fpsbench baseline}: store the last benchmark report as the baseline
+ * <p>
+ * File I/O runs on the shared I/O executor, never on the render thread.
+ */
+public final class FPSCommands {
+    /**
+     * Longest benchmark that can be started, in seconds.
+     */
+    private static final int MAX_BENCHMARK_SECONDS = 3600;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private FPSCommands() {
+    }
+
+    /**
+     * Registers every command. Used as a ClientCommandRegistrationCallback.
+     *
+     * @param dispatcher The client command dispatcher
+     * @param registryAccess Registry access for argument types (unused)
+     */
+    public static void register(CommandDispatcher<FabricClientCommandSource> dispatcher, CommandBuildContext registryAccess) {
+        dispatcher.register(ClientCommandManager.literal("fpsdisplay")
+                .then(ClientCommandManager.literal("hitches")
+                        .then(ClientCommandManager.literal("dump").executes(ctx -> dumpHitches(ctx.getSource())))
+                        .then(ClientCommandManager.literal("clear").executes(ctx -> {
+                            HitchDetector.clearEvents();
+                            ctx.getSource().sendFeedback(Component.literal("Hitch log cleared"));
+                            return 1;
+                        })))
+                .then(ClientCommandManager.literal("loadtimes").executes(ctx -> {
+                    for (String line : LoadTimings.describe()) ctx.getSource().sendFeedback(Component.literal(line));
+                    return 1;
+                })));
+
+        dispatcher.register(ClientCommandManager.literal("fpsbench")
+                .then(ClientCommandManager.literal("start")
+                        .then(ClientCommandManager.argument("seconds", IntegerArgumentType.integer(1, MAX_BENCHMARK_SECONDS))
+                                .executes(ctx -> startBenchmark(ctx.getSource(), IntegerArgumentType.getInteger(ctx, "seconds"), "unnamed"))
+                                .then(ClientCommandManager.argument("label", StringArgumentType.greedyString())
+                                        .executes(ctx -> startBenchmark(ctx.getSource(),
+                                                IntegerArgumentType.getInteger(ctx, "seconds"),
+                                                StringArgumentType.getString(ctx, "label"))))))
+                .then(ClientCommandManager.literal("stop").executes(ctx -> {
+                    if (Benchmark.cancel()) {
+                        ctx.getSource().sendFeedback(Component.literal("Benchmark cancelled"));
+                    } else {
+                        ctx.getSource().sendError(Component.literal("No benchmark is running"));
+                    }
+                    return 1;
+                }))
+                .then(ClientCommandManager.literal("baseline").executes(ctx -> saveBaseline(ctx.getSource()))));
+    }
+
+    /**
+     * Writes the hitch log in the background and reports the result in chat.
+     *
+     * @param source The command source to report to
+     * @return Command result
+     */
+    private static int dumpHitches(FabricClientCommandSource source) {
+        Path dir = FabricLoader.getInstance().getGameDir().resolve("fpsdisplay/hitches");
+        Util.ioPool().execute(() -> {
+            try {
+                Path file = HitchDetector.dump(dir);
+                Minecraft.getInstance().execute(() -> source.sendFeedback(Component.literal("Hitch log written to " + file)));
+            } catch (IOException e) {
+                FPSDisplay.LOGGER.error("Failed to write FPS Display hitch log", e);
+                Minecraft.getInstance().execute(() -> source.sendError(Component.literal("Could not write hitch log: " + e.getMessage())));
+            }
+        });
+        return 1;
+    }
+
+    /**
+     * Starts a benchmark that reports in chat when it finishes.
+     *
+     * @param source The command source to report to
+     * @param seconds Length of the measured part in seconds
+     * @param label Label for the report
+     * @return Command result
+     */
+    private static int startBenchmark(FabricClientCommandSource source, int seconds, String label) {
+        int warmup = FPSConfig.INSTANCE.benchmarkWarmupSeconds;
+        if (!Benchmark.start(seconds, warmup, label, result -> Util.ioPool().execute(() -> reportBenchmark(source, result)))) {
+            source.sendError(Component.literal("A benchmark is already running; use /fpsbench stop to cancel it"));
+            return 0;
+        }
+        source.sendFeedback(Component.literal("Benchmark '" + label + "' started: " + warmup + " s warm-up, then " + seconds + " s measured"));
+        return 1;
+    }
+
+    /**
+     * Writes a finished benchmark and prints it with its changes against the baseline.
+     * Runs on the shared I/O executor.
+     *
+     * @param source The command source to report to
+     * @param result The finished run
+     */
+    private static void reportBenchmark(FabricClientCommandSource source, Benchmark.Result result) {
+        Path dir = benchmarkDir();
+        try {
+            Path file = Benchmark.write(dir, result);
+            BenchmarkReport baseline = Benchmark.readBaseline(dir);
+            List<String> lines = Benchmark.describe(result.report(), baseline);
+            Minecraft.getInstance().execute(() -> {
+                for (String line : lines) source.sendFeedback(Component.literal(line));
+                source.sendFeedback(Component.literal(baseline != null
+                        ? "Compared with baseline '" + baseline.label() + "'; report written to " + file
+                        : "No baseline stored, use /fpsbench baseline to keep this run; report written to " + file));
+            });
+        } catch (Exception e) {
+            FPSDisplay.LOGGER.error("Failed to write FPS Display benchmark report", e);
+            Minecraft.getInstance().execute(() -> source.sendError(Component.literal("Could not write benchmark report: " + e.getMessage())));
+        }
+    }
+
+    /**
+     * Stores the last benchmark report as the baseline in the background.
+     *
+     * @param source The command source to report to
+     * @return Command result
+     */
+    private static int saveBaseline(FabricClientCommandSource source) {
+        Util.ioPool().execute(() -> {
+            try {
+                Path report = Benchmark.saveBaseline(benchmarkDir());
+                Minecraft.getInstance().execute(() -> {
+                    if (report != null) {
+                        source.sendFeedback(Component.literal("Baseline set to " + report.getFileName()));
+                    } else {
+                        source.sendError(Component.literal("No benchmark has finished yet"));
+                    }
+                });
+            } catch (IOException e) {
+                FPSDisplay.LOGGER.error("Failed to store FPS Display benchmark baseline", e);
+                Minecraft.getInstance().execute(() -> source.sendError(Component.literal("Could not store baseline: " + e.getMessage())));
+            }
+        });
+        return 1;
+    }
+
+    /**
+     * @return Directory benchmark reports are written to
+     */
+    private static Path benchmarkDir() {
+        return FabricLoader.getInstance().getGameDir().resolve("fpsdisplay/benchmarks");
+    }
+}
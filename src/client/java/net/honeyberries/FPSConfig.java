@@ -5,14 +5,26 @@ import com.google.gson.GsonBuilder;
 import com.mojang.blaze3d.platform.Window;
 import dev.isxander.yacl3.api.*;
 import dev.isxander.yacl3.api.controller.*;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.network.chat.Component;
 
 import java.awt.Color;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -21,6 +33,12 @@ import java.util.function.Supplier;
  * Handles loading, saving, and providing a GUI configuration screen using YACL3.
  * <p>
  * Configuration is persisted to disk as JSON and accessed via the singleton INSTANCE.
+ * <p>
+ * Saves are coalesced and written on a background thread through a temporary file that
+ * is atomically moved over the old one, so a crash can never leave a half-written file.
+ * The file is watched while the game runs and edits made on disk are reloaded live.
+ * The file location is only resolved when it is first needed, so this class can be
+ * loaded without the game.
  */
 public class FPSConfig {
     /**
@@ -38,6 +56,46 @@ public class FPSConfig {
          */
         private static final boolean DEF_ENABLE_ADVANCED = false;
 
+        /**
+         * Default value: Do not measure frame pacing.
+         */
+        private static final boolean DEF_PACING_STATS = false;
+
+        /**
+         * Default value: Do not show the render workload.
+         */
+        private static final boolean DEF_WORKLOAD_STATS = false;
+
+        /**
+         * Default value: Do not sample memory metrics.
+         */
+        private static final boolean DEF_MEMORY_STATS = false;
+
+        /**
+         * Default value: Do not show per-thread CPU usage.
+         */
+        private static final boolean DEF_CPU_STATS = false;
+
+        /**
+         * Default value: Do not show or record load times.
+         */
+        private static final boolean DEF_LOAD_TIMES = false;
+
+
+        /**
+         * Default value: Do not instrument render-loop phases.
+         */
+        private static final boolean DEF_PHASE_TIMINGS = false;
+
+        /**
+         * Default value: Do not request server tick statistics.
+         */
+        private static final boolean DEF_SERVER_STATS = false;
+
+        /**
+         * Default value: Do not show network statistics.
+         */
+        private static final boolean DEF_NETWORK_STATS = false;
 
         /**
          * Default value: Show the "FPS" text before the numerical value.
@@ -64,6 +122,66 @@ public class FPSConfig {
          */
         private static final float DEF_SCALE = 1.0f;
 
+        /**
+         * Lower bound: HUD scale multiplier.
+         */
+        private static final float MIN_SCALE = 0.5f;
+
+        /**
+         * Upper bound: HUD scale multiplier.
+         */
+        private static final float MAX_SCALE = 3.0f;
+
+        /**
+         * Default value: Do not draw the frame-time graph.
+         */
+        private static final boolean DEF_FRAME_GRAPH = false;
+
+        /**
+         * Default value: Frame-time graph width in pixels.
+         */
+        private static final int DEF_GRAPH_WIDTH = 120;
+
+        /**
+         * Lower bound: Frame-time graph width in pixels.
+         */
+        private static final int MIN_GRAPH_WIDTH = 20;
+
+        /**
+         * Upper bound: Frame-time graph width in pixels.
+         */
+        private static final int MAX_GRAPH_WIDTH = 400;
+
+        /**
+         * Default value: Number of frames shown by the frame-time graph.
+         */
+        private static final int DEF_GRAPH_HISTORY = 240;
+
+        /**
+         * Lower bound: Number of frames shown by the frame-time graph.
+         */
+        private static final int MIN_GRAPH_HISTORY = 30;
+
+        /**
+         * Upper bound: Number of frames shown by the frame-time graph.
+         */
+        private static final int MAX_GRAPH_HISTORY = 1000;
+
+        /**
+         * Default value: Frame-time graph bar height in pixels per millisecond.
+         */
+        private static final float DEF_GRAPH_SCALE = 1.0f;
+
+        /**
+         * Lower bound: Frame-time graph bar height in pixels per millisecond.
+         */
+        private static final float MIN_GRAPH_SCALE = 0.5f;
+
+        /**
+         * Upper bound: Frame-time graph bar height in pixels per millisecond.
+         */
+        private static final float MAX_GRAPH_SCALE = 3.0f;
+
         /**
          * Default value: Text color in ARGB format (white, fully opaque).
          */
@@ -74,6 +192,136 @@ public class FPSConfig {
          */
         private static final int DEF_BG_COLOR = 0x00000000;
 
+        /**
+         * Default value: Recalculate statistics twice per second.
+         */
+        private static final int DEF_UPDATE_INTERVAL = 500;
+
+        /**
+         * Lower bound: Milliseconds between statistics updates.
+         */
+        private static final int MIN_UPDATE_INTERVAL = 16;
+
+        /**
+         * Upper bound: Milliseconds between statistics updates.
+         */
+        private static final int MAX_UPDATE_INTERVAL = 2000;
+
+        /**
+         * Default value: Read lows from the frame-time histogram instead of exact order statistics.
+         */
+        private static final boolean DEF_HISTOGRAM_STATS = true;
+
+        /**
+         * Default value: Histogram precision in significant digits (~0.8% error).
+         */
+        private static final int DEF_HISTOGRAM_PRECISION = 2;
+
+        /**
+         * Lower bound: Histogram precision in significant digits.
+         */
+        private static final int MIN_HISTOGRAM_PRECISION = 1;
+
+        /**
+         * Upper bound: Histogram precision in significant digits.
+         */
+        private static final int MAX_HISTOGRAM_PRECISION = 3;
+
+        /**
+         * Default value: Do not show the 1 second, 60 second or session lines.
+         */
+        private static final boolean DEF_SHOW_WINDOW = false;
+
+        /**
+         * Default value: Do not record sessions to disk.
+         */
+        private static final boolean DEF_SESSION_RECORDING = false;
+
+        /**
+         * Default value: Export recorded sessions to CSV when they end.
+         */
+        private static final boolean DEF_SESSION_CSV = true;
+
+        /**
+         * Default value: Do not detect hitches.
+         */
+        private static final boolean DEF_HITCH_DETECTOR = false;
+
+        /**
+         * Default value: A hitch is a frame over twice the median frame time.
+         */
+        private static final float DEF_HITCH_MULTIPLIER = 2.0f;
+
+        /**
+         * Lower bound: Hitch threshold as a multiple of the median frame time.
+         */
+        private static final float MIN_HITCH_MULTIPLIER = 1.5f;
+
+        /**
+         * Upper bound: Hitch threshold as a multiple of the median frame time.
+         */
+        private static final float MAX_HITCH_MULTIPLIER = 5.0f;
+
+        /**
+         * Default value: Do not sample the render thread during stalls.
+         */
+        private static final boolean DEF_STALL_SAMPLER = false;
+
+        /**
+         * Default value: Sample the render thread once a frame has taken 100 ms.
+         */
+        private static final int DEF_STALL_THRESHOLD = 100;
+
+        /**
+         * Lower bound: Milliseconds a frame must take before the stall sampler samples it.
+         */
+        private static final int MIN_STALL_THRESHOLD = 20;
+
+        /**
+         * Upper bound: Milliseconds a frame must take before the stall sampler samples it.
+         */
+        private static final int MAX_STALL_THRESHOLD = 1000;
+
+        /**
+         * Default value: Discard the first 5 seconds of a benchmark.
+         */
+        private static final int DEF_BENCHMARK_WARMUP = 5;
+
+        /**
+         * Lower bound: Seconds discarded at the start of a benchmark.
+         */
+        private static final int MIN_BENCHMARK_WARMUP = 0;
+
+        /**
+         * Upper bound: Seconds discarded at the start of a benchmark.
+         */
+        private static final int MAX_BENCHMARK_WARMUP = 30;
+
+        /**
+         * Default value: Do not serve metrics over HTTP.
+         */
+        private static final boolean DEF_METRICS_ENDPOINT = false;
+
+        /**
+         * Default value: Serve metrics on port 9464.
+         */
+        private static final int DEF_METRICS_PORT = 9464;
+
+        /**
+         * Lower bound: Port the metrics endpoint listens on.
+         */
+        private static final int MIN_METRICS_PORT = 1024;
+
+        /**
+         * Upper bound: Port the metrics endpoint listens on.
+         */
+        private static final int MAX_METRICS_PORT = 65535;
+
+        /**
+         * Default value: Do not mirror frame times into shared memory.
+         */
+        private static final boolean DEF_SHARED_MEMORY = false;
+
         /**
          * Whether the FPS display is currently enabled.
          */
@@ -84,6 +332,50 @@ public class FPSConfig {
          */
         public boolean enableAdvancedStats = DEF_ENABLE_ADVANCED;
 
+        /**
+         * Whether to show frame pacing (standard deviation, jitter, stutter score and
+         * missed display refreshes).
+         */
+        public boolean enablePacingStats = DEF_PACING_STATS;
+
+        /**
+         * Whether to show the average render workload (entities, block entities, chunk
+         * sections and rebuilds) of all frames and of the slowest 1%.
+         */
+        public boolean enableWorkloadStats = DEF_WORKLOAD_STATS;
+
+        /**
+         * Whether to show allocation rate, heap usage and GC pause totals.
+         */
+        public boolean enableMemoryStats = DEF_MEMORY_STATS;
+
+        /**
+         * Whether to show CPU usage of the render thread, integrated server and worker pool.
+         */
+        public boolean enableCpuStats = DEF_CPU_STATS;
+
+        /**
+         * Whether to show startup, resource reload and world join times and append them
+         * to the load history.
+         */
+        public boolean enableLoadTimes = DEF_LOAD_TIMES;
+
+        /**
+         * Whether to time the phases of each frame (tick, world, GUI, swap) and show
+         * the breakdown. Read once at startup, so changes apply after a restart.
+         */
+        public boolean enablePhaseTimings = DEF_PHASE_TIMINGS;
+
+        /**
+         * Whether to show the server's TPS and tick times, when the server has the mod.
+         */
+        public boolean showServerStats = DEF_SERVER_STATS;
+
+        /**
+         * Whether to show ping, packet rates and bandwidth of the server connection.
+         */
+        public boolean enableNetworkStats = DEF_NETWORK_STATS;
+
         /**
          * Whether to show the "FPS" text before the numerical value.
          */
@@ -109,6 +401,26 @@ public class FPSConfig {
          */
         public float hudScale = DEF_SCALE;
 
+        /**
+         * Whether to draw a rolling frame-time graph below the text.
+         */
+        public boolean enableFrameGraph = DEF_FRAME_GRAPH;
+
+        /**
+         * Width of the frame-time graph in pixels.
+         */
+        public int graphWidth = DEF_GRAPH_WIDTH;
+
+        /**
+         * Number of most recent frames shown by the frame-time graph.
+         */
+        public int graphHistory = DEF_GRAPH_HISTORY;
+
+        /**
+         * Frame-time graph bar height in pixels per millisecond (0.5 to 3.0).
+         */
+        public float graphScale = DEF_GRAPH_SCALE;
+
         /**
          * Text color in ARGB format (alpha, red, green, blue).
          */
@@ -118,18 +430,154 @@ public class FPSConfig {
          * Background box color in ARGB format (alpha, red, green, blue).
          */
         public int bgColor = DEF_BG_COLOR;
+
+        /**
+         * Time between statistics updates in milliseconds (16 to 2000).
+         * Statistics are always calculated on a background thread.
+         */
+        public int updateIntervalMs = DEF_UPDATE_INTERVAL;
+
+        /**
+         * Whether lows are read from the frame-time histogram (fast, approximate)
+         * instead of exact order statistics of every frame in the window.
+         */
+        public boolean useHistogramStats = DEF_HISTOGRAM_STATS;
+
+        /**
+         * Histogram precision in significant digits (1 to 3).
+         * Higher values lower the error bound at the cost of more buckets.
+         */
+        public int histogramPrecision = DEF_HISTOGRAM_PRECISION;
+
+        /**
+         * Whether to show a line with the statistics of the last completed second.
+         */
+        public boolean showOneSecondStats = DEF_SHOW_WINDOW;
+
+        /**
+         * Whether to show a line with the statistics of the last 60 seconds.
+         */
+        public boolean showOneMinuteStats = DEF_SHOW_WINDOW;
+
+        /**
+         * Whether to show a line with the statistics of the whole session.
+         */
+        public boolean showSessionStats = DEF_SHOW_WINDOW;
+
+        /**
+         * Whether every frame time is recorded to a session log under the game directory.
+         */
+        public boolean enableSessionRecording = DEF_SESSION_RECORDING;
+
+        /**
+         * Whether a PresentMon-compatible CSV is exported when a recorded session ends.
+         */
+        public boolean exportSessionCsv = DEF_SESSION_CSV;
+
+        /**
+         * Whether frames much slower than the median are logged as hitches and counted on the HUD.
+         */
+        public boolean enableHitchDetector = DEF_HITCH_DETECTOR;
+
+        /**
+         * Hitch threshold as a multiple of the median frame time (1.5 to 5.0).
+         */
+        public float hitchMultiplier = DEF_HITCH_MULTIPLIER;
+
+        /**
+         * Whether the render thread's stack is sampled while a frame is stalled and
+         * written to fpsdisplay/profiles as collapsed stacks.
+         */
+        public boolean enableStallSampler = DEF_STALL_SAMPLER;
+
+        /**
+         * Frame duration in milliseconds after which the stall sampler starts sampling (20 to 1000).
+         */
+        public int stallThresholdMs = DEF_STALL_THRESHOLD;
+
+        /**
+         * Seconds recorded and discarded before a benchmark starts measuring.
+         */
+        public int benchmarkWarmupSeconds = DEF_BENCHMARK_WARMUP;
+
+        /**
+         * Whether to serve live statistics in OpenMetrics format on the loopback address.
+         */
+        public boolean enableMetricsEndpoint = DEF_METRICS_ENDPOINT;
+
+        /**
+         * Loopback port the metrics endpoint listens on.
+         */
+        public int metricsPort = DEF_METRICS_PORT;
+
+        /**
+         * Whether frame times and statistics are mirrored into a memory-mapped file for
+         * external capture tools.
+         */
+        public boolean enableSharedMemory = DEF_SHARED_MEMORY;
     }
 
     /**
      * Singleton instance providing access to all configuration values.
      * Modify this instance to change settings, then call save() to persist changes.
+     * Volatile because load() replaces it as a whole.
      */
-    public static Handler INSTANCE = new Handler();
+    public static volatile Handler INSTANCE = new Handler();
 
     /**
-     * Location of the configuration file on disk.
+     * Incremented every time the configuration is applied (after each load and save).
+     * Lets the HUD notice changes without comparing every field.
      */
-    private static final File CONFIG_FILE = new File(Minecraft.getInstance().gameDirectory, "config/fps_display_config.json");
+    private static volatile int generation = 0;
+
+    /**
+     * Name of the configuration file inside the config directory.
+     */
+    private static final String FILE_NAME = "fps_display_config.json";
+
+    /**
+     * How long saves are coalesced before the file is written, in milliseconds.
+     */
+    private static final long SAVE_DELAY_MS = 250;
+
+    /**
+     * How long to wait after a file change before reloading, in milliseconds.
+     * Lets an external writer finish before the file is read.
+     */
+    private static final long RELOAD_DELAY_MS = 100;
+
+    /**
+     * Lock held while the file is written. Separate from the class lock so that saving
+     * from the render thread never waits for disk I/O.
+     */
+    private static final Object WRITE_LOCK = new Object();
+
+    /**
+     * JSON waiting to be written, or null if nothing is pending. Guarded by the class lock.
+     */
+    private static String pendingJson = null;
+
+    /**
+     * Whether a write task is scheduled. Guarded by the class lock.
+     */
+    private static boolean writeScheduled = false;
+
+    /**
+     * Contents of the file as last written or read by this class.
+     * File events whose contents match it are our own writes and are not reloaded.
+     */
+    private static volatile String lastFileJson = null;
+
+    /**
+     * Executor for config writes and slow reconfigurations, or null before the first use.
+     * Guarded by the class lock.
+     */
+    private static ScheduledExecutorService io = null;
+
+    /**
+     * Watch service for hot reload, or null when not watching. Guarded by the class lock.
+     */
+    private static WatchService watcher = null;
 
     /**
      * Gson instance for JSON serialization/deserialization with pretty printing.
@@ -164,6 +612,14 @@ public class FPSConfig {
                     .name(Component.literal("HUD"))
                     .option(buildBool("Enable HUD", "Enables the FPS Display", () -> Handler.DEF_ENABLE, () -> INSTANCE.enableFps, val -> INSTANCE.enableFps = val))
                     .option(buildBool("Advanced Stats", "Show 1% and 0.1% lows", () -> Handler.DEF_ENABLE_ADVANCED, () -> INSTANCE.enableAdvancedStats, val -> INSTANCE.enableAdvancedStats = val))
+                    .option(buildBool("Pacing Stats", "Show frame time standard deviation, frame-to-frame jitter, a stutter score and missed display refreshes", () -> Handler.DEF_PACING_STATS, () -> INSTANCE.enablePacingStats, val -> INSTANCE.enablePacingStats = val))
+                    .option(buildBool("Workload Stats", "Show entities, block entities, chunk sections and chunk rebuilds per frame, on average and in the slowest 1% of frames", () -> Handler.DEF_WORKLOAD_STATS, () -> INSTANCE.enableWorkloadStats, val -> INSTANCE.enableWorkloadStats = val))
+                    .option(buildBool("Memory Stats", "Show allocation rate, heap usage and GC pauses in the last minute", () -> Handler.DEF_MEMORY_STATS, () -> INSTANCE.enableMemoryStats, val -> INSTANCE.enableMemoryStats = val))
+                    .option(buildBool("CPU Stats", "Show CPU usage of the render thread, integrated server and chunk worker pool (100% = one core)", () -> Handler.DEF_CPU_STATS, () -> INSTANCE.enableCpuStats, val -> INSTANCE.enableCpuStats = val))
+                    .option(buildBool("Load Times", "Show startup, resource reload and world join times, and keep their history in fpsdisplay/load-history.csv", () -> Handler.DEF_LOAD_TIMES, () -> INSTANCE.enableLoadTimes, val -> INSTANCE.enableLoadTimes = val))
+                    .option(buildBool("Server Stats", "Show the server's TPS and tick time (MSPT) when the server has FPS Display installed", () -> Handler.DEF_SERVER_STATS, () -> INSTANCE.showServerStats, val -> INSTANCE.showServerStats = val))
+                    .option(buildBool("Network Stats", "Show ping with jitter, packets per second and bandwidth of the server connection", () -> Handler.DEF_NETWORK_STATS, () -> INSTANCE.enableNetworkStats, val -> INSTANCE.enableNetworkStats = val))
+                    .option(buildBool("Phase Timings", "Show how long each frame spends in tick, world, GUI and swap (requires restart)", () -> Handler.DEF_PHASE_TIMINGS, () -> INSTANCE.enablePhaseTimings, val -> INSTANCE.enablePhaseTimings = val))
                     .option(buildBool("Show 'FPS' Text", "Show the 'FPS' text before the numerical value", () -> Handler.DEF_SHOW_FPS_TEXT, () -> INSTANCE.showFpsText, val -> INSTANCE.showFpsText = val))
                     .build())
                 .group(OptionGroup.createBuilder()
@@ -171,13 +627,54 @@ public class FPSConfig {
                     .option(buildIntSlider("X Offset", "Controls the X Offset from the left", 0, maxX, () -> Handler.DEF_X, () -> INSTANCE.xOffset, val -> INSTANCE.xOffset = val))
                     .option(buildIntSlider("Y Offset", "Controls the Y Offset from the top", 0, maxY, () -> Handler.DEF_Y, () -> INSTANCE.yOffset, val -> INSTANCE.yOffset = val))
                     .build())
+                .group(OptionGroup.createBuilder()
+                    .name(Component.literal("Statistics"))
+                    .option(buildIntSlider("Update Interval", "Milliseconds between statistics updates", Handler.MIN_UPDATE_INTERVAL, Handler.MAX_UPDATE_INTERVAL, () -> Handler.DEF_UPDATE_INTERVAL, () -> INSTANCE.updateIntervalMs, val -> INSTANCE.updateIntervalMs = val))
+                    .option(buildBool("Histogram Stats", "Read lows from a frame-time histogram (approximate) instead of exact order statistics", () -> Handler.DEF_HISTOGRAM_STATS, () -> INSTANCE.useHistogramStats, val -> INSTANCE.useHistogramStats = val))
+                    .option(buildIntSlider("Histogram Precision", "Significant digits kept by the histogram (1 = ~6%, 2 = ~0.8%, 3 = ~0.1% error)", Handler.MIN_HISTOGRAM_PRECISION, Handler.MAX_HISTOGRAM_PRECISION, () -> Handler.DEF_HISTOGRAM_PRECISION, () -> INSTANCE.histogramPrecision, val -> INSTANCE.histogramPrecision = val))
+                    .option(buildBool("1 Second Window", "Show average FPS and lows of the last second", () -> Handler.DEF_SHOW_WINDOW, () -> INSTANCE.showOneSecondStats, val -> INSTANCE.showOneSecondStats = val))
+                    .option(buildBool("60 Second Window", "Show average FPS and lows of the last minute", () -> Handler.DEF_SHOW_WINDOW, () -> INSTANCE.showOneMinuteStats, val -> INSTANCE.showOneMinuteStats = val))
+                    .option(buildBool("Session Window", "Show average FPS and lows since the game started", () -> Handler.DEF_SHOW_WINDOW, () -> INSTANCE.showSessionStats, val -> INSTANCE.showSessionStats = val))
+                    .build())
+                .group(OptionGroup.createBuilder()
+                    .name(Component.literal("Recording"))
+                    .option(buildBool("Record Sessions", "Record every frame time to fpsdisplay/sessions in the game directory", () -> Handler.DEF_SESSION_RECORDING, () -> INSTANCE.enableSessionRecording, val -> INSTANCE.enableSessionRecording = val))
+                    .option(buildBool("Export CSV", "Export a PresentMon-compatible CSV when a recorded session ends", () -> Handler.DEF_SESSION_CSV, () -> INSTANCE.exportSessionCsv, val -> INSTANCE.exportSessionCsv = val))
+                    .build())
+                .group(OptionGroup.createBuilder()
+                    .name(Component.literal("Hitches"))
+                    .option(buildBool("Hitch Detector", "Count frames much slower than the median and log whether a GC pause caused them", () -> Handler.DEF_HITCH_DETECTOR, () -> INSTANCE.enableHitchDetector, val -> INSTANCE.enableHitchDetector = val))
+                    .option(buildFloatSlider("Hitch Threshold", "A frame is a hitch when it takes this many times the median frame time", Handler.MIN_HITCH_MULTIPLIER, Handler.MAX_HITCH_MULTIPLIER, () -> Handler.DEF_HITCH_MULTIPLIER, () -> INSTANCE.hitchMultiplier, val -> INSTANCE.hitchMultiplier = val))
+                    .option(buildBool("Stall Sampler", "Sample the render thread's stack while a frame is stalled and write a flame graph profile to fpsdisplay/profiles", () -> Handler.DEF_STALL_SAMPLER, () -> INSTANCE.enableStallSampler, val -> INSTANCE.enableStallSampler = val))
+                    .option(buildIntSlider("Stall Threshold", "Milliseconds a frame must take before the stall sampler starts sampling", Handler.MIN_STALL_THRESHOLD, Handler.MAX_STALL_THRESHOLD, () -> Handler.DEF_STALL_THRESHOLD, () -> INSTANCE.stallThresholdMs, val -> INSTANCE.stallThresholdMs = val))
+                    .build())
+                .group(OptionGroup.createBuilder()
+                    .name(Component.literal("Benchmark"))
+                    .option(buildIntSlider("Warm-up", "Seconds discarded at the start of a /fpsbench run", Handler.MIN_BENCHMARK_WARMUP, Handler.MAX_BENCHMARK_WARMUP, () -> Handler.DEF_BENCHMARK_WARMUP, () -> INSTANCE.benchmarkWarmupSeconds, val -> INSTANCE.benchmarkWarmupSeconds = val))
+                    .build())
+                .group(OptionGroup.createBuilder()
+                    .name(Component.literal("Metrics Endpoint"))
+                    .option(buildBool("Metrics Endpoint", "Serve live statistics for Prometheus at http://127.0.0.1:<port>/metrics (this computer only)", () -> Handler.DEF_METRICS_ENDPOINT, () -> INSTANCE.enableMetricsEndpoint, val -> INSTANCE.enableMetricsEndpoint = val))
+                    .option(buildIntField("Metrics Port", "Port the metrics endpoint listens on", Handler.MIN_METRICS_PORT, Handler.MAX_METRICS_PORT, () -> Handler.DEF_METRICS_PORT, () -> INSTANCE.metricsPort, val -> INSTANCE.metricsPort = val))
+                    .build())
+                .group(OptionGroup.createBuilder()
+                    .name(Component.literal("Shared Memory"))
+                    .option(buildBool("Shared Memory Export", "Mirror every frame time and the latest statistics into fpsdisplay/frames.shm for external capture tools and overlays", () -> Handler.DEF_SHARED_MEMORY, () -> INSTANCE.enableSharedMemory, val -> INSTANCE.enableSharedMemory = val))
+                    .build())
                 .build())
             .category(ConfigCategory.createBuilder()
                 .name(Component.literal("Appearance"))
-                .option(buildFloatSlider("HUD Scale", "The scale of the HUD elements, including the background ", 0.5f, 3.0f, () -> Handler.DEF_SCALE, () -> INSTANCE.hudScale, val -> INSTANCE.hudScale = val))
+                .option(buildFloatSlider("HUD Scale", "The scale of the HUD elements, including the background ", Handler.MIN_SCALE, Handler.MAX_SCALE, () -> Handler.DEF_SCALE, () -> INSTANCE.hudScale, val -> INSTANCE.hudScale = val))
                 .option(buildBool("Text Shadow", "Renders a shadow behind text", () -> Handler.DEF_ENABLE_SHADOW, () -> INSTANCE.enableShadow, val -> INSTANCE.enableShadow = val))
                 .option(buildColor("Text Color", "Color for the text", () -> Handler.DEF_TEXT_COLOR, () -> INSTANCE.hudColor, val -> INSTANCE.hudColor = val))
                 .option(buildColor("Background Color", "Color for the background", () -> Handler.DEF_BG_COLOR, () -> INSTANCE.bgColor, val -> INSTANCE.bgColor = val))
+                .group(OptionGroup.createBuilder()
+                    .name(Component.literal("Frame Graph"))
+                    .option(buildBool("Frame Graph", "Draws a rolling frame-time graph below the text", () -> Handler.DEF_FRAME_GRAPH, () -> INSTANCE.enableFrameGraph, val -> INSTANCE.enableFrameGraph = val))
+                    .option(buildIntSlider("Graph Width", "Width of the frame-time graph in pixels", Handler.MIN_GRAPH_WIDTH, Handler.MAX_GRAPH_WIDTH, () -> Handler.DEF_GRAPH_WIDTH, () -> INSTANCE.graphWidth, val -> INSTANCE.graphWidth = val))
+                    .option(buildIntSlider("Graph History", "Number of most recent frames shown in the graph", Handler.MIN_GRAPH_HISTORY, Handler.MAX_GRAPH_HISTORY, () -> Handler.DEF_GRAPH_HISTORY, () -> INSTANCE.graphHistory, val -> INSTANCE.graphHistory = val))
+                    .option(buildFloatSlider("Graph Scale", "Bar height in pixels per millisecond of frame time", Handler.MIN_GRAPH_SCALE, Handler.MAX_GRAPH_SCALE, () -> Handler.DEF_GRAPH_SCALE, () -> INSTANCE.graphScale, val -> INSTANCE.graphScale = val))
+                    .build())
                 .build())
             .build()
             .generateScreen(parent);
@@ -241,6 +738,28 @@ public class FPSConfig {
             .build();
     }
 
+    /**
+     * Helper method to build an integer text field option for the config GUI.
+     * Used for values whose range is too wide for a slider.
+     *
+     * @param name Display name for the option
+     * @param min Minimum allowed value
+     * @param max Maximum allowed value
+     * @param def Supplier providing the default value
+     * @param get Supplier providing the current value
+     * @param set Consumer to update the value
+     * @return A configured Integer option for YACL3 with field controller
+     */
+    private static Option<Integer> buildIntField(String name, String description, int min, int max, Supplier<Integer> def, Supplier<Integer> get, Consumer<Integer> set) {
+        return Option.<Integer>createBuilder()
+            .name(Component.literal(name))
+            .description(OptionDescription.of(Component.literal(description)))
+            .binding(def.get(), get, set)
+            .controller(opt -> IntegerFieldControllerBuilder.create(opt).range(min, max)
+                .formatValue(value -> Component.literal(Integer.toString(value))))
+            .build();
+    }
+
     /**
      * Helper method to build a float slider option for the config GUI.
      *
@@ -262,33 +781,334 @@ public class FPSConfig {
     }
 
     /**
-     * Saves the current configuration to disk as JSON.
+     * Applies the current configuration and schedules it to be saved to disk as JSON.
      * Called automatically when the config screen is closed.
-     * The entire INSTANCE is serialized to preserve all settings.
+     * The entire INSTANCE is serialized right away, so later edits cannot leak into this
+     * save; saves within SAVE_DELAY_MS of each other are written once.
      */
-    public static void save() {
-        try (FileWriter writer = new FileWriter(CONFIG_FILE)) {
-            GSON.toJson(INSTANCE, writer); // Save the entire instance at once
-        } catch (Exception e) {
-            FPSDisplay.LOGGER.error("Failed to save FPS Display configuration", e);
+    public static synchronized void save() {
+        validate(INSTANCE); // The screen edits the published instance in place
+        apply();
+        pendingJson = GSON.toJson(INSTANCE); // Save the entire instance at once
+        if (!writeScheduled) {
+            writeScheduled = true;
+            io().schedule(FPSConfig::writePending, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
         }
     }
 
     /**
      * Loads the configuration from disk.
      * If the config file doesn't exist, creates a new one with default values.
+     * A file that cannot be parsed is moved aside and replaced with defaults.
      * Called during client initialization.
      */
-    public static void load() {
-        if (!CONFIG_FILE.exists()) {
+    public static synchronized void load() {
+        Path file = configFile();
+        if (!Files.exists(file)) {
             save(); // Create default file if it doesn't exist
             return;
         }
-        try (FileReader reader = new FileReader(CONFIG_FILE)) {
-            Handler loaded = GSON.fromJson(reader, Handler.class);
-            if (loaded != null) INSTANCE = loaded; // Replace the whole instance
+        try {
+            String json = Files.readString(file, StandardCharsets.UTF_8);
+            Handler loaded = GSON.fromJson(json, Handler.class);
+            if (loaded != null) {
+                validate(loaded); // Before publishing, so no reader sees unclamped values
+                INSTANCE = loaded; // Replace the whole instance
+            }
+            lastFileJson = json;
+        } catch (Exception e) {
+            FPSDisplay.LOGGER.error("Failed to load FPS Display configuration, using defaults", e);
+            try {
+                Files.move(file, file.resolveSibling(FILE_NAME + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveError) {
+                FPSDisplay.LOGGER.warn("Could not move aside the unreadable FPS Display configuration", moveError);
+            }
+            save();
+            return;
+        }
+        apply();
+    }
+
+    /**
+     * Starts watching the configuration file for edits made on disk.
+     * Changed files are reloaded and applied without a restart.
+     */
+    public static synchronized void watch() {
+        if (watcher != null) return;
+        Path file = configFile();
+        try {
+            watcher = file.getFileSystem().newWatchService();
+            file.getParent().register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            FPSDisplay.LOGGER.warn("Could not watch the FPS Display configuration for changes", e);
+            watcher = null;
+            return;
+        }
+
+        WatchService service = watcher;
+        Thread thread = new Thread(() -> watchLoop(service, file), "FPSDisplay Config Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Writes any pending save, stops watching the file and waits for queued
+     * reconfigurations, so that none of them restarts a component after shutdown.
+     * Called when the client shuts down, before the components are stopped.
+     */
+    public static void shutdown() {
+        ScheduledExecutorService executor;
+        synchronized (FPSConfig.class) {
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    FPSDisplay.LOGGER.warn("Could not close the FPS Display configuration watcher", e);
+                }
+                watcher = null;
+            }
+            executor = io;
+            if (io != null) io.shutdown();
+            io = null;
+        }
+        writePending(); // Anything still waiting for its delay
+        if (executor == null) return;
+        try {
+            // Outside the class lock, which a scheduled write takes
+            if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                FPSDisplay.LOGGER.warn("FPS Display configuration tasks did not finish before shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Resolves the configuration file inside the game's config directory.
+     *
+     * @return Location of the configuration file
+     */
+    private static Path configFile() {
+        return FabricLoader.getInstance().getConfigDir().resolve(FILE_NAME);
+    }
+
+    /**
+     * Gets the executor config files are written and slow components reconfigured on,
+     * creating it on first use. Runs its tasks one at a time, in order.
+     *
+     * @return The executor
+     */
+    private static synchronized ScheduledExecutorService io() {
+        if (io == null) {
+            io = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "FPSDisplay Config IO");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return io;
+    }
+
+    /**
+     * Writes the pending JSON, if any.
+     */
+    private static void writePending() {
+        String json;
+        synchronized (FPSConfig.class) {
+            json = pendingJson;
+            pendingJson = null;
+            writeScheduled = false;
+        }
+        if (json != null) writeAtomically(json);
+    }
+
+    /**
+     * Writes the configuration through a temporary file that replaces the old file in one step.
+     * Holds WRITE_LOCK so that the shutdown flush and a scheduled write never interleave.
+     *
+     * @param json The JSON to write
+     */
+    private static void writeAtomically(String json) {
+        Path file = configFile();
+        synchronized (WRITE_LOCK) {
+            try {
+                Files.createDirectories(file.getParent());
+                Path temp = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+                try {
+                    Files.writeString(temp, json, StandardCharsets.UTF_8);
+                    lastFileJson = json; // Before the move, so the watcher recognizes its event
+                    try {
+                        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                FPSDisplay.LOGGER.error("Failed to save FPS Display configuration", e);
+            }
+        }
+    }
+
+    /**
+     * Watcher loop: reloads the configuration whenever its file changes.
+     *
+     * @param service The watch service registered on the config directory
+     * @param file The configuration file
+     */
+    private static void watchLoop(WatchService service, Path file) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // Overflow events carry no file name, so treat them as a change
+                    if (event.context() == null || file.getFileName().equals(event.context())) changed = true;
+                }
+                key.reset();
+                if (changed) {
+                    Thread.sleep(RELOAD_DELAY_MS);
+                    reload(file);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Reloads the configuration after the file changed on disk.
+     * Our own writes and files that cannot be parsed (for example while an external
+     * tool is still writing) are ignored.
+     *
+     * @param file The configuration file
+     */
+    private static void reload(Path file) {
+        String json;
+        Handler loaded;
+        try {
+            json = Files.readString(file, StandardCharsets.UTF_8);
+            if (json.equals(lastFileJson)) return;
+            loaded = GSON.fromJson(json, Handler.class);
         } catch (Exception e) {
-            FPSDisplay.LOGGER.error("Failed to load FPS Display configuration", e);
+            FPSDisplay.LOGGER.warn("Ignoring unreadable FPS Display configuration change", e);
+            return;
+        }
+        if (loaded == null) return;
+        validate(loaded); // Before publishing, so no reader sees unclamped values
+
+        synchronized (FPSConfig.class) {
+            INSTANCE = loaded;
+            lastFileJson = json;
+            apply();
+        }
+        FPSDisplay.LOGGER.info("Reloaded FPS Display configuration from {}", file);
+    }
+
+    /**
+     * Gets the configuration generation.
+     * Changes every time the configuration is loaded or saved.
+     *
+     * @return The current generation
+     */
+    public static int generation() {
+        return generation;
+    }
+
+    /**
+     * Pushes the settings that are not read per frame into the components that use them,
+     * then bumps the generation so the HUD rebuilds from the new values.
+     * Called with the class lock held after every load, save and hot reload, on the thread
+     * that loaded, saved from the config screen or watched the file. Components that open
+     * files, bind ports, start JFR or wait for threads are reconfigured on the config IO
+     * thread instead.
+     */
+    private static void apply() {
+        Handler config = INSTANCE;
+        FPSStats.configureHistogram(config.useHistogramStats, config.histogramPrecision);
+        FPSStats.setPacingEnabled(config.enablePacingStats);
+        FPSStats.setWorkloadEnabled(config.enableWorkloadStats);
+        StatsCalculator.setInterval(config.updateIntervalMs);
+        MemoryMonitor.setEnabled(config.enableMemoryStats);
+        CpuMonitor.setEnabled(config.enableCpuStats);
+        LoadTimings.setEnabled(config.enableLoadTimes);
+        StallSampler.configure(config.enableStallSampler, config.stallThresholdMs);
+        ServerStatsClient.setEnabled(config.showServerStats);
+        NetworkStats.setEnabled(config.enableNetworkStats);
+        // Captured now: the config screen edits the instance in place while the task waits
+        boolean detectHitches = config.enableHitchDetector;
+        float hitchMultiplier = config.hitchMultiplier;
+        boolean recordSession = config.enableSessionRecording;
+        boolean exportCsv = config.exportSessionCsv;
+        boolean serveMetrics = config.enableMetricsEndpoint;
+        int metricsPort = config.metricsPort;
+        boolean shareFrames = config.enableSharedMemory;
+        io().execute(() -> {
+            HitchDetector.configure(detectHitches, hitchMultiplier);
+            SessionRecorder.setEnabled(recordSession, exportCsv);
+            MetricsEndpoint.configure(serveMetrics, metricsPort);
+            SharedFrameExport.setEnabled(shareFrames);
+        });
+        generation++; // Last, once every change is visible; the class lock keeps writers apart
+    }
+
+    /**
+     * Clamps every ranged setting to the bounds offered by its option in the config screen.
+     * Values from a hand-edited or older file can be anything, and components such as the graph
+     * size their buffers from them, so out-of-range values are corrected here and logged.
+     *
+     * @param config The settings to correct in place
+     */
+    private static void validate(Handler config) {
+        config.xOffset = clamp("xOffset", config.xOffset, 0, Integer.MAX_VALUE);
+        config.yOffset = clamp("yOffset", config.yOffset, 0, Integer.MAX_VALUE);
+        config.hudScale = clamp("hudScale", config.hudScale, Handler.MIN_SCALE, Handler.MAX_SCALE, Handler.DEF_SCALE);
+        config.graphWidth = clamp("graphWidth", config.graphWidth, Handler.MIN_GRAPH_WIDTH, Handler.MAX_GRAPH_WIDTH);
+        config.graphHistory = clamp("graphHistory", config.graphHistory, Handler.MIN_GRAPH_HISTORY, Handler.MAX_GRAPH_HISTORY);
+        config.graphScale = clamp("graphScale", config.graphScale, Handler.MIN_GRAPH_SCALE, Handler.MAX_GRAPH_SCALE, Handler.DEF_GRAPH_SCALE);
+        config.updateIntervalMs = clamp("updateIntervalMs", config.updateIntervalMs, Handler.MIN_UPDATE_INTERVAL, Handler.MAX_UPDATE_INTERVAL);
+        config.histogramPrecision = clamp("histogramPrecision", config.histogramPrecision, Handler.MIN_HISTOGRAM_PRECISION, Handler.MAX_HISTOGRAM_PRECISION);
+        config.hitchMultiplier = clamp("hitchMultiplier", config.hitchMultiplier, Handler.MIN_HITCH_MULTIPLIER, Handler.MAX_HITCH_MULTIPLIER, Handler.DEF_HITCH_MULTIPLIER);
+        config.stallThresholdMs = clamp("stallThresholdMs", config.stallThresholdMs, Handler.MIN_STALL_THRESHOLD, Handler.MAX_STALL_THRESHOLD);
+        config.benchmarkWarmupSeconds = clamp("benchmarkWarmupSeconds", config.benchmarkWarmupSeconds, Handler.MIN_BENCHMARK_WARMUP, Handler.MAX_BENCHMARK_WARMUP);
+        config.metricsPort = clamp("metricsPort", config.metricsPort, Handler.MIN_METRICS_PORT, Handler.MAX_METRICS_PORT);
+    }
+
+    /**
+     * Clamps an integer setting to a range, logging the correction if one was needed.
+     *
+     * @param name Name of the setting in the configuration file
+     * @param value Value read from the configuration file
+     * @param min Minimum allowed value
+     * @param max Maximum allowed value
+     * @return The value, limited to {@code [min, max]}
+     */
+    private static int clamp(String name, int value, int min, int max) {
+        int clamped = Math.clamp(value, min, max);
+        if (clamped != value) {
+            FPSDisplay.LOGGER.warn("FPS Display setting {} = {} is outside {} to {}, using {}", name, value, min, max, clamped);
+        }
+        return clamped;
+    }
+
+    /**
+     * Clamps a float setting to a range, logging the correction if one was needed.
+     * A value that is not a number is replaced by the default, since it has no nearest bound.
+     *
+     * @param name Name of the setting in the configuration file
+     * @param value Value read from the configuration file
+     * @param min Minimum allowed value
+     * @param max Maximum allowed value
+     * @param def Default used when the value is not a number
+     * @return The value, limited to {@code [min, max]}
+     */
+    private static float clamp(String name, float value, float min, float max, float def) {
+        float clamped = Float.isNaN(value) ? def : Math.clamp(value, min, max);
+        if (Float.compare(clamped, value) != 0) {
+            FPSDisplay.LOGGER.warn("FPS Display setting {} = {} is outside {} to {}, using {}", name, value, min, max, clamped);
         }
+        return clamped;
     }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package net.honeyberries;
 
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
 import net.fabricmc.fabric.api.client.rendering.v1.hud.HudElementRegistry;
 import net.fabricmc.fabric.api.client.rendering.v1.hud.VanillaHudElements;
 import net.minecraft.resources.Identifier;
@@ -12,16 +14,35 @@ import net.minecraft.resources.Identifier;
 public class FPSDisplayClient implements ClientModInitializer {
     /**
      * Called when the client mod is initialized.
-     * Loads the configuration from disk and registers the FPS renderer
-     * to be displayed before the vanilla hotbar element.
+     * Loads the configuration from disk and watches it for edits, starts the
+     * statistics calculator thread, registers the FPS renderer to be displayed
+     * before the vanilla hotbar element, registers the client commands and the
+     * server statistics receiver, and stops the background threads and writes
+     * any pending config save when the client shuts down.
      */
     @Override
     public void onInitializeClient() {
+        MemoryMonitor.setRenderThread(Thread.currentThread()); // Client init runs on the render thread
         FPSConfig.load();
+        FPSConfig.watch();
+        LoadTimings.register();
+        StatsCalculator.start();
         HudElementRegistry.attachElementBefore(
                 VanillaHudElements.HOTBAR,
                 Identifier.fromNamespaceAndPath(FPSDisplay.MOD_ID, "fps_data"),
                 FPSRenderer::render
         );
+        ClientCommandRegistrationCallback.EVENT.register(FPSCommands::register);
+        ServerStatsClient.register();
+        ClientLifecycleEvents.CLIENT_STOPPING.register(client -> {
+            FPSConfig.shutdown(); // First, so no queued reconfiguration restarts what is stopped below
+            StatsCalculator.stop();
+            SessionRecorder.stop();
+            StallSampler.stop();
+            HitchDetector.stop();
+            MetricsScheduler.shutdown();
+            MetricsEndpoint.stop();
+            SharedFrameExport.stop();
+        });
     }
 }
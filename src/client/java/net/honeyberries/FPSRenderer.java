@@ -8,8 +8,18 @@ import net.minecraft.client.gui.GuiGraphics;
  * Handles rendering of the FPS display HUD element on screen.
  * This class is responsible for drawing the FPS counter with customizable
  * position, scale, colors, and advanced statistics based on configuration.
+ * <p>
+ * Everything that does not change from frame to frame is precompiled into an
+ * immutable {@link HudPlan}, which is replaced whenever the configuration is applied
+ * or a shown snapshot is published.
  */
 public final class FPSRenderer {
+    /**
+     * Plan the HUD is currently drawn from, or null before the first frame.
+     * Only touched by the render thread; replaced as a whole, never modified.
+     */
+    private static HudPlan plan = null;
+
     /**
      * Private constructor to prevent instantiation.
      * This is a utility class with only static methods.
@@ -21,14 +31,16 @@ public final class FPSRenderer {
      * Called every frame by the HUD rendering system.
      * <p>
      * This method:
-     * 1. Checks if FPS display is enabled in config
-     * 2. Records frame timing for statistics
-     * 3. Respects F3 debug overlay and hidden GUI settings
-     * 4. Draws background box (if configured with visible alpha)
-     * 5. Draws FPS text with shadow (if enabled)
-     * 6. Draws advanced statistics (if enabled)
+     * 1. Recompiles the render plan if the config or a shown snapshot changed
+     * 2. Checks if FPS display is enabled in config
+     * 3. Records frame timing for statistics
+     * 4. Respects F3 debug overlay and hidden GUI settings
+     * 5. Draws background box (if configured with visible alpha)
+     * 6. Draws every line of the plan: FPS text, server TPS/MSPT, advanced statistics, frame pacing, render workload, the extra windows,
+     *    memory, CPU and network metrics, load times, the phase breakdown and the hitch count (if enabled)
+     * 7. Draws the frame-time graph (if enabled)
      * <p>
-     * All positioning, scaling, and colors are controlled by FPSConfig.INSTANCE.
+     * All positioning, scaling, and colors come from the plan, which copies them from FPSConfig.INSTANCE.
      *
      * @param context The GuiGraphics context for rendering
      * @param delta Delta tracker for frame timing (unused in current implementation)
@@ -36,52 +48,47 @@ public final class FPSRenderer {
     public static void render(GuiGraphics context, DeltaTracker delta) {
         Minecraft client = Minecraft.getInstance();
 
-        // Use the Singleton Instance for the toggle check
-        if (!FPSConfig.INSTANCE.enableFps) return;
+        HudPlan current = plan;
+        if (current == null || !current.isCurrent(FPSConfig.generation())) {
+            current = HudPlan.compile(client.font);
+            plan = current;
+            FPSStats.setRefreshRate(client.getWindow().getRefreshRate()); // Queried on recompiles only, never per frame
+        }
+
+        if (!current.enabled) {
+            if (Benchmark.isRunning()) FPSStats.recordFrame(System.nanoTime()); // Benchmarks run with the HUD off too
+            return;
+        }
 
         // Record stats
         FPSStats.recordFrame(System.nanoTime());
 
-        boolean showFpsText = FPSConfig.INSTANCE.showFpsText;
+        // Keep the graph current even while hidden, so it is complete when shown again
+        if (current.graph) {
+            FrameGraph.update(current.graphHistory, current.graphScale);
+        }
 
         // Respect F3 and other debug overlays
         if (!client.debugEntries.isOverlayVisible() && !client.options.hideGui) {
             context.pose().pushMatrix();
+            context.pose().translate(current.x, current.y);
+            context.pose().scale(current.scale);
 
-            // 1. Position and Scale using Singleton values
-            context.pose().translate(FPSConfig.INSTANCE.xOffset, FPSConfig.INSTANCE.yOffset);
-            context.pose().scale(FPSConfig.INSTANCE.hudScale);
-
-            String avgText = FPSStats.getDisplayStringAvg(showFpsText);
-            String lowsText = FPSStats.getDisplayStringLows();
-
-            // 2. Calculate Dynamic Dimensions
-            int maxWidth = client.font.width(avgText);
-            int totalHeight = 10;
-
-            if (FPSConfig.INSTANCE.enableAdvancedStats) {
-                maxWidth = Math.max(maxWidth, client.font.width(lowsText));
-                totalHeight += 10;
+            if (current.drawBackground) {
+                context.fill(-2, -2, current.boxRight, current.boxBottom, current.bgColor);
             }
 
-            // 3. Draw Background Box
-            // Extracting alpha from the singleton's bgColor
-            int bgColor = FPSConfig.INSTANCE.bgColor;
-            if (((bgColor >> 24) & 0xFF) > 0) {
-                context.fill(-2, -2, maxWidth + 2, totalHeight, bgColor);
+            String[] lines = current.lines;
+            for (int i = 0; i < lines.length; i++) {
+                context.drawString(client.font, lines[i], 0, i * 10, current.textColor, current.shadow);
             }
 
-            // 4. Draw Strings using singleton settings
-            int textColor = FPSConfig.INSTANCE.hudColor;
-            boolean useShadow = FPSConfig.INSTANCE.enableShadow;
-
-            context.drawString(client.font, avgText, 0, 0, textColor, useShadow);
-
-            if (FPSConfig.INSTANCE.enableAdvancedStats) {
-                context.drawString(client.font, lowsText, 0, 10, textColor, useShadow);
+            // Frame-time graph below the text as one batched element
+            if (current.graph) {
+                FrameGraph.render(context, -2, current.graphY(), current.graphWidth, current.bgColor);
             }
 
             context.pose().popMatrix();
         }
     }
-}
\ No newline at end of file
+}
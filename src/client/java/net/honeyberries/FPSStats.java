@@ -4,12 +4,36 @@ import java.util.Arrays;
 
 /**
  * Tracks and calculates FPS (Frames Per Second) statistics over a rolling time window.
- * This class maintains a ring buffer of frame timestamps and calculates:
+ * This class maintains a rolling window of frame times and calculates:
  * - Average FPS
  * - 1% low FPS (average FPS of the slowest 1% of frames)
  * - 0.1% low FPS (average FPS of the slowest 0.1% of frames)
  * <p>
- * All methods are thread-safe and use synchronized access to internal data.
+ * Frame durations are additionally kept in a {@link FrameTimeHistogram} that is updated
+ * in O(1) as frames enter and leave the window. In histogram mode the lows are read from
+ * it instead of sorting every duration on each update. In exact mode the durations also go
+ * into an {@link OrderStatisticTree}, which answers the exact lows and percentiles in
+ * O(log n) per update, so short update intervals cost no more than long ones.
+ * <p>
+ * When enabled, frame pacing (standard deviation, frame-to-frame jitter, a stutter score
+ * and missed display refreshes) is measured in one sequential pass over the window,
+ * published as a {@link PacingSnapshot}.
+ * <p>
+ * Each frame's render workload ({@link WorkloadCounters}) travels with its timestamp and
+ * is stored next to its duration, so the workload of the slowest frames can be compared
+ * with the average ({@link WorkloadSnapshot}).
+ * <p>
+ * When enabled, drained frame durations and published snapshots are also mirrored into
+ * a memory-mapped file for external tools ({@link SharedFrameExport}).
+ * <p>
+ * Threading model:
+ * - recordFrame is called by a single producer (the render thread). It publishes the
+ *   timestamp into a lock-free {@link FrameRing} and never blocks.
+ * - The rolling window and histogram are owned by the consumer that drains the ring:
+ *   the {@link StatsCalculator} background thread, which calls calculateStats at the
+ *   configured update interval. The render thread never computes statistics, so the
+ *   calculation cannot show up in the frame times being measured.
+ * - Readers on any thread get a consistent, immutable {@link StatsSnapshot}.
  */
 public final class FPSStats {
     /**
@@ -19,58 +43,191 @@ public final class FPSStats {
     private static final long WINDOW_NS = 5_000_000_000L;
 
     /**
-     * How often to update the displayed statistics in nanoseconds (0.5 seconds).
-     * This reduces CPU usage by avoiding recalculation every frame.
+     * Number of slots in the publication ring.
+     * Must hold every frame published between two drains (~65k FPS at the slowest 2 s interval).
+     */
+    private static final int RING_CAPACITY = 1 << 17;
+
+    /**
+     * Number of timestamps copied out of the publication ring per poll.
+     */
+    private static final int DRAIN_BATCH = 1024;
+
+    /**
+     * Lock-free ring the render thread publishes frame timestamps into.
+     */
+    private static final FrameRing RING = new FrameRing(RING_CAPACITY);
+
+    /**
+     * Lock-free ring of packed per-frame workload counters, published in lockstep with RING:
+     * the entry with the same sequence number belongs to the same frame.
+     */
+    private static final FrameRing WORKLOAD_RING = new FrameRing(RING_CAPACITY);
+
+    /**
+     * Read position of the statistics consumer in RING.
+     */
+    private static final FrameRing.Cursor CURSOR = new FrameRing.Cursor(0);
+
+    /**
+     * Scratch buffer for draining RING. Owned by the consumer.
+     */
+    private static final long[] drainBuffer = new long[DRAIN_BATCH];
+
+    /**
+     * Scratch buffer for the workloads matching drainBuffer. Owned by the consumer.
      */
-    private static final long UPDATE_INTERVAL_NS = 500_000_000L;
+    private static final long[] workloadBuffer = new long[DRAIN_BATCH];
 
     /**
-     * Maximum number of frame timestamps to keep in the ring buffer.
-     * Supports tracking up to 3600 frames (sufficient for ~1 minute at 60 FPS).
+     * Frames inside the rolling window, stored as 32-bit deltas.
+     * Grows with the frame rate so the full window is always covered. Owned by the consumer.
      */
-    private static final int CAPACITY = 3600;
+    private static final FrameWindow window = new FrameWindow();
 
     /**
-     * Ring buffer storing frame timestamps in nanoseconds.
-     * Uses a circular buffer pattern with head and size pointers.
+     * Exact order statistics of the frame durations inside the rolling window.
+     * Only kept in sync by addTimestamp and removeOlderThan while in exact mode. Owned by the consumer.
      */
-    private static final long[] timestamps = new long[CAPACITY];
+    private static final OrderStatisticTree ordered = new OrderStatisticTree();
 
     /**
-     * Index of the oldest timestamp in the ring buffer.
-     * Used with size to determine valid data range.
+     * Whether {@link #ordered} currently mirrors the window. Owned by the consumer.
      */
-    private static int head = 0;
+    private static boolean orderedActive = false;
 
     /**
-     * Number of valid timestamps currently in the buffer.
-     * Can be less than CAPACITY if the buffer isn't full yet.
+     * Frames added to the window since the game started. Owned by the consumer.
      */
-    private static int size = 0;
+    private static long framesAdded = 0;
 
     /**
-     * Last time statistics were recalculated (in nanoseconds).
+     * Frames added since the game started, as of the last recalculation.
      * Volatile to ensure visibility across threads.
      */
-    private static volatile long lastUpdateTime = 0;
+    private static volatile long framesTotal = 0;
 
     /**
-     * Latest calculated average FPS value.
+     * Ring entries lost to overruns, as of the last recalculation.
      * Volatile to ensure visibility across threads.
      */
-    private static volatile double avgFps = 0.0;
+    private static volatile long framesLost = 0;
 
     /**
-     * Latest calculated 1% low FPS value (average FPS of slowest 1% of frames).
+     * Number of lost ring entries already accounted for.
+     * When the cursor reports more, the window is restarted.
+     */
+    private static long lostSeen = 0;
+
+    /**
+     * Histogram of the frame durations currently inside the rolling window.
+     * Kept in sync by addTimestamp and removeOlderThan. Owned by the consumer.
+     */
+    private static FrameTimeHistogram histogram = new FrameTimeHistogram(2);
+
+    /**
+     * Per-second aggregation behind the 1 second, 60 second and session statistics.
+     * Owned by the consumer.
+     */
+    private static MultiWindowStats windows = new MultiWindowStats(2);
+
+    /**
+     * Whether lows are read from the histogram (true) or from an exact sort (false).
      * Volatile to ensure visibility across threads.
      */
-    private static volatile double onePercentFps = 0.0;
+    private static volatile boolean histogramMode = true;
+
+    /**
+     * Requested histogram precision in significant digits.
+     * The consumer rebuilds the histogram when this differs from the current one.
+     */
+    private static volatile int histogramPrecision = 2;
 
     /**
-     * Latest calculated 0.1% low FPS value (average FPS of slowest 0.1% of frames).
+     * Whether frame pacing is measured on each recalculation.
      * Volatile to ensure visibility across threads.
      */
-    private static volatile double pointOnePercentFps = 0.0;
+    private static volatile boolean pacingEnabled = false;
+
+    /**
+     * Monitor refresh rate in Hz that missed refreshes are counted against, or 0 if unknown.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile int refreshRate = 0;
+
+    /**
+     * Whether the workload of the slowest frames is calculated on each recalculation.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile boolean workloadEnabled = false;
+
+    /**
+     * Latest published workload breakdown, or null before the first one.
+     * Volatile so that readers always see a fully constructed snapshot.
+     */
+    private static volatile WorkloadSnapshot workload = null;
+
+    /**
+     * Latest published frame pacing statistics.
+     * Volatile so that readers always see a fully constructed snapshot.
+     */
+    private static volatile PacingSnapshot pacing = PacingSnapshot.EMPTY;
+
+    /**
+     * Latest published statistics.
+     * Volatile so that readers always see a fully constructed snapshot.
+     */
+    private static volatile StatsSnapshot snapshot = StatsSnapshot.EMPTY;
+
+    /**
+     * HUD strings for the latest snapshot, formatted once per recalculation.
+     * Volatile so that readers always see a fully constructed instance.
+     */
+    private static volatile StatsText text = StatsText.EMPTY;
+
+    /**
+     * Statistics and HUD lines for the 1 second, 60 second and session windows.
+     * Volatile so that readers always see a fully constructed instance.
+     */
+    private static volatile MultiWindowSnapshot multiWindow = MultiWindowSnapshot.EMPTY;
+
+    /**
+     * Display name of each workload counter, indexed by the {@link WorkloadCounters} constants.
+     */
+    private static final String[] WORKLOAD_NAMES = {"Entities", "BEs", "Sections", "Rebuilds"};
+
+    /**
+     * Sum of each workload counter over the window. Scratch for publishWorkload, owned by the consumer.
+     */
+    private static final long[] workloadTotal = new long[WorkloadCounters.COUNTERS];
+
+    /**
+     * Sum of each workload counter over the frames slower than the boundary.
+     * Scratch for publishWorkload, owned by the consumer.
+     */
+    private static final long[] workloadAbove = new long[WorkloadCounters.COUNTERS];
+
+    /**
+     * Sum of each workload counter over the frames at the boundary.
+     * Scratch for publishWorkload, owned by the consumer.
+     */
+    private static final long[] workloadAt = new long[WorkloadCounters.COUNTERS];
+
+    /**
+     * Average of each workload counter per frame. Scratch for publishWorkload, owned by the consumer.
+     */
+    private static final double[] workloadAvg = new double[WorkloadCounters.COUNTERS];
+
+    /**
+     * Average of each workload counter over the slowest frames.
+     * Scratch for publishWorkload, owned by the consumer.
+     */
+    private static final double[] workloadWorst = new double[WorkloadCounters.COUNTERS];
+
+    /**
+     * Formatter used to build {@link #text}. Owned by the consumer.
+     */
+    private static final StatsTextFormatter formatter = new StatsTextFormatter();
 
     /**
      * Private constructor to prevent instantiation.
@@ -80,150 +237,448 @@ public final class FPSStats {
     }
 
     /**
-     * Records a new frame timestamp and updates statistics if needed.
-     * Call this once per frame to track FPS metrics.
+     * Records a new frame timestamp.
+     * Call this once per frame, from the render thread only, to track FPS metrics.
      * <p>
-     * This method:
-     * 1. Adds the current frame's timestamp to the ring buffer
-     * 2. Removes frames outside the rolling window
-     * 3. Recalculates statistics if UPDATE_INTERVAL_NS has passed
+     * Only publishes the timestamp and the frame's workload counters into the lock-free
+     * rings; the statistics are recalculated by the {@link StatsCalculator} thread.
      *
      * @param now Current time in nanoseconds (typically from System.nanoTime())
      */
-    public static synchronized void recordFrame(long now) {
-        addTimestamp(now); // Add this frame's timestamp
-        removeOlderThan(now - WINDOW_NS); // Remove frames outside the rolling window
+    public static void recordFrame(long now) {
+        WORKLOAD_RING.publish(WorkloadCounters.takeFrame()); // First, so it is visible once the timestamp is
+        RING.publish(now); // Plain slot write + ordered sequence write, never blocks
+    }
 
-        // Only recalculate stats periodically to reduce CPU usage
-        if (now - lastUpdateTime > UPDATE_INTERVAL_NS) {
-            calculateStats();
-            lastUpdateTime = now;
-        }
+    /**
+     * Gets the latest published statistics.
+     * Safe to call from any thread; the returned snapshot never changes.
+     *
+     * @return The most recent snapshot
+     */
+    public static StatsSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets the latest 1 second, 60 second and session statistics.
+     * Safe to call from any thread; the returned snapshot never changes.
+     *
+     * @return The most recent multi-window snapshot
+     */
+    public static MultiWindowSnapshot multiWindow() {
+        return multiWindow;
+    }
+
+    /**
+     * Gets the number of frames recorded since the game started, as of the last recalculation.
+     *
+     * @return Frame counter that only ever grows
+     */
+    public static long framesTotal() {
+        return framesTotal;
+    }
+
+    /**
+     * Gets the number of frames that never reached the statistics because the publication
+     * ring overran its consumer, as of the last recalculation.
+     *
+     * @return Lost frame counter that only ever grows
+     */
+    public static long framesLost() {
+        return framesLost;
+    }
+
+    /**
+     * Gets the latest workload breakdown.
+     * Safe to call from any thread; the returned snapshot never changes.
+     *
+     * @return The most recent workload snapshot, or null if none was calculated yet
+     */
+    public static WorkloadSnapshot workload() {
+        return workload;
+    }
+
+    /**
+     * Gets the latest frame pacing statistics.
+     * Safe to call from any thread; the returned snapshot never changes.
+     *
+     * @return The most recent pacing snapshot
+     */
+    public static PacingSnapshot pacing() {
+        return pacing;
+    }
+
+    /**
+     * Gets the ring that frame timestamps are published into.
+     * Other consumers (such as the session recorder) read it through their own cursor.
+     *
+     * @return The frame publication ring
+     */
+    static FrameRing ring() {
+        return RING;
+    }
+
+    /**
+     * Gets the pre-formatted HUD strings for the latest snapshot.
+     * The same instance is returned until the next recalculation, so callers can
+     * cache anything derived from it (such as text widths) by identity.
+     *
+     * @return The current HUD strings
+     */
+    public static StatsText getText() {
+        return text;
     }
 
     /**
      * Gets a formatted string displaying the average FPS.
      * If `showFpsText` is true, the string is formatted as "FPS: XX".
      * If `showFpsText` is false, only the numeric value is shown.
+     * The string is formatted once per recalculation, so this never allocates.
      *
      * @param showFpsText Whether to include the "FPS:" label in the output
      * @return A string in the format "FPS: XX" or "XX" where XX is the average FPS rounded to the nearest integer
      */
     public static String getDisplayStringAvg(boolean showFpsText) {
-        return showFpsText
-                ? String.format("FPS: %.0f", avgFps)
-                : String.format("%.0f", avgFps);
+        return text.avg(showFpsText);
     }
 
     /**
      * Gets a formatted string displaying the 1% and 0.1% low FPS values.
-     * The string is formatted on demand to avoid storing stale text.
+     * The string is formatted once per recalculation, so this never allocates.
      * Negative values are clamped to 0.
      *
      * @return A string in the format "1% Low: XX | 0.1% Low: YY" where XX and YY are FPS values
      */
     public static String getDisplayStringLows() {
-        return String.format("1%% Low: %.0f | 0.1%% Low: %.0f",
-                Math.max(0.0, onePercentFps),
-                Math.max(0.0, pointOnePercentFps));
+        return text.lows();
+    }
+
+    /**
+     * Configures how the lows are calculated.
+     * Changing the precision rebuilds the histogram on the next recalculation.
+     *
+     * @param useHistogram Whether to read lows from the histogram instead of sorting
+     * @param significantDigits Histogram precision in significant digits (1-3)
+     */
+    public static void configureHistogram(boolean useHistogram, int significantDigits) {
+        histogramMode = useHistogram;
+        histogramPrecision = significantDigits;
+    }
+
+    /**
+     * Turns frame pacing measurement on or off.
+     *
+     * @param enabled Whether to measure pacing on each recalculation
+     */
+    public static void setPacingEnabled(boolean enabled) {
+        pacingEnabled = enabled;
+    }
+
+    /**
+     * Turns the workload breakdown on or off.
+     *
+     * @param enabled Whether to calculate the workload on each recalculation
+     */
+    public static void setWorkloadEnabled(boolean enabled) {
+        workloadEnabled = enabled;
+    }
+
+    /**
+     * Sets the monitor refresh rate that missed refreshes are counted against.
+     * The window reports it on the render thread.
+     *
+     * @param hz Refresh rate in Hz, or 0 if unknown
+     */
+    public static void setRefreshRate(int hz) {
+        refreshRate = hz;
+    }
+
+    /**
+     * Moves every newly published timestamp from the ring into the rolling window.
+     * If the ring overran the consumer, the window is restarted so that the gap
+     * is not mistaken for one very long frame.
+     */
+    private static void drain() {
+        int n;
+        while ((n = RING.poll(CURSOR, drainBuffer)) > 0) {
+            if (CURSOR.lost() != lostSeen) {
+                lostSeen = CURSOR.lost();
+                clearWindow();
+            }
+            if (!WORKLOAD_RING.read(CURSOR.next() - n, n, workloadBuffer)) {
+                Arrays.fill(workloadBuffer, 0, n, 0); // Overwritten while copying: workload unknown
+            }
+            for (int i = 0; i < n; i++) {
+                addTimestamp(drainBuffer[i], workloadBuffer[i]);
+            }
+        }
+        removeOlderThan(window.lastTimestamp() - WINDOW_NS); // Remove frames outside the rolling window
     }
 
     /**
-     * Adds a new timestamp to the ring buffer.
-     * If the buffer is full, the oldest timestamp is overwritten.
+     * Adds a new timestamp to the rolling window and its duration to the histogram
+     * (and, in exact mode, the order-statistic tree).
+     * At the window's memory bound the oldest frame is evicted first, from the window
+     * and from both mirrors.
      *
      * @param t The timestamp to add (in nanoseconds)
+     * @param counters The frame's packed workload counters
      */
-    private static synchronized void addTimestamp(long t) {
-        int tail = (head + size) % CAPACITY;
-        timestamps[tail] = t;
-        if (size < CAPACITY) {
-            size++;
+    private static void addTimestamp(long t, long counters) {
+        if (window.isFull()) {
+            evictOldest();
+        }
+        long d = window.add(t, counters);
+        if (d >= 0) {
+            framesAdded++;
+            histogram.record(d);
+            if (orderedActive) ordered.add(d);
+            windows.add(t, d);
+            HitchDetector.onFrame(t, d);
+            Benchmark.onFrame(t, d);
+            SharedFrameExport.onFrame(d);
         } else {
-            head = (head + 1) % CAPACITY; // Overwrite oldest if full
+            histogram.reset(); // First frame, or the window restarted after a long gap
+            ordered.clear();
         }
     }
 
     /**
-     * Removes timestamps older than the specified cutoff time from the ring buffer.
+     * Removes frames that started before the specified cutoff time from the window.
      * This maintains the rolling window by discarding frames that are too old.
      *
-     * @param cutoff Timestamp in nanoseconds; frames older than this are removed
+     * @param cutoff Timestamp in nanoseconds; frames starting before this are removed
+     */
+    private static void removeOlderThan(long cutoff) {
+        while (window.size() > 0 && window.firstTimestamp() < cutoff) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Removes the oldest frame from the window, the histogram and the order-statistic tree.
+     */
+    private static void evictOldest() {
+        long d = window.removeOldest();
+        histogram.remove(d);
+        if (orderedActive) ordered.remove(d);
+    }
+
+    /**
+     * Empties the rolling window, the histogram and the order-statistic tree.
+     */
+    private static void clearWindow() {
+        window.clear();
+        histogram.reset();
+        ordered.clear();
+    }
+
+    /**
+     * Rebuilds the histogram with the requested precision from the frames in the window.
+     * The longer windows cannot be rebuilt from raw frames, so they start over.
+     */
+    private static void rebuildHistogram() {
+        histogram = new FrameTimeHistogram(histogramPrecision);
+        for (int i = 0; i < window.size(); i++) {
+            histogram.record(window.duration(i));
+        }
+        windows = new MultiWindowStats(histogramPrecision);
+    }
+
+    /**
+     * Starts or stops mirroring the window in the order-statistic tree.
+     * Starting fills the tree from the frames already in the window.
+     *
+     * @param active Whether the tree should mirror the window (exact mode)
      */
-    private static synchronized void removeOlderThan(long cutoff) {
-        while (size > 0 && timestamps[head] < cutoff) {
-            head = (head + 1) % CAPACITY;
-            size--;
+    private static void syncOrdered(boolean active) {
+        orderedActive = active;
+        ordered.clear();
+        if (!active) return;
+        for (int i = 0; i < window.size(); i++) {
+            ordered.add(window.duration(i));
         }
     }
 
     /**
-     * Recalculates all FPS statistics using the current rolling window of frame timestamps.
+     * Drains the ring, recalculates all FPS statistics over the rolling window and
+     * publishes them as a new {@link StatsSnapshot}.
+     * Must only be called from the consumer thread (or a benchmark standing in for it).
      * <p>
      * This method calculates:
      * - Average FPS: Total frames divided by total time in the window
      * - 1% low FPS: Average FPS of the slowest 1% of frames
      * - 0.1% low FPS: Average FPS of the slowest 0.1% of frames
+     * - Frame time percentiles (p50, p95, p99, p99.9)
      * <p>
-     * The algorithm:
-     * 1. Computes duration (in seconds) between consecutive frames
-     * 2. Sorts durations to identify the slowest frames
+     * The algorithm (exact mode):
+     * 1. Frame durations are inserted into and evicted from an order-statistic tree as
+     *    they enter and leave the window, in O(log n) each
+     * 2. The tree sums the slowest k frames and finds each percentile in O(log n)
      * 3. Calculates average FPS for the worst k% of frames
      * <p>
+     * In histogram mode steps 1 and 2 are replaced by a walk over the histogram buckets.
+     * Step 3 lives in {@link FrameStats}, which the offline analyzer shares.
+     * <p>
      * Low% FPS metrics help identify performance stutters that average FPS might hide.
      */
-    private static synchronized void calculateStats() {
-        int nFrames = size;
-        int nDur = nFrames - 1; // Number of frame intervals (durations)
+    static void calculateStats() {
+        boolean useHistogram = histogramMode; // Read once so the mode cannot change mid-update
+        drain();
+        if (histogram.getSignificantDigits() != histogramPrecision) {
+            rebuildHistogram();
+        }
+        if (orderedActive == useHistogram) {
+            syncOrdered(!useHistogram);
+        }
+        framesTotal = framesAdded;
+        framesLost = lostSeen;
+        publishMultiWindow(window.lastTimestamp());
+        if (pacingEnabled) {
+            publishPacing();
+        }
+
+        int nDur = window.size(); // Number of frame intervals (durations)
         if (nDur <= 0) {
-            avgFps = 0.0;
-            onePercentFps = 0.0;
-            pointOnePercentFps = 0.0;
+            publish(StatsSnapshot.EMPTY);
             return; // Not enough data
         }
 
-        // Compute durations (seconds) between consecutive frames
-        double[] durations = new double[nDur];
-        for (int i = 0; i < nDur; i++) {
-            long t0 = timestamps[(head + i) % CAPACITY];
-            long t1 = timestamps[(head + i + 1) % CAPACITY];
-            durations[i] = (t1 - t0) / 1_000_000_000.0; // Convert ns to seconds
-            if (durations[i] <= 0) durations[i] = 1e-9; // Guard against zero/negative
+        int worstK = Math.max(1, (int) Math.ceil(nDur * 0.01)); // Slowest 1%, as for the 1% low
+        if (useHistogram) {
+            StatsSnapshot s = FrameStats.histogramSnapshot(histogram, window.lastTimestamp()); // O(buckets) read with no allocation
+            publish(s);
+            if (workloadEnabled) {
+                publishWorkload(histogram.bucketOfLargest(worstK), worstK, true); // Bucket of the k-th slowest
+            }
+            return;
         }
 
-        // Average FPS: total frames divided by total time in window
-        long first = timestamps[head];
-        long last = timestamps[(head + nFrames - 1) % CAPACITY];
-        double totalTimeSec = (last - first) / 1_000_000_000.0;
-        avgFps = (totalTimeSec > 0) ? (nDur / totalTimeSec) : 0.0;
+        publish(FrameStats.orderedSnapshot(ordered, window.lastTimestamp())); // O(log n) exact read with no allocation
+        if (workloadEnabled) {
+            publishWorkload(ordered.select(nDur - worstK + 1), worstK, false); // Exact k-th slowest
+        }
+    }
+
+    /**
+     * Measures frame pacing over the window in one pass and publishes it.
+     * The pass reads each duration once, oldest first, and keeps only running totals:
+     * - Standard deviation, with Welford's algorithm
+     * - Mean absolute difference between consecutive frame times
+     * - Stutter score: time that frames taking more than twice the recent average
+     *   (an exponential moving average of the frames before them) spent beyond it,
+     *   as a percentage of the window
+     * - Missed refreshes: a frame covering r refresh intervals (rounded) missed r - 1
+     */
+    private static void publishPacing() {
+        int n = window.size();
+        int hz = refreshRate;
+        long refreshNs = hz > 0 ? 1_000_000_000L / hz : 0;
+
+        double mean = 0, squares = 0, deltas = 0, stutterNs = 0, recent = 0;
+        long total = 0, previous = 0;
+        int missed = 0;
+        for (int i = 0; i < n; i++) {
+            long d = window.duration(i);
+            double delta = d - mean; // Welford update
+            mean += delta / (i + 1);
+            squares += delta * (d - mean);
+            total += d;
 
-        // Sort durations ascending (shortest to longest)
-        Arrays.sort(durations);
+            if (i == 0) {
+                recent = d;
+            } else {
+                deltas += Math.abs(d - previous);
+                if (d > 2 * recent) stutterNs += d - recent;
+                recent += (d - recent) / 8; // Moving average over roughly the last 8 frames
+            }
+            previous = d;
 
-        // 1% low: average FPS of the slowest 1% of frames
-        int k1 = Math.max(1, (int) Math.ceil(nDur * 0.01));
-        // 0.1% low: average FPS of the slowest 0.1% of frames
-        int k01 = Math.max(1, (int) Math.ceil(nDur * 0.001));
+            if (refreshNs > 0) {
+                long intervals = (d + refreshNs / 2) / refreshNs;
+                if (intervals > 1) missed += (int) (intervals - 1);
+            }
+        }
 
-        // Compute 1% and 0.1% low FPS using helper
-        onePercentFps = avgWorstFps(durations, k1);
-        pointOnePercentFps = avgWorstFps(durations, k01);
+        double stdDevMs = n > 0 ? Math.sqrt(squares / n) / 1_000_000.0 : 0;
+        double meanDeltaMs = n > 1 ? deltas / (n - 1) / 1_000_000.0 : 0;
+        double stutterPercent = total > 0 ? stutterNs * 100.0 / total : 0;
+        pacing = new PacingSnapshot(stdDevMs, meanDeltaMs, stutterPercent, missed, hz,
+                formatter.formatPacing(stdDevMs, meanDeltaMs, stutterPercent, missed, hz));
     }
 
     /**
-     * Calculates the average FPS for the worst (slowest) k frames.
-     * Used to compute 1% and 0.1% low FPS metrics.
+     * Publishes the 1 second, 60 second and session statistics with their HUD lines.
      *
-     * @param durations Sorted array of frame durations in seconds (ascending order)
-     * @param k Number of slowest frames to average (from the end of the sorted array)
-     * @return Average FPS for the slowest k frames, or 0.0 if invalid input
+     * @param at Time to stamp the snapshots with
      */
-    private static double avgWorstFps(double[] durations, int k) {
-        int n = durations.length;
-        if (n == 0 || k <= 0) return 0.0;
-        double sum = 0.0;
-        for (int i = n - k; i < n; i++) sum += durations[i];
-        double avgDur = sum / k;
-        return (avgDur > 0) ? (1.0 / avgDur) : 0.0;
+    private static void publishMultiWindow(long at) {
+        StatsSnapshot second = windows.oneSecond(at);
+        StatsSnapshot minute = windows.oneMinute(at);
+        StatsSnapshot all = windows.session(at);
+        multiWindow = new MultiWindowSnapshot(second, minute, all,
+                formatter.formatWindow("1s", second),
+                formatter.formatWindow("60s", minute),
+                formatter.formatWindow("Session", all));
+    }
+
+    /**
+     * Publishes a new snapshot together with its pre-formatted HUD strings,
+     * and hands its median to the hitch detector.
+     *
+     * @param s The snapshot to publish
+     */
+    private static void publish(StatsSnapshot s) {
+        text = formatter.format(s);
+        snapshot = s;
+        HitchDetector.update(s.computedAtNs(), s.p50FrameTimeMs());
+        SharedFrameExport.onSnapshot(s, framesLost);
+    }
+
+    /**
+     * Averages the workload counters over the window and over its k slowest frames in
+     * one pass, and publishes them.
+     * Frames ranked above the boundary are all among the slowest; frames at the boundary
+     * fill the remaining places, each contributing its share of their average. In exact
+     * mode frames are ranked by duration; in histogram mode by the bucket they are counted
+     * in, so the boundary bucket holds the k-th slowest frame and exactly k frames count.
+     *
+     * @param boundary Duration of the k-th slowest frame in exact mode, its histogram
+     *                 bucket in histogram mode
+     * @param k Number of slowest frames to average
+     * @param byBucket Whether frames are ranked by histogram bucket
+     */
+    private static void publishWorkload(long boundary, int k, boolean byBucket) {
+        Arrays.fill(workloadTotal, 0);
+        Arrays.fill(workloadAbove, 0);
+        Arrays.fill(workloadAt, 0);
+        int n = window.size();
+        int framesAbove = 0, framesAt = 0;
+        for (int i = 0; i < n; i++) {
+            long packed = window.payload(i);
+            long d = window.duration(i);
+            long rank = byBucket ? histogram.bucketOf(d) : d;
+            if (rank > boundary) framesAbove++;
+            else if (rank == boundary) framesAt++;
+            for (int c = 0; c < WorkloadCounters.COUNTERS; c++) {
+                int value = WorkloadCounters.unpack(packed, c);
+                workloadTotal[c] += value;
+                if (rank > boundary) workloadAbove[c] += value;
+                else if (rank == boundary) workloadAt[c] += value;
+            }
+        }
+
+        int taken = Math.min(framesAt, Math.max(0, k - framesAbove)); // Frames at the boundary counted
+        int worstFrames = framesAbove + taken;
+        for (int c = 0; c < WorkloadCounters.COUNTERS; c++) {
+            workloadAvg[c] = n > 0 ? (double) workloadTotal[c] / n : 0;
+            double atShare = framesAt > 0 ? (double) workloadAt[c] * taken / framesAt : 0;
+            workloadWorst[c] = worstFrames > 0 ? (workloadAbove[c] + atShare) / worstFrames : 0;
+        }
+        // The snapshot outlives this update, so it gets its own copies of the scratch values
+        workload = new WorkloadSnapshot(workloadAvg.clone(), workloadWorst.clone(),
+                formatter.formatValueLine("Work avg", WORKLOAD_NAMES, workloadAvg),
+                formatter.formatValueLine("Work 1% worst", WORKLOAD_NAMES, workloadWorst));
     }
 }
@@ -0,0 +1,167 @@
+package net.honeyberries;
+
+import net.honeyberries.mixin.client.GuiGraphicsAccessor;
+import net.minecraft.client.gui.GuiGraphics;
+import org.joml.Matrix3x2f;
+
+/**
+ * Rolling frame-time graph drawn next to the FPS text.
+ * <p>
+ * The graph reads the same lock-free ring that {@link FPSStats} publishes into, through
+ * its own cursor. Bar geometry (height and colour band) is computed once when a frame
+ * enters the graph and kept in primitive ring buffers, so each rendered frame only
+ * processes the frames that arrived since the previous one. All bars are then submitted
+ * as a single {@link FrameGraphRenderState}, i.e. one batched element instead of one
+ * {@link GuiGraphics#fill} call per bar.
+ * <p>
+ * This class must only be used from the render thread.
+ */
+public final class FrameGraph {
+    /**
+     * Frame time of the 60 FPS threshold in milliseconds.
+     */
+    static final float MS_60_FPS = 1000f / 60f;
+
+    /**
+     * Frame time of the 30 FPS threshold in milliseconds.
+     */
+    static final float MS_30_FPS = 1000f / 30f;
+
+    /**
+     * Bars are clipped at this frame time in milliseconds to keep the graph compact.
+     */
+    static final float MAX_MS = 50f;
+
+    /**
+     * Bar colour for frames faster than 60 FPS (green).
+     */
+    private static final int COLOR_GOOD = 0xFF55FF55;
+
+    /**
+     * Bar colour for frames between 60 and 30 FPS (yellow).
+     */
+    private static final int COLOR_OK = 0xFFFFFF55;
+
+    /**
+     * Bar colour for frames slower than 30 FPS (red).
+     */
+    private static final int COLOR_BAD = 0xFFFF5555;
+
+    /**
+     * Number of timestamps copied out of the ring per poll.
+     */
+    private static final int BATCH = 256;
+
+    /**
+     * Position of the graph in the frame ring, or null before the first update.
+     */
+    private static FrameRing.Cursor cursor = null;
+
+    /**
+     * Scratch buffer for draining the ring.
+     */
+    private static final long[] drainBuffer = new long[BATCH];
+
+    /**
+     * Timestamp of the last frame added to the graph, or -1 before the first frame.
+     */
+    private static long lastTimestamp = -1;
+
+    /**
+     * Bar heights in pixels, as a ring of history length.
+     */
+    private static float[] heights = new float[0];
+
+    /**
+     * Bar colours in ARGB, parallel to heights.
+     */
+    private static int[] colors = new int[0];
+
+    /**
+     * Index of the oldest bar.
+     */
+    private static int head = 0;
+
+    /**
+     * Number of bars currently in the graph.
+     */
+    private static int count = 0;
+
+    /**
+     * Pixels per millisecond the current bar heights were computed with.
+     */
+    private static float builtScale = 0;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private FrameGraph() {
+    }
+
+    /**
+     * Adds the frames published since the last call to the graph.
+     * Call once per rendered frame while the graph is enabled.
+     *
+     * @param history Number of frames the graph shows
+     * @param scale Bar height in pixels per millisecond of frame time
+     */
+    public static void update(int history, float scale) {
+        FrameRing ring = FPSStats.ring();
+        if (heights.length != history || builtScale != scale) {
+            // Layout changed: rebuild from the frames still in the ring
+            heights = new float[history];
+            colors = new int[history];
+            head = 0;
+            count = 0;
+            builtScale = scale;
+            lastTimestamp = -1;
+            cursor = new FrameRing.Cursor(Math.max(0, ring.published() - history - 1));
+        }
+
+        int n;
+        while ((n = ring.poll(cursor, drainBuffer)) > 0) {
+            for (int i = 0; i < n; i++) {
+                long t = drainBuffer[i];
+                if (lastTimestamp >= 0) addBar((t - lastTimestamp) / 1_000_000f, scale);
+                lastTimestamp = t;
+            }
+        }
+    }
+
+    /**
+     * Submits the graph as one batched element.
+     *
+     * @param context The GuiGraphics context for rendering
+     * @param x Left edge of the graph in the current pose
+     * @param y Top edge of the graph in the current pose
+     * @param width Total graph width in pixels
+     * @param bgColor Background colour drawn behind the bars (ARGB)
+     */
+    public static void render(GuiGraphics context, int x, int y, int width, int bgColor) {
+        if (heights.length == 0) return;
+        int height = (int) Math.ceil(MAX_MS * builtScale);
+
+        FrameGraphRenderState state = new FrameGraphRenderState(
+                new Matrix3x2f(context.pose()), x, y, width, height,
+                heights, colors, head, count, builtScale, bgColor);
+        ((GuiGraphicsAccessor) context).fpsdisplay$getGuiRenderState().submitGuiElement(state);
+    }
+
+    /**
+     * Computes the geometry of one bar and appends it, replacing the oldest if full.
+     *
+     * @param ms Frame time in milliseconds
+     * @param scale Pixels per millisecond
+     */
+    private static void addBar(float ms, float scale) {
+        int index = (head + count) % heights.length;
+        heights[index] = Math.min(ms, MAX_MS) * scale;
+        colors[index] = ms <= MS_60_FPS ? COLOR_GOOD : ms <= MS_30_FPS ? COLOR_OK : COLOR_BAD;
+        if (count < heights.length) {
+            count++;
+        } else {
+            head = (head + 1) % heights.length;
+        }
+    }
+}
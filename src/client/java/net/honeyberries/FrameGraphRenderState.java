@@ -0,0 +1,112 @@
+package net.honeyberries;
+
+import com.mojang.blaze3d.pipeline.RenderPipeline;
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import net.minecraft.client.gui.navigation.ScreenRectangle;
+import net.minecraft.client.gui.render.TextureSetup;
+import net.minecraft.client.gui.render.state.GuiElementRenderState;
+import net.minecraft.client.renderer.RenderPipelines;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Matrix3x2f;
+
+/**
+ * GUI element that draws every bar of the {@link FrameGraph} in one batch.
+ * <p>
+ * The bar arrays are shared with FrameGraph rather than copied. This is safe because GUI
+ * elements are turned into vertices later in the same frame, before the next HUD pass
+ * can add bars.
+ *
+ * @param pose Pose the graph was submitted with
+ * @param x Left edge of the graph
+ * @param y Top edge of the graph
+ * @param width Graph width in pixels
+ * @param height Graph height in pixels
+ * @param heights Bar heights in pixels (ring buffer)
+ * @param colors Bar colours in ARGB (ring buffer, parallel to heights)
+ * @param head Index of the oldest bar
+ * @param count Number of bars
+ * @param scale Pixels per millisecond, used to place the 60 and 30 FPS guide lines
+ * @param bgColor Background colour (ARGB); not drawn when fully transparent
+ */
+public record FrameGraphRenderState(
+        Matrix3x2f pose,
+        int x,
+        int y,
+        int width,
+        int height,
+        float[] heights,
+        int[] colors,
+        int head,
+        int count,
+        float scale,
+        int bgColor
+) implements GuiElementRenderState {
+    /**
+     * Colour of the 60 and 30 FPS guide lines (translucent white).
+     */
+    private static final int GUIDE_COLOR = 0x60FFFFFF;
+
+    /**
+     * Emits one quad per bar, plus the background and guide lines.
+     *
+     * @param consumer Vertex sink for the GUI pipeline
+     */
+    @Override
+    public void buildVertices(VertexConsumer consumer) {
+        float bottom = y + height;
+        if (((bgColor >> 24) & 0xFF) > 0) {
+            quad(consumer, x, y, x + width, bottom, bgColor);
+        }
+
+        // Newest bar on the right; bars share the width evenly across the history length
+        float barWidth = (float) width / heights.length;
+        float left = x + width - count * barWidth;
+        for (int i = 0; i < count; i++) {
+            int index = (head + i) % heights.length;
+            float x0 = left + i * barWidth;
+            quad(consumer, x0, bottom - heights[index], x0 + barWidth, bottom, colors[index]);
+        }
+
+        float line60 = bottom - FrameGraph.MS_60_FPS * scale;
+        float line30 = bottom - FrameGraph.MS_30_FPS * scale;
+        quad(consumer, x, line60, x + width, line60 + 1, GUIDE_COLOR);
+        quad(consumer, x, line30, x + width, line30 + 1, GUIDE_COLOR);
+    }
+
+    /**
+     * Emits a single axis-aligned quad.
+     *
+     * @param consumer Vertex sink
+     * @param x0 Left edge
+     * @param y0 Top edge
+     * @param x1 Right edge
+     * @param y1 Bottom edge
+     * @param color Colour in ARGB
+     */
+    private void quad(VertexConsumer consumer, float x0, float y0, float x1, float y1, int color) {
+        consumer.addVertexWith2DPose(pose, x0, y0).setColor(color);
+        consumer.addVertexWith2DPose(pose, x0, y1).setColor(color);
+        consumer.addVertexWith2DPose(pose, x1, y1).setColor(color);
+        consumer.addVertexWith2DPose(pose, x1, y0).setColor(color);
+    }
+
+    @Override
+    public RenderPipeline pipeline() {
+        return RenderPipelines.GUI;
+    }
+
+    @Override
+    public TextureSetup textureSetup() {
+        return TextureSetup.noTexture();
+    }
+
+    @Override
+    public @Nullable ScreenRectangle scissorArea() {
+        return null;
+    }
+
+    @Override
+    public @Nullable ScreenRectangle bounds() {
+        return new ScreenRectangle(x, y, width, height).transformMaxBounds(pose);
+    }
+}
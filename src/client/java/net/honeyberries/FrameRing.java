@@ -0,0 +1,183 @@
+package net.honeyberries;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Lock-free single-producer ring buffer of frame timestamps (or other per-frame values).
+ * <p>
+ * The producer (the render thread) writes each timestamp with a plain store and then
+ * publishes it with an ordered (release) write of the sequence counter, so publishing
+ * never blocks and never takes a monitor.
+ * <p>
+ * Any number of consumers can read the ring, each through its own {@link Cursor}.
+ * Reads are validated like a seqlock: entries are copied first, then the sequence is
+ * re-read, and anything the producer may have overwritten in the meantime is discarded
+ * and counted as lost instead of being returned torn.
+ */
+public final class FrameRing {
+    /**
+     * VarHandle for ordered access to {@link #published}.
+     */
+    private static final VarHandle PUBLISHED;
+
+    static {
+        try {
+            PUBLISHED = MethodHandles.lookup().findVarHandle(FrameRing.class, "published", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Slot storage. Written only by the producer.
+     */
+    private final long[] slots;
+
+    /**
+     * Mask for mapping a sequence number onto a slot (capacity - 1).
+     */
+    private final int mask;
+
+    /**
+     * Total number of entries ever published.
+     * Written with release semantics by the producer, read with acquire semantics by consumers.
+     */
+    @SuppressWarnings("unused") // Accessed through PUBLISHED
+    private volatile long published = 0;
+
+    /**
+     * Producer-local copy of the sequence so publishing needs no volatile read.
+     */
+    private long writeSeq = 0;
+
+    /**
+     * Creates an empty ring.
+     *
+     * @param capacity Number of slots; rounded up to a power of two
+     */
+    public FrameRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @return Number of slots in the ring
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Publishes a timestamp. Must only be called from the single producer thread.
+     *
+     * @param value The timestamp to publish (in nanoseconds)
+     */
+    public void publish(long value) {
+        long seq = writeSeq;
+        slots[(int) (seq & mask)] = value;
+        writeSeq = seq + 1;
+        PUBLISHED.setRelease(this, seq + 1); // Ordered write; the slot is visible before the count
+    }
+
+    /**
+     * @return Total number of entries ever published
+     */
+    public long published() {
+        return (long) PUBLISHED.getAcquire(this);
+    }
+
+    /**
+     * Copies entries that the cursor has not seen yet into the given buffer.
+     * <p>
+     * If the producer has lapped the cursor, the overwritten entries are skipped and
+     * added to {@link Cursor#lost}. The first returned entry has sequence
+     * {@code cursor.next - count} once this method returns.
+     *
+     * @param cursor The consumer's position, advanced past the copied entries
+     * @param dst Buffer to copy into
+     * @return Number of entries copied into dst
+     */
+    public int poll(Cursor cursor, long[] dst) {
+        long end = published();
+        long start = Math.max(cursor.next, end - slots.length);
+        int count = (int) Math.min(end - start, dst.length);
+        if (count <= 0) return 0;
+
+        for (int i = 0; i < count; i++) {
+            dst[i] = slots[(int) ((start + i) & mask)];
+        }
+
+        // Seqlock-style validation: anything at or below the slot being written now may be torn
+        VarHandle.acquireFence();
+        long firstValid = published() - slots.length + 1;
+        int skip = (int) Math.max(0, Math.min(count, firstValid - start));
+        if (skip > 0) {
+            System.arraycopy(dst, skip, dst, 0, count - skip);
+            count -= skip;
+        }
+
+        cursor.lost += (start + skip) - cursor.next;
+        cursor.next = start + skip + count;
+        return count;
+    }
+
+    /**
+     * Copies a range of entries by sequence number, without a cursor.
+     * Used to read a ring that is published in lockstep with another one: once the other
+     * ring's entries have been polled, the same sequence range here is published too.
+     *
+     * @param firstSeq Sequence number of the first entry to copy
+     * @param count Number of entries to copy
+     * @param dst Buffer to copy into
+     * @return Whether every copied entry is valid; false if the producer may have
+     *         overwritten some of them already
+     */
+    public boolean read(long firstSeq, int count, long[] dst) {
+        for (int i = 0; i < count; i++) {
+            dst[i] = slots[(int) ((firstSeq + i) & mask)];
+        }
+        VarHandle.acquireFence(); // Same validation as poll
+        return firstSeq >= published() - slots.length + 1;
+    }
+
+    /**
+     * Read position of a single consumer.
+     * A cursor must not be shared between threads.
+     */
+    public static final class Cursor {
+        /**
+         * Sequence number of the next entry to read.
+         */
+        long next;
+
+        /**
+         * Number of entries skipped because the producer overwrote them before they were read.
+         */
+        long lost = 0;
+
+        /**
+         * Creates a cursor that starts at the given sequence.
+         *
+         * @param next Sequence number of the first entry to read
+         */
+        public Cursor(long next) {
+            this.next = next;
+        }
+
+        /**
+         * @return Sequence number of the next entry to read
+         */
+        public long next() {
+            return next;
+        }
+
+        /**
+         * @return Number of entries lost to producer overruns
+         */
+        public long lost() {
+            return lost;
+        }
+    }
+}
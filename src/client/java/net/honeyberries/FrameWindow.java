@@ -0,0 +1,195 @@
+package net.honeyberries;
+
+/**
+ * Rolling window of frames stored as 32-bit frame-time deltas.
+ * <p>
+ * Only the first and last absolute timestamps are kept as {@code long}; every frame in
+ * between is an unsigned 32-bit nanosecond delta in a growable ring. The window holds
+ * its full time span at any frame rate: the ring doubles whenever it fills, up to
+ * MAX_CAPACITY frames.
+ * <p>
+ * Each frame also carries a 64-bit payload (the packed {@link WorkloadCounters} of the
+ * frame) in a parallel ring, so per-frame data stays aligned with its duration as the
+ * window grows, slides and restarts. A frame therefore takes 12 bytes; the delta saves
+ * a quarter of the 16 an absolute timestamp and payload would take.
+ * <p>
+ * A single frame longer than ~4.29 seconds does not fit in 32 bits. Such a gap (for
+ * example a paused or minimized game) restarts the window instead.
+ * <p>
+ * This class is not thread-safe; it is owned by the statistics consumer.
+ */
+public final class FrameWindow {
+    /**
+     * Initial number of frame slots (~0.8 s at 5000 FPS, ~68 s at 60 FPS).
+     */
+    private static final int INITIAL_CAPACITY = 4096;
+
+    /**
+     * Upper bound on frame slots (24 MB with payloads; a full 5 second window up to ~400k FPS).
+     * Beyond this the owner must drop the oldest frames (see {@link #isFull()}) to keep
+     * memory bounded.
+     */
+    private static final int MAX_CAPACITY = 1 << 21;
+
+    /**
+     * Largest frame time that can be stored as an unsigned 32-bit delta.
+     */
+    private static final long MAX_DELTA_NS = 0xFFFF_FFFFL;
+
+    /**
+     * Ring of frame durations (unsigned nanoseconds). Capacity is always a power of two.
+     */
+    private int[] deltas = new int[INITIAL_CAPACITY];
+
+    /**
+     * Payload of each frame, parallel to deltas.
+     */
+    private long[] payloads = new long[INITIAL_CAPACITY];
+
+    /**
+     * Index of the oldest duration in the ring.
+     */
+    private int head = 0;
+
+    /**
+     * Number of durations currently in the ring.
+     */
+    private int size = 0;
+
+    /**
+     * Whether at least one timestamp has been added since the last clear.
+     */
+    private boolean started = false;
+
+    /**
+     * Timestamp at which the oldest duration starts (in nanoseconds).
+     */
+    private long firstTimestamp = 0;
+
+    /**
+     * Timestamp of the most recent frame (in nanoseconds).
+     */
+    private long lastTimestamp = 0;
+
+    /**
+     * Appends a frame timestamp to the window.
+     * When {@link #isFull()}, the caller must first remove the oldest frame with
+     * {@link #removeOldest()}, so that it can also drop that duration from anything
+     * that mirrors the window.
+     *
+     * @param t The timestamp to add (in nanoseconds)
+     * @param payload Per-frame value stored with the new frame's duration
+     * @return The duration of the new frame in nanoseconds, or -1 if no duration was added
+     *         (first timestamp, or the window was restarted because of an oversized gap)
+     * @throws IllegalStateException If the window is full
+     */
+    public long add(long t, long payload) {
+        long d = t - lastTimestamp;
+        if (!started || d > MAX_DELTA_NS || d < 0) {
+            clear();
+            started = true;
+            firstTimestamp = t;
+            lastTimestamp = t;
+            return -1;
+        }
+
+        if (size == deltas.length) {
+            if (deltas.length == MAX_CAPACITY) throw new IllegalStateException("Frame window is full");
+            grow();
+        }
+        int slot = (head + size) & (deltas.length - 1);
+        deltas[slot] = (int) d;
+        payloads[slot] = payload;
+        size++;
+        lastTimestamp = t;
+        return d;
+    }
+
+    /**
+     * Removes the oldest frame from the window.
+     *
+     * @return The duration of the removed frame in nanoseconds, or -1 if the window is empty
+     */
+    public long removeOldest() {
+        if (size == 0) return -1;
+        long d = Integer.toUnsignedLong(deltas[head]);
+        head = (head + 1) & (deltas.length - 1);
+        size--;
+        firstTimestamp += d;
+        return d;
+    }
+
+    /**
+     * Empties the window. Allocated storage is kept for reuse.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        started = false;
+    }
+
+    /**
+     * @return Whether the window is at its memory bound, so the oldest frame must be
+     *         removed before another one is added
+     */
+    public boolean isFull() {
+        return size == MAX_CAPACITY;
+    }
+
+    /**
+     * @return Number of frame durations in the window
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Timestamp at which the oldest frame starts (in nanoseconds)
+     */
+    public long firstTimestamp() {
+        return firstTimestamp;
+    }
+
+    /**
+     * @return Timestamp of the most recent frame (in nanoseconds)
+     */
+    public long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Gets a frame duration by age.
+     *
+     * @param i Index from the oldest frame (0) to the newest (size - 1)
+     * @return The frame duration in nanoseconds
+     */
+    public long duration(int i) {
+        return Integer.toUnsignedLong(deltas[(head + i) & (deltas.length - 1)]);
+    }
+
+    /**
+     * Gets a frame's payload by age.
+     *
+     * @param i Index from the oldest frame (0) to the newest (size - 1)
+     * @return The payload stored with the frame
+     */
+    public long payload(int i) {
+        return payloads[(head + i) & (deltas.length - 1)];
+    }
+
+    /**
+     * Doubles the ring capacity, unwrapping the contents to start at index 0.
+     */
+    private void grow() {
+        int[] bigger = new int[deltas.length << 1];
+        long[] biggerPayloads = new long[deltas.length << 1];
+        int firstPart = Math.min(size, deltas.length - head);
+        System.arraycopy(deltas, head, bigger, 0, firstPart);
+        System.arraycopy(deltas, 0, bigger, firstPart, size - firstPart);
+        System.arraycopy(payloads, head, biggerPayloads, 0, firstPart);
+        System.arraycopy(payloads, 0, biggerPayloads, firstPart, size - firstPart);
+        deltas = bigger;
+        payloads = biggerPayloads;
+        head = 0;
+    }
+}
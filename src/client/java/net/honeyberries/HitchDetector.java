@@ -0,0 +1,755 @@
+package net.honeyberries;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flags frames that take much longer than the rolling median and records whether a
+ * garbage collection pause or another JVM safepoint overlapped them.
+ * <p>
+ * Detection runs on the statistics consumer: {@link FPSStats} passes every frame
+ * duration it drains from the ring to {@link #onFrame(long, long)}, and every published
+ * snapshot's median to {@link #update(long, double)}. A frame is a hitch when it is
+ * longer than the configured multiple of the median and longer than MIN_THRESHOLD_NS.
+ * Hitches wait SETTLE_NS before they are classified and counted, so that the
+ * notification of a GC pause that overlapped them has arrived by then, and until the
+ * safepoint stream has delivered every safepoint that ended before them.
+ * <p>
+ * GC pauses are collected off-thread from {@link GarbageCollectorMXBean} notifications,
+ * which the JVM delivers on its own service thread. Their start and end times are
+ * milliseconds on the JVM's GC clock, which starts when the management subsystem
+ * initializes: neither the wall clock nor RuntimeMXBean.getUptime() (which starts tens
+ * of milliseconds earlier) shares its origin. Each notification arrives after its pause
+ * ended, so arrival time minus end time is an upper bound on the GC clock's origin on
+ * the System.nanoTime() timeline; the lowest bound seen so far places pauses on the
+ * frame timeline, and matching allows for its error. Collectors that mostly run concurrently with the
+ * application (ZGC and Shenandoah cycles, G1 concurrent marking) are ignored, because
+ * their reported duration is not a pause.
+ * <p>
+ * Every stop-the-world pause, GC or not (deoptimization, code cache cleanup, biased
+ * lock revocation and other VM operations), happens at a safepoint. While detection is
+ * on, a JFR {@link RecordingStream} delivers the jdk.SafepointBegin, jdk.ExecuteVMOperation
+ * and jdk.SafepointEnd events on its own thread, about once a second. Their timestamps
+ * are wall-clock instants, placed on the System.nanoTime() timeline with an offset
+ * measured at every flush. A hitch that overlapped a safepoint records the VM operation
+ * that ran in it.
+ * <p>
+ * Hitches are kept in a bounded event log that can be written to a CSV file, and
+ * counted over the last minute for the HUD.
+ */
+public final class HitchDetector {
+    /**
+     * Frames shorter than this are never hitches (8 ms, one frame at 120 Hz).
+     * Keeps very high frame rates, where the median is tiny, from flagging noise.
+     */
+    private static final long MIN_THRESHOLD_NS = 8_000_000L;
+
+    /**
+     * Time span the hitches-per-minute count covers in nanoseconds (60 seconds).
+     */
+    private static final long RATE_WINDOW_NS = 60_000_000_000L;
+
+    /**
+     * Number of hitches kept in the event log; the oldest are overwritten.
+     */
+    private static final int EVENT_CAPACITY = 256;
+
+    /**
+     * Number of hitches that can wait for classification; when full, the oldest is
+     * classified early.
+     */
+    private static final int PENDING_CAPACITY = 256;
+
+    /**
+     * How long a hitch waits before it is classified in nanoseconds (250 ms).
+     * GC notifications usually arrive within a millisecond, but the JVM's service thread
+     * can fall behind under load.
+     */
+    private static final long SETTLE_NS = 250_000_000L;
+
+    /**
+     * Longest a hitch waits for the safepoint stream in nanoseconds (5 seconds).
+     * Bounds the wait if the stream falls behind or stops delivering.
+     */
+    private static final long MAX_SETTLE_NS = 5_000_000_000L;
+
+    /**
+     * Number of GC pauses remembered for correlation.
+     */
+    private static final int GC_CAPACITY = 64;
+
+    /**
+     * Resolution of GC timestamps in nanoseconds (1 ms).
+     */
+    private static final long GC_RESOLUTION_NS = 1_000_000L;
+
+    /**
+     * Allowance for how late the notification that calibrated the GC clock arrived (1 ms).
+     */
+    private static final long GC_DELIVERY_SLACK_NS = 1_000_000L;
+
+    /**
+     * Slack applied when matching GC pauses to frames in nanoseconds: the resolution of
+     * GC timestamps plus the calibration error of the GC clock.
+     */
+    private static final long GC_TOLERANCE_NS = GC_RESOLUTION_NS + GC_DELIVERY_SLACK_NS;
+
+    /**
+     * Number of safepoint pauses remembered for correlation.
+     */
+    private static final int SAFEPOINT_CAPACITY = 64;
+
+    /**
+     * Shortest safepoint pause remembered in nanoseconds (1 ms); shorter ones cannot
+     * explain a hitch, which is at least MIN_THRESHOLD_NS long.
+     */
+    private static final long SAFEPOINT_MIN_NS = 1_000_000L;
+
+    /**
+     * Slack applied when matching safepoints to frames in nanoseconds (1 ms).
+     * JFR instants and System.nanoTime() agree to within a fraction of it.
+     */
+    private static final long SAFEPOINT_TOLERANCE_NS = 1_000_000L;
+
+    /**
+     * How much of the JFR stream is kept on disk; only the latest flush is ever read.
+     */
+    private static final Duration SAFEPOINT_MAX_AGE = Duration.ofSeconds(10);
+
+    /**
+     * File name pattern for dumped hitch logs.
+     */
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'hitches-'yyyyMMdd-HHmmss'.csv'");
+
+    /**
+     * Whether hitches are being detected.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile boolean enabled = false;
+
+    /**
+     * Hitch threshold as a multiple of the median frame time.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile double multiplier = 2.0;
+
+    /**
+     * Whether the GC listeners have been registered. Only changed from configure.
+     */
+    private static boolean listening = false;
+
+    /**
+     * Running safepoint stream, or null when detection is off or JFR is unavailable.
+     * Only changed from configure and stop. Volatile so the stream thread can tell
+     * whether it has been replaced.
+     */
+    private static volatile SafepointStream safepoints = null;
+
+    /**
+     * Every safepoint that ended before this System.nanoTime() has been recorded.
+     * Long.MAX_VALUE while no safepoint stream runs, so hitches only wait SETTLE_NS.
+     */
+    private static volatile long safepointsCompleteNs = Long.MAX_VALUE;
+
+    /**
+     * Current hitch threshold in nanoseconds. Owned by the consumer.
+     */
+    private static long thresholdNs = Long.MAX_VALUE;
+
+    /**
+     * Hitches in the last minute; the value is 1 for hitches that overlapped a GC pause.
+     * Owned by the consumer.
+     */
+    private static final SampleWindow recent = new SampleWindow();
+
+    /**
+     * End times of hitches waiting to be classified, in nanoseconds. Ring buffer. Owned by the consumer.
+     */
+    private static final long[] pendingEndNs = new long[PENDING_CAPACITY];
+
+    /**
+     * Durations of the waiting hitches in nanoseconds, parallel to pendingEndNs. Owned by the consumer.
+     */
+    private static final long[] pendingDurationNs = new long[PENDING_CAPACITY];
+
+    /**
+     * Thresholds the waiting hitches were detected with in nanoseconds, parallel to pendingEndNs.
+     * Owned by the consumer.
+     */
+    private static final long[] pendingThresholdNs = new long[PENDING_CAPACITY];
+
+    /**
+     * Index of the oldest waiting hitch. Owned by the consumer.
+     */
+    private static int pendingHead = 0;
+
+    /**
+     * Number of waiting hitches. Owned by the consumer.
+     */
+    private static int pendingSize = 0;
+
+    /**
+     * Hitches in the last minute; the value is 1 for hitches that overlapped a safepoint
+     * but no GC pause. Kept in step with recent. Owned by the consumer.
+     */
+    private static final SampleWindow recentSafepoint = new SampleWindow();
+
+    /**
+     * Formatter for the HUD line. Owned by the consumer.
+     */
+    private static final StatsTextFormatter formatter = new StatsTextFormatter();
+
+    /**
+     * Hitch count the current HUD line was formatted for.
+     */
+    private static int textHitches = 0;
+
+    /**
+     * GC hitch count the current HUD line was formatted for.
+     */
+    private static int textGcHitches = 0;
+
+    /**
+     * Safepoint hitch count the current HUD line was formatted for.
+     */
+    private static int textSafepointHitches = 0;
+
+    /**
+     * HUD line for the last minute's hitches.
+     * Volatile so that readers always see the latest string.
+     */
+    private static volatile String text = formatter.formatHitches(0, 0, 0);
+
+    /**
+     * Guards the GC pause ring.
+     */
+    private static final Object GC_LOCK = new Object();
+
+    /**
+     * Start times of recent GC pauses in GC clock milliseconds. Ring buffer.
+     */
+    private static final long[] gcStartMs = new long[GC_CAPACITY];
+
+    /**
+     * End times of recent GC pauses in GC clock milliseconds, parallel to gcStartMs.
+     */
+    private static final long[] gcEndMs = new long[GC_CAPACITY];
+
+    /**
+     * Collector names of recent GC pauses, parallel to gcStartMs.
+     */
+    private static final String[] gcName = new String[GC_CAPACITY];
+
+    /**
+     * Total number of GC pauses recorded; the newest is at (gcCount - 1) % GC_CAPACITY.
+     */
+    private static long gcCount = 0;
+
+    /**
+     * System.nanoTime() at zero on the GC clock, or Long.MAX_VALUE before the first pause.
+     * Only ever lowered, as notifications bound it more tightly. Guarded by GC_LOCK.
+     */
+    private static long gcOriginNs = Long.MAX_VALUE;
+
+    /**
+     * Guards the safepoint pause ring.
+     */
+    private static final Object SAFEPOINT_LOCK = new Object();
+
+    /**
+     * Start times of recent safepoint pauses on the System.nanoTime() timeline. Ring buffer.
+     */
+    private static final long[] safepointStartNs = new long[SAFEPOINT_CAPACITY];
+
+    /**
+     * End times of recent safepoint pauses, parallel to safepointStartNs.
+     */
+    private static final long[] safepointEndNs = new long[SAFEPOINT_CAPACITY];
+
+    /**
+     * VM operations that ran in recent safepoint pauses, parallel to safepointStartNs.
+     */
+    private static final String[] safepointOperation = new String[SAFEPOINT_CAPACITY];
+
+    /**
+     * Total number of safepoint pauses recorded; the newest is at (safepointCount - 1) % SAFEPOINT_CAPACITY.
+     */
+    private static long safepointCount = 0;
+
+    /**
+     * Guards the hitch event log.
+     */
+    private static final Object EVENT_LOCK = new Object();
+
+    /**
+     * Most recent hitches. Ring buffer.
+     */
+    private static final HitchEvent[] events = new HitchEvent[EVENT_CAPACITY];
+
+    /**
+     * Total number of hitches recorded; the newest is at (eventCount - 1) % EVENT_CAPACITY.
+     */
+    private static long eventCount = 0;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private HitchDetector() {
+    }
+
+    /**
+     * Turns detection on or off and sets the threshold multiplier.
+     * GC listeners are registered the first time detection is enabled; the safepoint
+     * stream runs while it is enabled. Starting JFR takes a moment, so this is called
+     * off the render thread.
+     *
+     * @param enable Whether to detect hitches
+     * @param thresholdMultiplier Hitch threshold as a multiple of the median frame time
+     */
+    public static synchronized void configure(boolean enable, double thresholdMultiplier) {
+        multiplier = thresholdMultiplier;
+        enabled = enable;
+        if (enable && !listening) {
+            listening = true;
+            for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (bean instanceof NotificationEmitter emitter && isPausing(bean.getName())) {
+                    emitter.addNotificationListener(HitchDetector::onGcNotification, null, null);
+                }
+            }
+        }
+        if (!enable) {
+            stop();
+        } else if (safepoints == null) {
+            try {
+                safepoints = new SafepointStream();
+            } catch (RuntimeException | LinkageError e) {
+                // JFR can be left out of a trimmed runtime (LinkageError) or refuse to start
+                FPSDisplay.LOGGER.warn("Could not start the safepoint stream, hitches will only be matched to GC pauses", e);
+            }
+        }
+    }
+
+    /**
+     * Stops the safepoint stream, if any.
+     * Called when detection is disabled and when the client shuts down.
+     */
+    public static synchronized void stop() {
+        if (safepoints == null) return;
+        SafepointStream stream = safepoints;
+        safepoints = null;
+        safepointsCompleteNs = Long.MAX_VALUE;
+        stream.close();
+    }
+
+    /**
+     * Checks a frame for a hitch. Called by the statistics consumer for every frame.
+     * Hitches are queued until {@link #update(long, double)} classifies them.
+     *
+     * @param endNs Timestamp of the end of the frame in nanoseconds
+     * @param durationNs Frame duration in nanoseconds
+     */
+    static void onFrame(long endNs, long durationNs) {
+        if (!enabled || durationNs <= thresholdNs) return;
+
+        if (pendingSize == PENDING_CAPACITY) classifyOldest();
+        int slot = (pendingHead + pendingSize++) % PENDING_CAPACITY;
+        pendingEndNs[slot] = endNs;
+        pendingDurationNs[slot] = durationNs;
+        pendingThresholdNs[slot] = thresholdNs;
+    }
+
+    /**
+     * Classifies the hitches that have waited long enough, updates the threshold from the
+     * latest median and refreshes the HUD line.
+     * Called by the statistics consumer each time a snapshot is published.
+     *
+     * @param nowNs Time of the snapshot in nanoseconds
+     * @param medianMs Median frame time in milliseconds, or 0 if unknown
+     */
+    static void update(long nowNs, double medianMs) {
+        thresholdNs = threshold(medianMs);
+        if (!enabled) {
+            pendingSize = 0;
+            recent.clear();
+            recentSafepoint.clear();
+        }
+        long now = System.nanoTime();
+        long settledNs = Math.max(Math.min(now - SETTLE_NS, safepointsCompleteNs), now - MAX_SETTLE_NS);
+        while (pendingSize > 0 && pendingEndNs[pendingHead] <= settledNs) classifyOldest();
+        recent.removeOlderThan(nowNs - RATE_WINDOW_NS);
+        recentSafepoint.removeOlderThan(nowNs - RATE_WINDOW_NS);
+
+        int hitches = recent.size();
+        int gcHitches = (int) recent.sum();
+        int safepointHitches = (int) recentSafepoint.sum();
+        if (hitches != textHitches || gcHitches != textGcHitches || safepointHitches != textSafepointHitches) {
+            textHitches = hitches;
+            textGcHitches = gcHitches;
+            textSafepointHitches = safepointHitches;
+            text = formatter.formatHitches(hitches, gcHitches, safepointHitches);
+        }
+    }
+
+    /**
+     * Calculates the hitch threshold for a median frame time with the configured multiplier.
+     *
+     * @param medianMs Median frame time in milliseconds, or 0 if unknown
+     * @return Threshold in nanoseconds; Long.MAX_VALUE without a median, so nothing is a hitch
+     */
+    static long threshold(double medianMs) {
+        return medianMs > 0
+                ? Math.max(MIN_THRESHOLD_NS, (long) (medianMs * multiplier * 1_000_000.0))
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the HUD line with the number of hitches in the last minute.
+     * Safe to call from any thread.
+     *
+     * @return A string in the format "Hitches/min: X (GC: Y, Safepoint: Z)"
+     */
+    public static String getText() {
+        return text;
+    }
+
+    /**
+     * Copies the event log.
+     * Safe to call from any thread. Hitches still waiting to be classified are not included.
+     *
+     * @return The recorded hitches, oldest first
+     */
+    public static List<HitchEvent> events() {
+        synchronized (EVENT_LOCK) {
+            int n = (int) Math.min(eventCount, EVENT_CAPACITY);
+            List<HitchEvent> copy = new ArrayList<>(n);
+            for (long i = eventCount - n; i < eventCount; i++) {
+                copy.add(events[(int) (i % EVENT_CAPACITY)]);
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Empties the event log. The hitches-per-minute count is not affected.
+     */
+    public static void clearEvents() {
+        synchronized (EVENT_LOCK) {
+            eventCount = 0;
+        }
+    }
+
+    /**
+     * Writes the event log to a new CSV file.
+     * Timestamps are converted to wall-clock time at the moment of the dump.
+     *
+     * @param dir Directory to create the file in
+     * @return The file written
+     * @throws IOException If the file cannot be written
+     */
+    public static Path dump(Path dir) throws IOException {
+        List<HitchEvent> snapshot = events();
+        long nowNs = System.nanoTime();
+        long nowMs = System.currentTimeMillis();
+
+        Files.createDirectories(dir);
+        Path file = dir.resolve(LocalDateTime.now().format(FILE_NAME));
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("EpochMs,DurationMs,ThresholdMs,GC,Safepoint");
+            out.newLine();
+            for (HitchEvent e : snapshot) {
+                long epochMs = nowMs - (nowNs - e.timestampNs()) / 1_000_000L;
+                out.write(epochMs + "," + e.durationNs() / 1_000_000.0 + "," + e.thresholdNs() / 1_000_000.0
+                        + "," + (e.duringGc() ? e.gc() : "") + "," + (e.duringSafepoint() ? e.safepoint() : ""));
+                out.newLine();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Looks up the GC pause and safepoint that overlapped the oldest waiting hitch, then
+     * counts it and adds it to the event log. A GC pause is itself a safepoint, so the
+     * hitch only counts as a safepoint hitch when no GC pause overlapped it.
+     */
+    private static void classifyOldest() {
+        long endNs = pendingEndNs[pendingHead];
+        long durationNs = pendingDurationNs[pendingHead];
+        long hitchThresholdNs = pendingThresholdNs[pendingHead];
+        pendingHead = (pendingHead + 1) % PENDING_CAPACITY;
+        pendingSize--;
+
+        String gc = overlappingGc(endNs - durationNs, endNs);
+        String safepoint = overlappingSafepoint(endNs - durationNs, endNs);
+        recent.add(endNs, gc != null ? 1 : 0);
+        recentSafepoint.add(endNs, gc == null && safepoint != null ? 1 : 0);
+        synchronized (EVENT_LOCK) {
+            events[(int) (eventCount++ % EVENT_CAPACITY)] = new HitchEvent(endNs, durationNs, hitchThresholdNs, gc, safepoint);
+        }
+    }
+
+    /**
+     * Finds a recorded GC pause overlapping the given interval.
+     *
+     * @param startNs Start of the interval in nanoseconds
+     * @param endNs End of the interval in nanoseconds
+     * @return Name of the collector, or null if no pause overlapped
+     */
+    private static String overlappingGc(long startNs, long endNs) {
+        synchronized (GC_LOCK) {
+            long n = Math.min(gcCount, GC_CAPACITY);
+            for (long i = gcCount - 1; i >= gcCount - n; i--) {
+                int slot = (int) (i % GC_CAPACITY);
+                // Placed with the current origin, so pauses recorded before it was refined move too
+                long gcStart = gcOriginNs + gcStartMs[slot] * GC_RESOLUTION_NS;
+                long gcEnd = gcOriginNs + gcEndMs[slot] * GC_RESOLUTION_NS;
+                if (gcStart <= endNs + GC_TOLERANCE_NS && gcEnd >= startNs - GC_TOLERANCE_NS) {
+                    return gcName[slot];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Finds a recorded safepoint pause overlapping the given interval.
+     *
+     * @param startNs Start of the interval in nanoseconds
+     * @param endNs End of the interval in nanoseconds
+     * @return VM operation that ran in the safepoint, or null if no safepoint overlapped
+     */
+    private static String overlappingSafepoint(long startNs, long endNs) {
+        synchronized (SAFEPOINT_LOCK) {
+            long n = Math.min(safepointCount, SAFEPOINT_CAPACITY);
+            for (long i = safepointCount - 1; i >= safepointCount - n; i--) {
+                int slot = (int) (i % SAFEPOINT_CAPACITY);
+                if (safepointStartNs[slot] <= endNs + SAFEPOINT_TOLERANCE_NS && safepointEndNs[slot] >= startNs - SAFEPOINT_TOLERANCE_NS) {
+                    return safepointOperation[slot];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Records a finished safepoint pause. Called on the safepoint stream's thread.
+     *
+     * @param startNs Start of the pause on the System.nanoTime() timeline
+     * @param endNs End of the pause on the System.nanoTime() timeline
+     * @param operation VM operation that ran in it
+     */
+    private static void onSafepoint(long startNs, long endNs, String operation) {
+        if (endNs - startNs < SAFEPOINT_MIN_NS) return;
+        synchronized (SAFEPOINT_LOCK) {
+            int slot = (int) (safepointCount++ % SAFEPOINT_CAPACITY);
+            safepointStartNs[slot] = startNs;
+            safepointEndNs[slot] = endNs;
+            safepointOperation[slot] = operation;
+        }
+    }
+
+    /**
+     * Records a finished collection. Called on the JVM's notification thread.
+     *
+     * @param notification The GC notification
+     * @param handback Unused
+     */
+    private static void onGcNotification(Notification notification, Object handback) {
+        long arrivedNs = System.nanoTime();
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        GcInfo gc = info.getGcInfo();
+
+        synchronized (GC_LOCK) {
+            // The pause ended no later than now, so its end time bounds the GC clock's origin
+            gcOriginNs = Math.min(gcOriginNs, arrivedNs - gc.getEndTime() * GC_RESOLUTION_NS);
+            int slot = (int) (gcCount++ % GC_CAPACITY);
+            gcStartMs[slot] = gc.getStartTime();
+            gcEndMs[slot] = gc.getEndTime();
+            gcName[slot] = info.getGcName();
+        }
+    }
+
+    /**
+     * Checks whether a collector's reported durations are stop-the-world pauses.
+     *
+     * @param name Collector name from its MXBean
+     * @return False for collectors that run concurrently with the application
+     */
+    static boolean isPausing(String name) {
+        return !name.contains("Cycles") && !name.contains("Concurrent");
+    }
+
+    /**
+     * JFR stream of safepoint events. Its fields are owned by the stream's thread, which
+     * runs every handler; a replaced stream only stops publishing completion.
+     */
+    private static final class SafepointStream {
+        /**
+         * Event that ends when every Java thread has stopped, timed from the start of the safepoint.
+         */
+        private static final String BEGIN = "jdk.SafepointBegin";
+
+        /**
+         * Event for the VM operation that a safepoint ran, among others that need none.
+         */
+        private static final String OPERATION = "jdk.ExecuteVMOperation";
+
+        /**
+         * Event that ends when the Java threads resume.
+         */
+        private static final String END = "jdk.SafepointEnd";
+
+        /**
+         * The underlying stream.
+         */
+        private final RecordingStream stream;
+
+        /**
+         * System.nanoTime() minus wall-clock nanoseconds since the epoch, measured at the last flush.
+         */
+        private long offsetNs;
+
+        /**
+         * System.nanoTime() at the previous flush. Everything that ended before it was in
+         * the segment the current flush delivered, or an earlier one, as long as each
+         * segment is read before the JVM flushes the next, about a second later.
+         */
+        private long lastFlushNs;
+
+        /**
+         * Id of the safepoint that began last, or -1.
+         */
+        private long beginId = -1;
+
+        /**
+         * Start of the safepoint that began last on the System.nanoTime() timeline.
+         */
+        private long beginNs;
+
+        /**
+         * Id of the safepoint the last VM operation ran in, or -1.
+         */
+        private long operationId = -1;
+
+        /**
+         * Name of the last VM operation that ran in a safepoint.
+         */
+        private String operation;
+
+        /**
+         * Enables the safepoint events and starts streaming them on a background thread.
+         * The events are ordered, so a safepoint's begin, operation and end arrive in turn.
+         *
+         * @throws IllegalStateException If JFR is unavailable
+         */
+        SafepointStream() {
+            stream = new RecordingStream();
+            try {
+                stream.enable(BEGIN);
+                stream.enable(OPERATION);
+                stream.enable(END);
+                stream.setMaxAge(SAFEPOINT_MAX_AGE);
+                stream.onEvent(BEGIN, this::onBegin);
+                stream.onEvent(OPERATION, this::onOperation);
+                stream.onEvent(END, this::onEnd);
+                stream.onFlush(this::onFlush);
+                offsetNs = System.nanoTime() - epochNanos(Instant.now());
+                lastFlushNs = System.nanoTime();
+                safepointsCompleteNs = lastFlushNs; // Safepoints before the stream are never delivered
+                stream.startAsync();
+            } catch (RuntimeException e) {
+                stream.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Stops streaming and releases the recording.
+         */
+        void close() {
+            stream.close();
+        }
+
+        /**
+         * Remembers when a safepoint began.
+         *
+         * @param event A jdk.SafepointBegin event
+         */
+        private void onBegin(RecordedEvent event) {
+            beginId = event.getLong("safepointId");
+            beginNs = toNanoTime(event.getStartTime());
+        }
+
+        /**
+         * Remembers the VM operation a safepoint ran.
+         *
+         * @param event A jdk.ExecuteVMOperation event
+         */
+        private void onOperation(RecordedEvent event) {
+            if (!event.getBoolean("safepoint")) return;
+            operationId = event.getLong("safepointId");
+            operation = event.getString("operation");
+        }
+
+        /**
+         * Records a safepoint whose beginning was seen.
+         *
+         * @param event A jdk.SafepointEnd event
+         */
+        private void onEnd(RecordedEvent event) {
+            long id = event.getLong("safepointId");
+            if (id != beginId) return;
+            onSafepoint(beginNs, toNanoTime(event.getEndTime()), id == operationId ? operation : "Safepoint");
+        }
+
+        /**
+         * Publishes how far the stream is complete and re-measures the clock offset.
+         */
+        private void onFlush() {
+            long now = System.nanoTime();
+            if (safepoints == this) safepointsCompleteNs = lastFlushNs;
+            lastFlushNs = now;
+            offsetNs = now - epochNanos(Instant.now());
+        }
+
+        /**
+         * Places a JFR timestamp on the System.nanoTime() timeline.
+         *
+         * @param instant Wall-clock time of the event
+         * @return The matching System.nanoTime() value
+         */
+        private long toNanoTime(Instant instant) {
+            return epochNanos(instant) + offsetNs;
+        }
+
+        /**
+         * Converts an instant to nanoseconds since the epoch.
+         *
+         * @param instant The instant
+         * @return Nanoseconds since 1970-01-01T00:00Z
+         */
+        private static long epochNanos(Instant instant) {
+            return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+        }
+    }
+}
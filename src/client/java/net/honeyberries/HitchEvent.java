@@ -0,0 +1,27 @@
+package net.honeyberries;
+
+/**
+ * A single frame flagged by {@link HitchDetector}.
+ *
+ * @param timestampNs Time the frame ended (System.nanoTime())
+ * @param durationNs Frame duration in nanoseconds
+ * @param thresholdNs Hitch threshold in effect when the frame was detected, in nanoseconds
+ * @param gc Name of the garbage collector whose pause overlapped the frame, or null if none did
+ * @param safepoint VM operation of a safepoint that overlapped the frame, or null if none did
+ *                  (or safepoints could not be streamed)
+ */
+public record HitchEvent(long timestampNs, long durationNs, long thresholdNs, String gc, String safepoint) {
+    /**
+     * @return Whether a garbage collection pause overlapped this frame
+     */
+    public boolean duringGc() {
+        return gc != null;
+    }
+
+    /**
+     * @return Whether a safepoint, GC or not, overlapped this frame
+     */
+    public boolean duringSafepoint() {
+        return safepoint != null;
+    }
+}
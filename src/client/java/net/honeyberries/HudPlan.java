@@ -0,0 +1,325 @@
+package net.honeyberries;
+
+import net.minecraft.client.gui.Font;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, precompiled description of everything the HUD draws.
+ * <p>
+ * A plan is compiled from one configuration generation and the snapshots that were
+ * current at that time: it holds the position, scale, colours, the lines to draw, their
+ * measured background rectangle and the frame graph layout. {@link FPSRenderer} keeps
+ * the current plan and only compiles a new one when {@link #isCurrent(int)} reports
+ * that the configuration was applied again or one of the shown snapshots was replaced.
+ * The per-frame path is then a handful of reference comparisons and the draw calls,
+ * with no configuration field reads and no text measuring.
+ * <p>
+ * Because a plan copies the configuration when it is compiled, values edited in the
+ * config screen only reach the HUD once they are saved, and a configuration replaced
+ * on another thread is never seen half-applied.
+ */
+public final class HudPlan {
+    /**
+     * Height of one text line in pixels.
+     */
+    private static final int LINE_HEIGHT = 10;
+
+    /**
+     * Configuration generation the plan was compiled from.
+     */
+    private final int configGeneration;
+
+    /**
+     * Average and lows strings the plan was compiled from.
+     */
+    private final StatsText text;
+
+    /**
+     * Whether the pacing line is shown.
+     */
+    private final boolean showPacing;
+
+    /**
+     * Pacing snapshot the plan was compiled from, or null if not shown.
+     */
+    private final PacingSnapshot pacing;
+
+    /**
+     * Whether the workload lines are shown.
+     */
+    private final boolean showWorkload;
+
+    /**
+     * Workload snapshot the plan was compiled from, or null if not shown or not calculated yet.
+     */
+    private final WorkloadSnapshot workload;
+
+    /**
+     * Whether the server line is shown.
+     */
+    private final boolean showServer;
+
+    /**
+     * Server line the plan was compiled from, or null if not shown or not received.
+     */
+    private final String server;
+
+    /**
+     * Whether any of the 1 second, 60 second or session lines is shown.
+     */
+    private final boolean showWindows;
+
+    /**
+     * Multi-window snapshot the plan was compiled from, or null if not shown.
+     */
+    private final MultiWindowSnapshot windows;
+
+    /**
+     * Whether the memory line is shown.
+     */
+    private final boolean showMemory;
+
+    /**
+     * Memory snapshot the plan was compiled from, or null if not shown or not sampled yet.
+     */
+    private final MemorySnapshot memory;
+
+    /**
+     * Whether the CPU line is shown.
+     */
+    private final boolean showCpu;
+
+    /**
+     * CPU snapshot the plan was compiled from, or null if not shown or not sampled yet.
+     */
+    private final CpuSnapshot cpu;
+
+    /**
+     * Whether the load time line is shown.
+     */
+    private final boolean showLoadTimes;
+
+    /**
+     * Load time line the plan was compiled from, or null if not shown.
+     */
+    private final String loadTimes;
+
+    /**
+     * Whether the network line is shown.
+     */
+    private final boolean showNetwork;
+
+    /**
+     * Network snapshot the plan was compiled from, or null if not shown or not aggregated yet.
+     */
+    private final NetworkSnapshot network;
+
+    /**
+     * Phase snapshot the plan was compiled from, or null if not shown or not measured yet.
+     */
+    private final PhaseSnapshot phases;
+
+    /**
+     * Whether the hitch line is shown.
+     */
+    private final boolean showHitches;
+
+    /**
+     * Hitch line the plan was compiled from, or null if not shown.
+     */
+    private final String hitches;
+
+    /**
+     * Whether the HUD is enabled at all.
+     */
+    final boolean enabled;
+
+    /**
+     * X offset of the HUD from the left edge of the screen in GUI pixels.
+     */
+    final int x;
+
+    /**
+     * Y offset of the HUD from the top edge of the screen in GUI pixels.
+     */
+    final int y;
+
+    /**
+     * HUD scale multiplier.
+     */
+    final float scale;
+
+    /**
+     * Text colour in ARGB.
+     */
+    final int textColor;
+
+    /**
+     * Background colour in ARGB.
+     */
+    final int bgColor;
+
+    /**
+     * Whether the background box is drawn (its alpha is not zero).
+     */
+    final boolean drawBackground;
+
+    /**
+     * Whether text is drawn with a shadow.
+     */
+    final boolean shadow;
+
+    /**
+     * Lines to draw, top to bottom, LINE_HEIGHT pixels apart.
+     */
+    final String[] lines;
+
+    /**
+     * Right edge of the background box, relative to the HUD origin.
+     */
+    final int boxRight;
+
+    /**
+     * Bottom edge of the background box, relative to the HUD origin.
+     */
+    final int boxBottom;
+
+    /**
+     * Whether the frame-time graph is drawn.
+     */
+    final boolean graph;
+
+    /**
+     * Frame-time graph width in pixels.
+     */
+    final int graphWidth;
+
+    /**
+     * Number of frames the graph shows.
+     */
+    final int graphHistory;
+
+    /**
+     * Graph bar height in pixels per millisecond.
+     */
+    final float graphScale;
+
+    /**
+     * Compiles a plan from the current configuration and snapshots.
+     * Must be called on the render thread, because it measures text.
+     *
+     * @param font Font used to measure the lines
+     * @param config Configuration to copy
+     * @param generation Generation of that configuration
+     */
+    private HudPlan(Font font, FPSConfig.Handler config, int generation) {
+        this.configGeneration = generation;
+        this.text = FPSStats.getText();
+        this.showPacing = config.enablePacingStats;
+        this.pacing = showPacing ? FPSStats.pacing() : null;
+        this.showWorkload = config.enableWorkloadStats;
+        this.workload = showWorkload ? FPSStats.workload() : null;
+        this.showServer = config.showServerStats;
+        this.server = showServer ? ServerStatsClient.getText() : null;
+        this.showWindows = config.showOneSecondStats || config.showOneMinuteStats || config.showSessionStats;
+        this.windows = showWindows ? FPSStats.multiWindow() : null;
+        this.showMemory = config.enableMemoryStats;
+        this.memory = showMemory ? MemoryMonitor.snapshot() : null;
+        this.showCpu = config.enableCpuStats;
+        this.cpu = showCpu ? CpuMonitor.snapshot() : null;
+        this.showLoadTimes = config.enableLoadTimes;
+        this.loadTimes = showLoadTimes ? LoadTimings.getText() : null;
+        this.showNetwork = config.enableNetworkStats;
+        this.network = showNetwork ? NetworkStats.snapshot() : null;
+        this.phases = PhaseTimings.ENABLED ? PhaseTimings.snapshot() : null;
+        this.showHitches = config.enableHitchDetector;
+        this.hitches = showHitches ? HitchDetector.getText() : null;
+
+        this.enabled = config.enableFps;
+        this.x = config.xOffset;
+        this.y = config.yOffset;
+        this.scale = config.hudScale;
+        this.textColor = config.hudColor;
+        this.bgColor = config.bgColor;
+        this.drawBackground = ((config.bgColor >> 24) & 0xFF) > 0;
+        this.shadow = config.enableShadow;
+        this.graph = config.enableFrameGraph;
+        this.graphWidth = config.graphWidth;
+        this.graphHistory = config.graphHistory;
+        this.graphScale = config.graphScale;
+
+        // Main line, then the server line next to it, then the options in order
+        String[] all = new String[17];
+        int n = 0;
+        all[n++] = text.avg(config.showFpsText);
+        if (server != null) all[n++] = server;
+        if (config.enableAdvancedStats) all[n++] = text.lows();
+        if (pacing != null) all[n++] = pacing.line();
+        if (workload != null) {
+            all[n++] = workload.avgLine();
+            all[n++] = workload.worstLine();
+        }
+        if (windows != null) {
+            if (config.showOneSecondStats) all[n++] = windows.oneSecondLine();
+            if (config.showOneMinuteStats) all[n++] = windows.oneMinuteLine();
+            if (config.showSessionStats) all[n++] = windows.sessionLine();
+        }
+        if (memory != null) all[n++] = memory.line();
+        if (cpu != null) all[n++] = cpu.line();
+        if (loadTimes != null) all[n++] = loadTimes;
+        if (network != null) all[n++] = network.line();
+        if (phases != null) {
+            all[n++] = phases.avgLine();
+            all[n++] = phases.maxLine();
+        }
+        if (hitches != null) all[n++] = hitches;
+        this.lines = Arrays.copyOf(all, n);
+
+        int maxWidth = 0;
+        for (String line : lines) maxWidth = Math.max(maxWidth, font.width(line));
+        this.boxRight = maxWidth + 2;
+        this.boxBottom = n * LINE_HEIGHT;
+    }
+
+    /**
+     * Compiles a plan from the current configuration and snapshots.
+     * Must be called on the render thread, because it measures text.
+     *
+     * @param font Font used to measure the lines
+     * @return The new plan
+     */
+    public static HudPlan compile(Font font) {
+        int generation = FPSConfig.generation(); // Read before the instance, so a newer one forces a recompile
+        return new HudPlan(font, FPSConfig.INSTANCE, generation);
+    }
+
+    /**
+     * Checks whether the plan still matches the configuration and the shown snapshots.
+     * Snapshots are compared by identity; each publication creates a new instance.
+     *
+     * @param generation Current configuration generation
+     * @return Whether the plan can be drawn as is
+     */
+    public boolean isCurrent(int generation) {
+        return generation == configGeneration
+                && text == FPSStats.getText()
+                && (!showPacing || pacing == FPSStats.pacing())
+                && (!showWorkload || workload == FPSStats.workload())
+                && (!showServer || server == ServerStatsClient.getText())
+                && (!showWindows || windows == FPSStats.multiWindow())
+                && (!showMemory || memory == MemoryMonitor.snapshot())
+                && (!showCpu || cpu == CpuMonitor.snapshot())
+                && (!showLoadTimes || loadTimes == LoadTimings.getText())
+                && (!showNetwork || network == NetworkStats.snapshot())
+                && (!PhaseTimings.ENABLED || phases == PhaseTimings.snapshot())
+                && (!showHitches || hitches == HitchDetector.getText());
+    }
+
+    /**
+     * @return Y coordinate of the frame-time graph, just below the text
+     */
+    int graphY() {
+        return boxBottom + 2;
+    }
+}
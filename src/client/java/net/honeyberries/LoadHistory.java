@@ -0,0 +1,119 @@
+package net.honeyberries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Format of the load time history file and the comparison of the latest results with
+ * earlier launches.
+ * <p>
+ * {@link LoadTimings} owns the history list and file; this class holds the parts that
+ * do not touch the game, one CSV line per result:
+ * <pre>
+ * EpochMs,Event,DurationMs,Mods
+ * 1767225600000,startup,41250,212
+ * </pre>
+ */
+public final class LoadHistory {
+    /**
+     * Startup event name in the history file.
+     */
+    static final String STARTUP = "startup";
+
+    /**
+     * Resource reload event name in the history file.
+     */
+    static final String RELOAD = "reload";
+
+    /**
+     * World join event name in the history file.
+     */
+    static final String JOIN = "join";
+
+    /**
+     * Header line of the history file.
+     */
+    static final String HEADER = "EpochMs,Event,DurationMs,Mods";
+
+    /**
+     * Earlier results of each event the trend is compared with.
+     */
+    private static final int TREND_RUNS = 10;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private LoadHistory() {
+    }
+
+    /**
+     * One history file line.
+     *
+     * @param epochMs Wall-clock time of the result
+     * @param event STARTUP, RELOAD or JOIN
+     * @param durationMs Measured duration in milliseconds
+     * @param mods Number of loaded mods
+     */
+    record Entry(long epochMs, String event, long durationMs, int mods) {
+    }
+
+    /**
+     * Parses one history file line.
+     *
+     * @param line The line
+     * @return The entry, or null for the header and damaged lines
+     */
+    static Entry parse(String line) {
+        String[] fields = line.split(",");
+        if (fields.length != 4 || line.equals(HEADER)) return null;
+        try {
+            return new Entry(Long.parseLong(fields[0]), fields[1], Long.parseLong(fields[2]), Integer.parseInt(fields[3]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Formats one history file line.
+     *
+     * @param entry The result
+     * @return The line, without a line terminator
+     */
+    static String format(Entry entry) {
+        return entry.epochMs() + "," + entry.event() + "," + entry.durationMs() + "," + entry.mods();
+    }
+
+    /**
+     * Describes the latest result of each event against the median of the results before it.
+     *
+     * @param history Results, oldest first
+     * @return One line per event that has results
+     */
+    static List<String> describe(List<Entry> history) {
+        List<String> lines = new ArrayList<>();
+        for (String event : new String[]{STARTUP, RELOAD, JOIN}) {
+            long[] values = history.stream().filter(e -> e.event().equals(event)).mapToLong(Entry::durationMs).toArray();
+            if (values.length == 0) continue;
+            String name = Character.toUpperCase(event.charAt(0)) + event.substring(1);
+            long last = values[values.length - 1];
+            long best = Arrays.stream(values).min().orElse(last);
+            if (values.length == 1) {
+                lines.add(String.format(Locale.ROOT, "%s: %.1f s (first run)", name, last / 1000.0));
+                continue;
+            }
+            long[] earlier = Arrays.copyOfRange(values, Math.max(0, values.length - 1 - TREND_RUNS), values.length - 1);
+            Arrays.sort(earlier);
+            double median = earlier.length % 2 == 1
+                    ? earlier[earlier.length / 2]
+                    : (earlier[earlier.length / 2 - 1] + earlier[earlier.length / 2]) / 2.0;
+            lines.add(String.format(Locale.ROOT, "%s: %.1f s (%+.1f%% vs %.1f s median of the previous %d), best %.1f s over %d runs",
+                    name, last / 1000.0, median > 0 ? (last - median) * 100.0 / median : 0.0,
+                    median / 1000.0, earlier.length, best / 1000.0, values.length));
+        }
+        if (lines.isEmpty()) lines.add("No load times recorded yet; enable Load Times and restart the game");
+        return lines;
+    }
+}
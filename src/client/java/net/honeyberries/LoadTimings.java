@@ -0,0 +1,367 @@
+package net.honeyberries;
+
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.screen.v1.ScreenEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.client.gui.screens.TitleScreen;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Measures how long the game takes to start, reload resources and join a world.
+ * <p>
+ * Milestones:
+ * - Startup: JVM start to the first title screen, split into the time until the common
+ *   initializer ({@link FPSDisplay#initializedAtMs()}), until the client initializer and
+ *   until the title screen
+ * - Reload: a {@code LoadingOverlay} appearing to its reload finishing; the first one is
+ *   the startup resource load
+ * - Join: loading a singleplayer world or connecting to a server, to the first frame that
+ *   renders a chunk section with geometry
+ * <p>
+ * Milestones come from Fabric lifecycle, screen and connection events and from a few
+ * mixins that only record a timestamp. The render thread checks for rendered sections
+ * only between joining and the first rendered chunk.
+ * <p>
+ * While enabled, every result is appended to {@code fpsdisplay/load-history.csv} with the
+ * number of loaded mods, so regressions after a modpack update stand out against the
+ * median of earlier launches ({@link LoadHistory}).
+ */
+public final class LoadTimings {
+    /**
+     * History entries kept; the file is trimmed to this many when it is loaded.
+     */
+    private static final int MAX_HISTORY = 1000;
+
+    /**
+     * Runs the history file reads and writes one at a time and in order, so the history is
+     * loaded before any result of this launch is appended to it.
+     */
+    private static final ExecutorService HISTORY_IO = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "FPSDisplay Load History");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * Guards the history list and the history file.
+     */
+    private static final Object HISTORY_LOCK = new Object();
+
+    /**
+     * Results of earlier and current launches, oldest first. Guarded by HISTORY_LOCK.
+     */
+    private static final List<LoadHistory.Entry> history = new ArrayList<>();
+
+    /**
+     * Whether results are shown and written to the history file.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile boolean enabled = false;
+
+    /**
+     * Whether the render thread should check for the first rendered chunk.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile boolean awaitingChunks = false;
+
+    /**
+     * JVM uptime when the client initializer ran, or -1 before.
+     */
+    private static long clientInitMs = -1;
+
+    /**
+     * Time from JVM start to the title screen in milliseconds, or -1 before it appeared.
+     */
+    private static long startupMs = -1;
+
+    /**
+     * Duration of the last finished resource reload in milliseconds, or -1 before.
+     */
+    private static long reloadMs = -1;
+
+    /**
+     * Duration of the last world join in milliseconds, or -1 before.
+     */
+    private static long joinMs = -1;
+
+    /**
+     * System.nanoTime() when the current join started, or -1 if none is in progress.
+     */
+    private static long joinStartNs = -1;
+
+    /**
+     * System.nanoTime() when the client joined the world during the current join, or -1.
+     */
+    private static long joinedNs = -1;
+
+    /**
+     * Formatter for the HUD line. Guarded by the class lock.
+     */
+    private static final StatsTextFormatter formatter = new StatsTextFormatter();
+
+    /**
+     * HUD line with the latest results.
+     * Volatile so that readers always see a fully constructed string.
+     */
+    private static volatile String text = formatter.formatLoadTimes(-1, -1, -1);
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private LoadTimings() {
+    }
+
+    /**
+     * Records the client initializer milestone, registers the event listeners and
+     * loads the history in the background. Called from the client initializer.
+     */
+    public static void register() {
+        synchronized (LoadTimings.class) {
+            clientInitMs = uptimeMs();
+        }
+        ScreenEvents.AFTER_INIT.register((client, screen, width, height) -> {
+            if (screen instanceof TitleScreen && startupMs < 0) onTitleScreen();
+        });
+        ClientPlayConnectionEvents.INIT.register((handler, client) -> beginJoin(false));
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> onJoined());
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> cancelJoin());
+        HISTORY_IO.execute(LoadTimings::loadHistory);
+    }
+
+    /**
+     * Turns showing and writing the results on or off.
+     * Milestones are always timed, so a result that comes in after enabling is complete.
+     *
+     * @param enable Whether results should be shown and written
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Gets the HUD line.
+     * Safe to call from any thread.
+     *
+     * @return A string in the format "Startup X s | Reload Y s | Last join Z s"
+     */
+    public static String getText() {
+        return text;
+    }
+
+    /**
+     * Starts timing a resource reload. Called when a loading overlay is created.
+     *
+     * @return System.nanoTime() at the start, to pass to {@link #endReload(long)}
+     */
+    public static long beginReload() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Finishes timing a resource reload. May be called from any thread.
+     *
+     * @param startNs Value returned by {@link #beginReload()}
+     */
+    public static synchronized void endReload(long startNs) {
+        reloadMs = (System.nanoTime() - startNs) / 1_000_000L;
+        FPSDisplay.LOGGER.info("Resource reload took {} ms", reloadMs);
+        finish(LoadHistory.RELOAD, reloadMs);
+    }
+
+    /**
+     * Starts timing a world join, unless one is in progress already.
+     * Called when a singleplayer world starts loading or a server connection starts,
+     * and, as a fallback, when the play phase of a connection starts.
+     *
+     * @param restart Whether to restart a join that is already in progress
+     */
+    public static synchronized void beginJoin(boolean restart) {
+        if (!restart && joinStartNs >= 0) return;
+        joinStartNs = System.nanoTime();
+        joinedNs = -1;
+        awaitingChunks = false;
+    }
+
+    /**
+     * @return Whether the render thread should report rendered sections
+     */
+    public static boolean isAwaitingChunks() {
+        return awaitingChunks;
+    }
+
+    /**
+     * Reports the chunk sections rendered in a frame while waiting for the first chunk.
+     * Called on the render thread after the world was rendered.
+     *
+     * @param renderedSections Number of sections with geometry in view
+     */
+    public static synchronized void onWorldRendered(int renderedSections) {
+        if (!awaitingChunks || renderedSections <= 0) return;
+        awaitingChunks = false;
+        long now = System.nanoTime();
+        joinMs = (now - joinStartNs) / 1_000_000L;
+        FPSDisplay.LOGGER.info("Joined world in {} ms ({} ms to join, {} ms to the first rendered chunk)",
+                joinMs, (joinedNs - joinStartNs) / 1_000_000L, (now - joinedNs) / 1_000_000L);
+        joinStartNs = -1;
+        finish(LoadHistory.JOIN, joinMs);
+    }
+
+    /**
+     * Describes the results of this launch against earlier launches, for the
+     * {@code /fpsdisplay loadtimes} command.
+     *
+     * @return One line per measured event
+     */
+    public static List<String> describe() {
+        synchronized (HISTORY_LOCK) {
+            return LoadHistory.describe(history);
+        }
+    }
+
+    /**
+     * Records the startup milestone when the first title screen appears.
+     */
+    private static synchronized void onTitleScreen() {
+        if (startupMs >= 0) return;
+        startupMs = uptimeMs();
+        FPSDisplay.LOGGER.info("Reached the title screen {} ms after JVM start (common init at {} ms, client init at {} ms)",
+                startupMs, FPSDisplay.initializedAtMs(), clientInitMs);
+        finish(LoadHistory.STARTUP, startupMs);
+    }
+
+    /**
+     * Records that the client joined the world and starts waiting for the first chunk.
+     */
+    private static synchronized void onJoined() {
+        if (joinStartNs < 0) joinStartNs = System.nanoTime();
+        joinedNs = System.nanoTime();
+        awaitingChunks = true;
+    }
+
+    /**
+     * Abandons a join that did not reach its first rendered chunk.
+     */
+    private static synchronized void cancelJoin() {
+        joinStartNs = -1;
+        joinedNs = -1;
+        awaitingChunks = false;
+    }
+
+    /**
+     * Updates the HUD line and appends a result to the history if enabled.
+     * Called with the class lock held.
+     *
+     * @param event One of the LoadHistory event names
+     * @param durationMs Measured duration in milliseconds
+     */
+    private static void finish(String event, long durationMs) {
+        text = formatter.formatLoadTimes(startupMs, reloadMs, joinMs);
+        if (!enabled) return;
+        LoadHistory.Entry entry = new LoadHistory.Entry(System.currentTimeMillis(), event, durationMs, FabricLoader.getInstance().getAllMods().size());
+        HISTORY_IO.execute(() -> appendHistory(entry));
+    }
+
+    /**
+     * Reads the history file, trimming it to MAX_HISTORY entries. Runs on HISTORY_IO
+     * before any append.
+     */
+    private static void loadHistory() {
+        Path file = historyFile();
+        synchronized (HISTORY_LOCK) {
+            if (!Files.exists(file)) return;
+            try {
+                List<LoadHistory.Entry> loaded = new ArrayList<>();
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    LoadHistory.Entry entry = LoadHistory.parse(line);
+                    if (entry != null) loaded.add(entry); // Skips the header and damaged lines
+                }
+                history.addAll(loaded);
+                if (history.size() > MAX_HISTORY) {
+                    history.subList(0, history.size() - MAX_HISTORY).clear();
+                    writeHistory(file);
+                }
+            } catch (IOException e) {
+                FPSDisplay.LOGGER.warn("Failed to read FPS Display load history {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Appends one result to the history and its file. Runs on HISTORY_IO.
+     *
+     * @param entry The result
+     */
+    private static void appendHistory(LoadHistory.Entry entry) {
+        Path file = historyFile();
+        synchronized (HISTORY_LOCK) {
+            history.add(entry);
+            try {
+                Files.createDirectories(file.getParent());
+                boolean created = !Files.exists(file);
+                try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    if (created) {
+                        out.write(LoadHistory.HEADER);
+                        out.newLine();
+                    }
+                    writeEntry(out, entry);
+                }
+            } catch (IOException e) {
+                FPSDisplay.LOGGER.warn("Failed to write FPS Display load history {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the history file from the history list. Called with HISTORY_LOCK held.
+     *
+     * @param file The history file
+     * @throws IOException If the file cannot be written
+     */
+    private static void writeHistory(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(LoadHistory.HEADER);
+            out.newLine();
+            for (LoadHistory.Entry entry : history) writeEntry(out, entry);
+        }
+    }
+
+    /**
+     * Writes one history line.
+     *
+     * @param out Destination
+     * @param entry The result
+     * @throws IOException If writing fails
+     */
+    private static void writeEntry(BufferedWriter out, LoadHistory.Entry entry) throws IOException {
+        out.write(LoadHistory.format(entry));
+        out.newLine();
+    }
+
+    /**
+     * @return The history file in the game directory
+     */
+    private static Path historyFile() {
+        return FabricLoader.getInstance().getGameDir().resolve("fpsdisplay/load-history.csv");
+    }
+
+    /**
+     * @return Milliseconds since the JVM started
+     */
+    private static long uptimeMs() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
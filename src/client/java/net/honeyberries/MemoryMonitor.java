@@ -0,0 +1,239 @@
+package net.honeyberries;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Samples allocation rate, heap usage and GC pauses on the {@link MetricsScheduler} thread.
+ * <p>
+ * Each sample reads:
+ * - Bytes allocated by the render thread, from
+ *   {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}
+ * - Used and committed bytes of every heap {@link MemoryPoolMXBean}
+ * - Collection count and time of every pausing {@link GarbageCollectorMXBean}
+ * <p>
+ * Rates and totals are derived from the difference to the previous sample and published
+ * as an immutable {@link MemorySnapshot}. The render thread only reads that snapshot.
+ */
+public final class MemoryMonitor {
+    /**
+     * Time between samples in milliseconds.
+     */
+    private static final long SAMPLE_INTERVAL_MS = 1000;
+
+    /**
+     * Time span the GC pause totals cover in nanoseconds (60 seconds).
+     */
+    private static final long GC_WINDOW_NS = 60_000_000_000L;
+
+    /**
+     * Bytes per megabyte.
+     */
+    private static final double MB = 1024.0 * 1024.0;
+
+    /**
+     * Thread MXBean with allocation counters, or null if the JVM does not provide them.
+     */
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    /**
+     * Heap memory pools.
+     */
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+
+    /**
+     * Collectors whose collection time is stop-the-world pause time.
+     */
+    private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans().stream()
+            .filter(gc -> HitchDetector.isPausing(gc.getName()))
+            .toList();
+
+    /**
+     * Id of the thread whose allocations are measured, or -1 before it is known.
+     */
+    private static volatile long renderThreadId = -1;
+
+    /**
+     * Running sampler task, or null when disabled. Only changed from setEnabled.
+     */
+    private static ScheduledFuture<?> task = null;
+
+    /**
+     * Time of the previous sample, or 0 before the first one. Owned by the metrics thread.
+     */
+    private static long lastSampleNs = 0;
+
+    /**
+     * Render thread allocation counter at the previous sample. Owned by the metrics thread.
+     */
+    private static long lastAllocatedBytes = 0;
+
+    /**
+     * Total collection count at the previous sample. Owned by the metrics thread.
+     */
+    private static long lastGcCount = 0;
+
+    /**
+     * Total collection time at the previous sample. Owned by the metrics thread.
+     */
+    private static long lastGcTimeMs = 0;
+
+    /**
+     * Per-sample GC pause time (ms) over the last minute. Owned by the metrics thread.
+     */
+    private static final SampleWindow gcPauses = new SampleWindow();
+
+    /**
+     * Per-sample GC count over the last minute. Owned by the metrics thread.
+     */
+    private static final SampleWindow gcCounts = new SampleWindow();
+
+    /**
+     * Formatter for the HUD line. Owned by the metrics thread.
+     */
+    private static final StatsTextFormatter formatter = new StatsTextFormatter();
+
+    /**
+     * Latest published metrics, or null before the first sample or when disabled.
+     * Volatile so that readers always see a fully constructed snapshot.
+     */
+    private static volatile MemorySnapshot snapshot = null;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private MemoryMonitor() {
+    }
+
+    /**
+     * Sets the thread whose allocations are measured.
+     * Called once from the render thread during client initialization.
+     *
+     * @param thread The render thread
+     */
+    public static void setRenderThread(Thread thread) {
+        renderThreadId = thread.threadId();
+    }
+
+    /**
+     * Gets the render thread's id for other monitors that sample it.
+     *
+     * @return The render thread's id, or -1 before it is known
+     */
+    static long renderThreadId() {
+        return renderThreadId;
+    }
+
+    /**
+     * Starts or stops sampling to match the configuration.
+     *
+     * @param enabled Whether memory metrics should be collected
+     */
+    public static synchronized void setEnabled(boolean enabled) {
+        if (enabled == (task != null)) return;
+        if (enabled) {
+            lastSampleNs = 0; // Start a fresh baseline; published to the task by scheduling it
+            task = MetricsScheduler.schedule("memory", MemoryMonitor::sample, SAMPLE_INTERVAL_MS);
+        } else {
+            task.cancel(false);
+            task = null;
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Gets the latest memory metrics.
+     * Safe to call from any thread.
+     *
+     * @return The most recent snapshot, or null if sampling is off or has not completed yet
+     */
+    public static MemorySnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Takes one sample and publishes a new snapshot. Runs on the metrics thread.
+     */
+    private static void sample() {
+        long now = System.nanoTime();
+        long allocated = allocatedBytes();
+
+        long heapUsed = 0;
+        long heapCommitted = 0;
+        for (MemoryPoolMXBean pool : HEAP_POOLS) {
+            MemoryUsage usage = pool.getUsage();
+            if (usage == null) continue; // Pool no longer valid
+            heapUsed += usage.getUsed();
+            heapCommitted += usage.getCommitted();
+        }
+
+        long gcCount = 0;
+        long gcTimeMs = 0;
+        for (GarbageCollectorMXBean gc : COLLECTORS) {
+            gcCount += Math.max(0, gc.getCollectionCount()); // -1 when undefined
+            gcTimeMs += Math.max(0, gc.getCollectionTime());
+        }
+
+        if (lastSampleNs == 0) {
+            gcPauses.clear();
+            gcCounts.clear();
+        } else {
+            gcPauses.add(now, gcTimeMs - lastGcTimeMs);
+            gcCounts.add(now, gcCount - lastGcCount);
+        }
+        gcPauses.removeOlderThan(now - GC_WINDOW_NS);
+        gcCounts.removeOlderThan(now - GC_WINDOW_NS);
+
+        double seconds = (now - lastSampleNs) / 1_000_000_000.0;
+        double allocRate = lastSampleNs != 0 && allocated >= 0 && seconds > 0
+                ? (allocated - lastAllocatedBytes) / MB / seconds
+                : 0.0;
+
+        lastSampleNs = now;
+        lastAllocatedBytes = allocated;
+        lastGcCount = gcCount;
+        lastGcTimeMs = gcTimeMs;
+
+        long usedMb = (long) (heapUsed / MB);
+        long committedMb = (long) (heapCommitted / MB);
+        long pauseMs = gcPauses.sum();
+        int pauses = (int) gcCounts.sum();
+        snapshot = new MemorySnapshot(allocRate, usedMb, committedMb, pauseMs, pauses,
+                formatter.formatMemory(allocRate, usedMb, committedMb, pauseMs, pauses));
+    }
+
+    /**
+     * Reads the render thread's allocation counter.
+     *
+     * @return Total bytes allocated by the render thread, or -1 if unavailable
+     */
+    private static long allocatedBytes() {
+        long id = renderThreadId;
+        if (THREADS == null || id < 0) return -1;
+        return THREADS.getThreadAllocatedBytes(id);
+    }
+
+    /**
+     * Gets the HotSpot thread MXBean and makes sure allocation counting is on.
+     *
+     * @return The bean, or null if this JVM does not support per-thread allocation counters
+     */
+    private static com.sun.management.ThreadMXBean threadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        if (!threads.isThreadAllocatedMemoryEnabled()) threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
@@ -0,0 +1,22 @@
+package net.honeyberries;
+
+/**
+ * Immutable view of the memory metrics at one point in time.
+ * Published by {@link MemoryMonitor}; readers on any thread always see a consistent set of values.
+ *
+ * @param allocMbPerSec Render thread allocation rate in MB per second
+ * @param heapUsedMb Heap in use across all heap memory pools, in MB
+ * @param heapCommittedMb Heap committed across all heap memory pools, in MB
+ * @param gcPauseMs Total GC pause time over the last minute, in milliseconds
+ * @param gcCount Number of GC pauses over the last minute
+ * @param line Pre-formatted HUD line
+ */
+public record MemorySnapshot(
+        double allocMbPerSec,
+        long heapUsedMb,
+        long heapCommittedMb,
+        long gcPauseMs,
+        int gcCount,
+        String line
+) {
+}
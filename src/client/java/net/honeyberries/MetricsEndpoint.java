@@ -0,0 +1,286 @@
+package net.honeyberries;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optional OpenMetrics (Prometheus) scrape endpoint for unattended runs.
+ * <p>
+ * Serves {@code http://127.0.0.1:<port>/metrics} from the JDK's built-in
+ * {@link HttpServer}. The server only binds the loopback address, so other machines
+ * cannot reach it, and handles requests on its own daemon thread at minimum priority.
+ * <p>
+ * A scrape only reads snapshots that {@link FPSStats} has already published, so it never
+ * touches the frame recorder or waits for the statistics thread. The text is assembled
+ * in a builder and byte buffer that each server reuses for its own requests; apart from
+ * the server's own per-request objects, a scrape allocates almost nothing.
+ * <p>
+ * Exposed metric families (each window is labelled "5s", "1s", "60s" or "session"):
+ * - fpsdisplay_fps: average FPS
+ * - fpsdisplay_low_fps: 1% and 0.1% low FPS
+ * - fpsdisplay_frame_time_seconds: p50, p95, p99 and p99.9 frame time
+ * - fpsdisplay_window_frames: frames in the window
+ * - fpsdisplay_frames_total: frames recorded since the game started
+ * - fpsdisplay_frames_lost_total: frames dropped because the statistics thread fell behind
+ */
+public final class MetricsEndpoint {
+    /**
+     * Path the metrics are served at.
+     */
+    private static final String PATH = "/metrics";
+
+    /**
+     * Content type of the OpenMetrics text format.
+     */
+    private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    /**
+     * Window labels, in the order of the snapshots passed to the writers.
+     */
+    private static final String[] WINDOWS = {"5s", "1s", "60s", "session"};
+
+    /**
+     * Values of the percentile label for p50, p95, p99 and p99.9.
+     */
+    private static final String[] PERCENTILES = {"50", "95", "99", "99.9"};
+
+    /**
+     * The running server, or null when disabled. Only changed from configure/stop.
+     */
+    private static HttpServer server = null;
+
+    /**
+     * Executor the server handles requests on, or null when disabled.
+     */
+    private static ExecutorService executor = null;
+
+    /**
+     * Port the running server is bound to.
+     */
+    private static int boundPort = -1;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private MetricsEndpoint() {
+    }
+
+    /**
+     * Starts, stops or moves the endpoint to match the configuration.
+     * A port that cannot be bound is logged and leaves the endpoint off.
+     *
+     * @param enable Whether the endpoint should run
+     * @param port Loopback port to listen on
+     */
+    public static synchronized void configure(boolean enable, int port) {
+        if (enable && server != null && port == boundPort) return;
+        stop();
+        if (!enable) return;
+
+        try {
+            HttpServer created = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            created.createContext(PATH, new Scraper()); // Fresh buffers, as the old server may still be answering
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "FPSDisplay Metrics HTTP");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            created.setExecutor(executor);
+            created.start();
+            server = created;
+            boundPort = port;
+            FPSDisplay.LOGGER.info("FPS Display metrics endpoint listening on http://127.0.0.1:{}{}", port, PATH);
+        } catch (IOException e) {
+            FPSDisplay.LOGGER.error("Failed to start FPS Display metrics endpoint on port {}", port, e);
+            stop();
+        }
+    }
+
+    /**
+     * Stops the endpoint if it is running. Called when the client shuts down.
+     */
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        boundPort = -1;
+    }
+
+    /**
+     * Selects the snapshot of a window by its index in WINDOWS.
+     *
+     * @param w Window index
+     * @param main 5 second window
+     * @param second 1 second window
+     * @param minute 60 second window
+     * @param session Session window
+     * @return The snapshot of that window
+     */
+    private static StatsSnapshot pick(int w, StatsSnapshot main, StatsSnapshot second, StatsSnapshot minute, StatsSnapshot session) {
+        return switch (w) {
+            case 0 -> main;
+            case 1 -> second;
+            case 2 -> minute;
+            default -> session;
+        };
+    }
+
+    /**
+     * Writes the metadata lines of a metric family.
+     *
+     * @param out Text to append to
+     * @param name Family name
+     * @param type OpenMetrics type
+     * @param unit Unit, or null for none
+     * @param help Help text
+     */
+    private static void family(StringBuilder out, String name, String type, String unit, String help) {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        if (unit != null) out.append("# UNIT ").append(name).append(' ').append(unit).append('\n');
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    }
+
+    /**
+     * Writes one sample line.
+     *
+     * @param out Text to append to
+     * @param name Metric name
+     * @param window Value of the window label
+     * @param label Name of a second label, or null for none
+     * @param labelValue Value of the second label
+     * @param value Sample value
+     */
+    private static void sample(StringBuilder out, String name, String window, String label, String labelValue, double value) {
+        out.append(name).append("{window=\"").append(window).append('"');
+        if (label != null) out.append(',').append(label).append("=\"").append(labelValue).append('"');
+        out.append("} ");
+        // OpenMetrics spells the non-finite values differently from Double.toString
+        if (Double.isNaN(value)) out.append("NaN");
+        else if (value == Double.POSITIVE_INFINITY) out.append("+Inf");
+        else if (value == Double.NEGATIVE_INFINITY) out.append("-Inf");
+        else out.append(value);
+        out.append('\n');
+    }
+
+    /**
+     * Request handler of one server, owning the buffers its scrapes are assembled in.
+     * A stopped server's thread may still be finishing a request when its replacement
+     * starts, so the buffers are never shared between servers.
+     */
+    private static final class Scraper implements HttpHandler {
+        /**
+         * Reused text buffer. Owned by this server's thread.
+         */
+        private final StringBuilder text = new StringBuilder(4096);
+
+        /**
+         * Reused response buffer. Owned by this server's thread.
+         */
+        private byte[] body = new byte[4096];
+
+        /**
+         * Answers one request on the server thread.
+         *
+         * @param exchange The request
+         * @throws IOException If the response cannot be sent
+         */
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String method = exchange.getRequestMethod();
+                boolean head = "HEAD".equals(method);
+                if (!head && !"GET".equals(method)) {
+                    exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+
+                int length = render();
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                if (head) {
+                    exchange.sendResponseHeaders(200, -1);
+                    return;
+                }
+                exchange.sendResponseHeaders(200, length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body, 0, length);
+                }
+            } finally {
+                exchange.close();
+            }
+        }
+
+        /**
+         * Writes the current metrics into the response buffer.
+         *
+         * @return Number of bytes written
+         */
+        private int render() {
+            MultiWindowSnapshot multi = FPSStats.multiWindow();
+            StatsSnapshot main = FPSStats.snapshot();
+            StatsSnapshot second = multi.oneSecond();
+            StatsSnapshot minute = multi.oneMinute();
+            StatsSnapshot session = multi.session();
+
+            StringBuilder out = text;
+            out.setLength(0);
+
+            family(out, "fpsdisplay_fps", "gauge", null, "Average frames per second.");
+            for (int w = 0; w < WINDOWS.length; w++) {
+                StatsSnapshot s = pick(w, main, second, minute, session);
+                sample(out, "fpsdisplay_fps", WINDOWS[w], null, null, s.avgFps());
+            }
+
+            family(out, "fpsdisplay_low_fps", "gauge", null, "Average frames per second of the slowest 1% and 0.1% of frames.");
+            for (int w = 0; w < WINDOWS.length; w++) {
+                StatsSnapshot s = pick(w, main, second, minute, session);
+                sample(out, "fpsdisplay_low_fps", WINDOWS[w], "percent", "1", s.onePercentLowFps());
+                sample(out, "fpsdisplay_low_fps", WINDOWS[w], "percent", "0.1", s.pointOnePercentLowFps());
+            }
+
+            family(out, "fpsdisplay_frame_time_seconds", "gauge", "seconds", "Frame time percentiles.");
+            for (int w = 0; w < WINDOWS.length; w++) {
+                StatsSnapshot s = pick(w, main, second, minute, session);
+                sample(out, "fpsdisplay_frame_time_seconds", WINDOWS[w], "percentile", PERCENTILES[0], s.p50FrameTimeMs() / 1000.0);
+                sample(out, "fpsdisplay_frame_time_seconds", WINDOWS[w], "percentile", PERCENTILES[1], s.p95FrameTimeMs() / 1000.0);
+                sample(out, "fpsdisplay_frame_time_seconds", WINDOWS[w], "percentile", PERCENTILES[2], s.p99FrameTimeMs() / 1000.0);
+                sample(out, "fpsdisplay_frame_time_seconds", WINDOWS[w], "percentile", PERCENTILES[3], s.p999FrameTimeMs() / 1000.0);
+            }
+
+            family(out, "fpsdisplay_window_frames", "gauge", null, "Frames in the window.");
+            for (int w = 0; w < WINDOWS.length; w++) {
+                sample(out, "fpsdisplay_window_frames", WINDOWS[w], null, null, pick(w, main, second, minute, session).frameCount());
+            }
+
+            family(out, "fpsdisplay_frames", "counter", null, "Frames recorded since the game started.");
+            out.append("fpsdisplay_frames_total ").append(FPSStats.framesTotal()).append('\n');
+
+            family(out, "fpsdisplay_frames_lost", "counter", null, "Frames dropped because the statistics thread fell behind.");
+            out.append("fpsdisplay_frames_lost_total ").append(FPSStats.framesLost()).append('\n');
+
+            out.append("# EOF\n");
+
+            // The text is ASCII, so each char is one byte
+            int length = out.length();
+            if (body.length < length) body = Arrays.copyOf(body, Integer.highestOneBit(length) << 1);
+            for (int i = 0; i < length; i++) body[i] = (byte) out.charAt(i);
+            return length;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package net.honeyberries;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared low-frequency scheduler for background metric samplers.
+ * <p>
+ * All samplers run on one daemon thread at minimum priority, so sampling never competes
+ * with the render thread for a core. The thread is created on first use and stopped
+ * when the client shuts down.
+ */
+public final class MetricsScheduler {
+    /**
+     * The scheduler, or null before first use and after shutdown.
+     */
+    private static ScheduledExecutorService executor = null;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private MetricsScheduler() {
+    }
+
+    /**
+     * Runs a task periodically on the metrics thread.
+     * Exceptions are logged instead of silently cancelling the task.
+     *
+     * @param name Name used in log messages
+     * @param task Task to run
+     * @param periodMs Time between runs in milliseconds
+     * @return Handle to cancel the task with
+     */
+    public static synchronized ScheduledFuture<?> schedule(String name, Runnable task, long periodMs) {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "FPSDisplay Metrics");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+        return executor.scheduleAtFixedRate(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                FPSDisplay.LOGGER.error("FPS Display {} sampler failed", name, e);
+            }
+        }, 0, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the metrics thread. Called when the client shuts down.
+     */
+    public static synchronized void shutdown() {
+        if (executor == null) return;
+        executor.shutdownNow();
+        executor = null;
+    }
+}
@@ -0,0 +1,39 @@
+package net.honeyberries;
+
+/**
+ * Immutable statistics for the windows kept by {@link MultiWindowStats}, with their HUD lines.
+ * Published by {@link FPSStats} each time the statistics are recalculated.
+ *
+ * @param oneSecond Statistics over the last completed second
+ * @param oneMinute Statistics over the last 60 completed seconds
+ * @param session Statistics over every completed second of the session
+ * @param oneSecondLine HUD line for the 1 second window, e.g. "1s: 144 FPS | 1% Low: 95 | 0.1% Low: 72"
+ * @param oneMinuteLine HUD line for the 60 second window
+ * @param sessionLine HUD line for the session
+ */
+public record MultiWindowSnapshot(
+        StatsSnapshot oneSecond,
+        StatsSnapshot oneMinute,
+        StatsSnapshot session,
+        String oneSecondLine,
+        String oneMinuteLine,
+        String sessionLine
+) {
+    /**
+     * Snapshot used before the statistics have been calculated for the first time.
+     */
+    public static final MultiWindowSnapshot EMPTY = empty();
+
+    /**
+     * Builds the empty snapshot with formatted placeholder lines.
+     *
+     * @return A snapshot with no frames in any window
+     */
+    private static MultiWindowSnapshot empty() {
+        StatsTextFormatter formatter = new StatsTextFormatter();
+        return new MultiWindowSnapshot(StatsSnapshot.EMPTY, StatsSnapshot.EMPTY, StatsSnapshot.EMPTY,
+                formatter.formatWindow("1s", StatsSnapshot.EMPTY),
+                formatter.formatWindow("60s", StatsSnapshot.EMPTY),
+                formatter.formatWindow("Session", StatsSnapshot.EMPTY));
+    }
+}
@@ -0,0 +1,195 @@
+package net.honeyberries;
+
+/**
+ * Frame statistics over several time windows at once (1 second, 60 seconds and the
+ * whole session), built from one incremental, two-level aggregation.
+ * <p>
+ * Frames are recorded into a histogram for the current second. When the second ends
+ * its non-empty buckets are moved into a compact sparse slot in a 60-slot ring, and the
+ * slot is added to one rolling histogram per window. Slots that fall out of a window
+ * are subtracted again, and the session histogram only ever adds. Every frame therefore
+ * costs one O(1) record, every second costs O(buckets used), and no window re-scans
+ * raw frames.
+ * <p>
+ * Seconds are counted from the first frame recorded, so a window always holds whole
+ * seconds; the 1 second window is the last completed second. Reading a window walks
+ * its histogram once, with the same error bound as {@link FPSStats} histogram mode.
+ * <p>
+ * This class is not thread-safe; it is owned by the statistics consumer.
+ */
+public final class MultiWindowStats {
+    /**
+     * Length of one aggregation slot in nanoseconds (1 second).
+     */
+    private static final long SECOND_NS = 1_000_000_000L;
+
+    /**
+     * Number of completed seconds kept; the longest rolling window.
+     */
+    private static final int SLOTS = 60;
+
+    /**
+     * Histogram of the frames in the current, unfinished second.
+     */
+    private final FrameTimeHistogram current;
+
+    /**
+     * Last completed second.
+     */
+    private final FrameTimeHistogram oneSecond;
+
+    /**
+     * Last 60 completed seconds.
+     */
+    private final FrameTimeHistogram oneMinute;
+
+    /**
+     * Every completed second since the session started.
+     */
+    private final FrameTimeHistogram session;
+
+    /**
+     * Completed seconds as sparse buckets, indexed by second number modulo SLOTS.
+     */
+    private final Slot[] slots = new Slot[SLOTS];
+
+    /**
+     * Timestamp that second 0 starts at, or -1 before the first frame.
+     */
+    private long origin = -1;
+
+    /**
+     * Number of the current, unfinished second.
+     */
+    private long currentSecond = 0;
+
+    /**
+     * Creates empty windows.
+     *
+     * @param significantDigits Precision of every histogram (clamped to 1-3)
+     */
+    public MultiWindowStats(int significantDigits) {
+        current = new FrameTimeHistogram(significantDigits);
+        oneSecond = new FrameTimeHistogram(significantDigits);
+        oneMinute = new FrameTimeHistogram(significantDigits);
+        session = new FrameTimeHistogram(significantDigits);
+        for (int i = 0; i < SLOTS; i++) slots[i] = new Slot();
+    }
+
+    /**
+     * @return The number of significant digits the histograms were built with
+     */
+    public int getSignificantDigits() {
+        return current.getSignificantDigits();
+    }
+
+    /**
+     * Records one frame.
+     *
+     * @param t Timestamp of the end of the frame in nanoseconds; must not be older than the previous one
+     * @param durationNs Frame duration in nanoseconds
+     */
+    public void add(long t, long durationNs) {
+        if (origin < 0) origin = t;
+        long second = (t - origin) / SECOND_NS;
+        if (second > currentSecond) {
+            // Close the current second, then any empty seconds in a gap (at most a full ring)
+            long skipped = Math.min(second - currentSecond, SLOTS + 1);
+            for (long i = 0; i < skipped; i++) closeSecond();
+            currentSecond = second;
+        }
+        current.record(durationNs);
+    }
+
+    /**
+     * Reads the last completed second.
+     *
+     * @param at Time to stamp the snapshot with
+     * @return Statistics for the window
+     */
+    public StatsSnapshot oneSecond(long at) {
+        return FrameStats.histogramSnapshot(oneSecond, at);
+    }
+
+    /**
+     * Reads the last 60 completed seconds.
+     *
+     * @param at Time to stamp the snapshot with
+     * @return Statistics for the window
+     */
+    public StatsSnapshot oneMinute(long at) {
+        return FrameStats.histogramSnapshot(oneMinute, at);
+    }
+
+    /**
+     * Reads every completed second since the first frame.
+     *
+     * @param at Time to stamp the snapshot with
+     * @return Statistics for the window
+     */
+    public StatsSnapshot session(long at) {
+        return FrameStats.histogramSnapshot(session, at);
+    }
+
+    /**
+     * Moves the current second into the ring and rolls every window forward by one second.
+     */
+    private void closeSecond() {
+        Slot previous = slots[(int) ((currentSecond - 1 + SLOTS) % SLOTS)];
+        if (currentSecond > 0) {
+            oneSecond.removeBuckets(previous.indices, previous.counts, previous.size, previous.sum);
+        }
+
+        // The slot being overwritten is the second that leaves the 60 second window
+        Slot slot = slots[(int) (currentSecond % SLOTS)];
+        if (currentSecond >= SLOTS) {
+            oneMinute.removeBuckets(slot.indices, slot.counts, slot.size, slot.sum);
+        }
+
+        slot.fill(current);
+        oneSecond.addBuckets(slot.indices, slot.counts, slot.size, slot.sum);
+        oneMinute.addBuckets(slot.indices, slot.counts, slot.size, slot.sum);
+        session.addBuckets(slot.indices, slot.counts, slot.size, slot.sum);
+        currentSecond++;
+    }
+
+    /**
+     * One completed second, stored as its non-empty histogram buckets.
+     */
+    private static final class Slot {
+        /**
+         * Bucket indices. Grown as needed.
+         */
+        private int[] indices = new int[64];
+
+        /**
+         * Count of each bucket, parallel to indices.
+         */
+        private int[] counts = new int[64];
+
+        /**
+         * Number of buckets in use.
+         */
+        private int size = 0;
+
+        /**
+         * Exact sum of the second's frame durations in nanoseconds.
+         */
+        private long sum = 0;
+
+        /**
+         * Replaces the contents with a histogram's buckets and empties the histogram.
+         *
+         * @param from Histogram of the second that just ended
+         */
+        private void fill(FrameTimeHistogram from) {
+            int needed = from.getTotalCount();
+            if (indices.length < needed) {
+                indices = new int[Integer.highestOneBit(needed) << 1];
+                counts = new int[indices.length];
+            }
+            sum = from.getTotalSum();
+            size = from.drainBuckets(indices, counts);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package net.honeyberries;
+
+/**
+ * Immutable view of the network metrics at one point in time.
+ * Published by {@link NetworkStats}; readers on any thread always see a consistent set of values.
+ *
+ * @param pingMs Average round-trip time over the ping window in milliseconds, or -1 without samples
+ * @param jitterMs Average change between consecutive round-trip times in milliseconds
+ * @param packetsInPerSec Packets received per second
+ * @param packetsOutPerSec Packets sent per second
+ * @param bytesInPerSec Bytes received per second, as read from the socket
+ * @param bytesOutPerSec Bytes sent per second, as written to the socket
+ * @param line Pre-formatted HUD line
+ */
+public record NetworkSnapshot(
+        double pingMs,
+        double jitterMs,
+        double packetsInPerSec,
+        double packetsOutPerSec,
+        double bytesInPerSec,
+        double bytesOutPerSec,
+        String line
+) {
+}
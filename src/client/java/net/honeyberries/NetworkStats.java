@@ -0,0 +1,289 @@
+package net.honeyberries;
+
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientPacketListener;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.ping.ClientboundPongResponsePacket;
+import net.minecraft.network.protocol.ping.ServerboundPingRequestPacket;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Network latency and throughput of the client's connection to the server.
+ * <p>
+ * The connection's Netty event loop and the threads that send packets only increment
+ * striped {@link LongAdder} counters, so they never contend with each other or with the
+ * render thread:
+ * - Packets received and sent, counted by a mixin on the connection
+ * - Bytes read from and written to the socket, counted by {@link TrafficCounter}
+ * - Round-trip times, from the pong answers to a ping sent once per PING_INTERVAL_MS.
+ *   The pings are tagged, and their pongs never reach the client's packet listener,
+ *   so they do not show up in vanilla's ping chart.
+ * <p>
+ * The statistics consumer calls {@link #aggregate()} after every {@link FPSStats}
+ * update. It turns the growth of each counter since the last call into rolling rates
+ * and publishes them as an immutable {@link NetworkSnapshot}.
+ */
+public final class NetworkStats {
+    /**
+     * Time span the packet and byte rates cover in nanoseconds (5 seconds, like the FPS window).
+     */
+    private static final long RATE_WINDOW_NS = 5_000_000_000L;
+
+    /**
+     * Time span the ping average and jitter cover in nanoseconds (10 seconds).
+     */
+    private static final long PING_WINDOW_NS = 10_000_000_000L;
+
+    /**
+     * Time between pings in milliseconds.
+     */
+    private static final long PING_INTERVAL_MS = 1000;
+
+    /**
+     * Bit set in the time of our own pings. Vanilla pings carry {@link Util#getMillis()},
+     * which stays positive, so the sign bit tells the pongs apart.
+     */
+    private static final long PING_TAG = Long.MIN_VALUE;
+
+    /**
+     * Packets received.
+     */
+    private static final LongAdder packetsIn = new LongAdder();
+
+    /**
+     * Packets sent.
+     */
+    private static final LongAdder packetsOut = new LongAdder();
+
+    /**
+     * Bytes read from the socket.
+     */
+    private static final LongAdder bytesIn = new LongAdder();
+
+    /**
+     * Bytes written to the socket.
+     */
+    private static final LongAdder bytesOut = new LongAdder();
+
+    /**
+     * Sum of all round-trip times in milliseconds.
+     */
+    private static final LongAdder pingSum = new LongAdder();
+
+    /**
+     * Number of round-trip times measured.
+     */
+    private static final LongAdder pingCount = new LongAdder();
+
+    /**
+     * Sum of the differences between consecutive round-trip times in milliseconds.
+     * n round-trip times have n - 1 differences.
+     */
+    private static final LongAdder jitterSum = new LongAdder();
+
+    /**
+     * Previous round-trip time in milliseconds, or -1 before the first.
+     * Only touched by the connection's event loop.
+     */
+    private static long lastPingMs = -1;
+
+    /**
+     * Whether the counters are updated.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile boolean enabled = false;
+
+    /**
+     * Set when the aggregation should start over from the current counter values.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile boolean restart = true;
+
+    /**
+     * Running ping task, or null when disabled. Only changed from setEnabled.
+     */
+    private static ScheduledFuture<?> pinger = null;
+
+    /**
+     * Counter values at the previous aggregation, in the order of the windows. Owned by the consumer.
+     */
+    private static final long[] last = new long[7];
+
+    /**
+     * Counter values at this aggregation, in the order of the windows. Owned by the consumer.
+     */
+    private static final long[] current = new long[7];
+
+    /**
+     * Packets and bytes per second in and out, in the order of the windows. Owned by the consumer.
+     */
+    private static final double[] rates = new double[4];
+
+    /**
+     * Growth of each counter per aggregation, in the order of last. Owned by the consumer.
+     */
+    private static final SampleWindow[] growth = new SampleWindow[7];
+
+    /**
+     * Milliseconds covered by each aggregation in the rate window. Owned by the consumer.
+     */
+    private static final SampleWindow rateElapsed = new SampleWindow();
+
+    /**
+     * Time of the previous aggregation. Owned by the consumer.
+     */
+    private static long lastAggregateNs = 0;
+
+    /**
+     * Formatter for the HUD line. Owned by the consumer.
+     */
+    private static final StatsTextFormatter formatter = new StatsTextFormatter();
+
+    /**
+     * Latest published metrics, or null when disabled.
+     * Volatile so that readers always see a fully constructed snapshot.
+     */
+    private static volatile NetworkSnapshot snapshot = null;
+
+    static {
+        for (int i = 0; i < growth.length; i++) growth[i] = new SampleWindow();
+    }
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private NetworkStats() {
+    }
+
+    /**
+     * Starts or stops collecting to match the configuration.
+     *
+     * @param enable Whether network metrics should be collected
+     */
+    public static synchronized void setEnabled(boolean enable) {
+        if (enable == enabled) return;
+        enabled = enable;
+        if (enable) {
+            restart = true;
+            pinger = MetricsScheduler.schedule("ping", NetworkStats::ping, PING_INTERVAL_MS);
+        } else {
+            pinger.cancel(false);
+            pinger = null;
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Gets the latest network metrics.
+     * Safe to call from any thread.
+     *
+     * @return The most recent snapshot, or null if collection is off
+     */
+    public static NetworkSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Counts a packet received by the client. Called on the connection's event loop.
+     *
+     * @param packet The packet
+     * @return True for the pong to one of our own pings, which should not be handled further
+     */
+    public static boolean onPacketIn(Packet<?> packet) {
+        long sentMs = packet instanceof ClientboundPongResponsePacket pong && (pong.time() & PING_TAG) != 0
+                ? pong.time() & ~PING_TAG : -1;
+        boolean ours = sentMs >= 0;
+        if (!enabled) return ours; // Pongs to pings sent before disabling are still swallowed
+        packetsIn.increment();
+        if (ours) {
+            long ping = Math.max(0, Util.getMillis() - sentMs);
+            pingSum.add(ping);
+            pingCount.increment();
+            if (lastPingMs >= 0) jitterSum.add(Math.abs(ping - lastPingMs));
+            lastPingMs = ping;
+        }
+        return ours;
+    }
+
+    /**
+     * Counts a packet sent by the client. Called on whichever thread sends it.
+     */
+    public static void onPacketOut() {
+        if (enabled) packetsOut.increment();
+    }
+
+    /**
+     * Counts bytes read from the socket. Called on the connection's event loop.
+     *
+     * @param bytes Number of bytes
+     */
+    static void onBytesIn(int bytes) {
+        if (enabled) bytesIn.add(bytes);
+    }
+
+    /**
+     * Counts bytes written to the socket. Called on the connection's event loop.
+     *
+     * @param bytes Number of bytes
+     */
+    static void onBytesOut(int bytes) {
+        if (enabled) bytesOut.add(bytes);
+    }
+
+    /**
+     * Rolls the counters into the windows and publishes a new snapshot.
+     * Called by the statistics consumer after each statistics update.
+     */
+    static void aggregate() {
+        if (!enabled) return;
+        long now = System.nanoTime();
+        current[0] = packetsIn.sum();
+        current[1] = packetsOut.sum();
+        current[2] = bytesIn.sum();
+        current[3] = bytesOut.sum();
+        current[4] = pingSum.sum();
+        current[5] = pingCount.sum();
+        current[6] = jitterSum.sum();
+
+        if (restart) {
+            restart = false;
+            for (SampleWindow window : growth) window.clear();
+            rateElapsed.clear();
+        } else {
+            for (int i = 0; i < current.length; i++) growth[i].add(now, current[i] - last[i]);
+            rateElapsed.add(now, (now - lastAggregateNs) / 1_000_000L);
+        }
+        System.arraycopy(current, 0, last, 0, current.length);
+        lastAggregateNs = now;
+
+        for (int i = 0; i < 4; i++) growth[i].removeOlderThan(now - RATE_WINDOW_NS);
+        rateElapsed.removeOlderThan(now - RATE_WINDOW_NS);
+        for (int i = 4; i < growth.length; i++) growth[i].removeOlderThan(now - PING_WINDOW_NS);
+
+        double seconds = rateElapsed.sum() / 1000.0;
+        for (int i = 0; i < 4; i++) rates[i] = seconds > 0 ? growth[i].sum() / seconds : 0.0;
+
+        long pings = growth[5].sum();
+        double pingMs = pings > 0 ? (double) growth[4].sum() / pings : -1;
+        double jitterMs = pings > 1 ? (double) growth[6].sum() / (pings - 1) : 0.0;
+
+        snapshot = new NetworkSnapshot(pingMs, jitterMs, rates[0], rates[1], rates[2], rates[3],
+                formatter.formatNetwork(pingMs, jitterMs, rates[0], rates[2], rates[1], rates[3]));
+    }
+
+    /**
+     * Sends a tagged ping to the server if connected. Runs on the metrics thread and hands
+     * the send to the client thread, which owns the connection.
+     */
+    private static void ping() {
+        Minecraft client = Minecraft.getInstance();
+        client.execute(() -> {
+            ClientPacketListener connection = client.getConnection();
+            if (connection != null) connection.send(new ServerboundPingRequestPacket(Util.getMillis() | PING_TAG));
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package net.honeyberries;
+
+/**
+ * Immutable frame pacing statistics for the rolling window, with their HUD line.
+ * Published by {@link FPSStats} each time the statistics are recalculated while the
+ * pacing line is enabled.
+ * <p>
+ * Averages and lows hide uneven pacing: alternating 5 ms and 15 ms frames average
+ * 100 FPS but feel worse than a steady 10 ms. These values describe that unevenness.
+ *
+ * @param stdDevMs Standard deviation of the frame times in milliseconds
+ * @param meanDeltaMs Mean absolute change between consecutive frame times in milliseconds
+ * @param stutterPercent Share of the window's time (0-100) that stutter frames took beyond
+ *                       the recent average; a stutter frame is more than twice that average
+ * @param missedRefreshes Number of display refresh intervals missed by frames that spanned more than one
+ * @param refreshRate Monitor refresh rate in Hz the misses were counted against, or 0 if unknown
+ * @param line HUD line, e.g. "Pacing: SD 1.2 ms | Jitter 0.8 ms | Stutter 0.4% | Missed 3 @ 144 Hz"
+ */
+public record PacingSnapshot(
+        double stdDevMs,
+        double meanDeltaMs,
+        double stutterPercent,
+        int missedRefreshes,
+        int refreshRate,
+        String line
+) {
+    /**
+     * Snapshot used before the pacing has been calculated for the first time.
+     */
+    public static final PacingSnapshot EMPTY = new PacingSnapshot(0, 0, 0, 0, 0,
+            new StatsTextFormatter().formatPacing(0, 0, 0, 0, 0));
+}
@@ -0,0 +1,14 @@
+package net.honeyberries;
+
+/**
+ * Immutable per-phase frame time breakdown over the rolling window.
+ * Published by {@link PhaseTimings}; the arrays are indexed by the PhaseTimings phase
+ * constants and must not be modified.
+ *
+ * @param avgMs Average time per frame spent in each phase, in milliseconds
+ * @param maxMs Longest time a single frame spent in each phase, in milliseconds
+ * @param avgLine Pre-formatted HUD line with the averages
+ * @param maxLine Pre-formatted HUD line with the maxima
+ */
+public record PhaseSnapshot(double[] avgMs, double[] maxMs, String avgLine, String maxLine) {
+}
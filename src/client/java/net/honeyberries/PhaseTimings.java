@@ -0,0 +1,196 @@
+package net.honeyberries;
+
+import java.util.Arrays;
+
+/**
+ * Per-phase frame time breakdown collected by render-loop mixins.
+ * <p>
+ * Mixins call {@link #begin(int)} and {@link #end(int)} around the main phases of a frame:
+ * - TICK: client tick ({@code Minecraft.tick})
+ * - WORLD: level rendering ({@code LevelRenderer.renderLevel})
+ * - GUI: HUD and screen building and drawing ({@code Gui.render}, {@code GuiRenderer.render})
+ * - SWAP: buffer swap and vsync wait ({@code Window.updateDisplay})
+ * - OTHER: the rest of the frame
+ * <p>
+ * {@link #endFrame()} runs at the end of every {@code Minecraft.runTick} and feeds the
+ * per-frame totals into rolling windows with the same 5 second window logic as
+ * {@link FPSStats}.
+ * <p>
+ * Whether timing is on is decided once, when this class is initialized, and stored in
+ * the static final ENABLED flag. When it is off every hook returns on its first
+ * instruction and the JIT folds the check away, so the mixins can stay installed in
+ * production. Changing the option therefore requires a restart.
+ * <p>
+ * All methods except {@link #snapshot()} must only be called from the render thread.
+ */
+public final class PhaseTimings {
+    /**
+     * Whether phase timing is active for this game session.
+     */
+    public static final boolean ENABLED = FPSConfig.INSTANCE.enablePhaseTimings;
+
+    /**
+     * Client tick phase.
+     */
+    public static final int TICK = 0;
+
+    /**
+     * World rendering phase.
+     */
+    public static final int WORLD = 1;
+
+    /**
+     * GUI building and drawing phase.
+     */
+    public static final int GUI = 2;
+
+    /**
+     * Buffer swap and vsync wait phase.
+     */
+    public static final int SWAP = 3;
+
+    /**
+     * Time not covered by any instrumented phase.
+     */
+    public static final int OTHER = 4;
+
+    /**
+     * Number of phases reported, including OTHER.
+     */
+    public static final int PHASES = 5;
+
+    /**
+     * Display name of each phase.
+     */
+    private static final String[] NAMES = {"Tick", "World", "GUI", "Swap", "Other"};
+
+    /**
+     * Rolling window size in nanoseconds (5 seconds), matching FPSStats.
+     */
+    private static final long WINDOW_NS = 5_000_000_000L;
+
+    /**
+     * How often the published snapshot is refreshed in nanoseconds (0.5 seconds).
+     */
+    private static final long UPDATE_INTERVAL_NS = 500_000_000L;
+
+    /**
+     * Start time of the phase currently running, per instrumented phase.
+     */
+    private static final long[] started = new long[OTHER];
+
+    /**
+     * Time accumulated per instrumented phase during the current frame.
+     * A phase can run more than once per frame (e.g. several client ticks).
+     */
+    private static final long[] accumulated = new long[OTHER];
+
+    /**
+     * Rolling per-frame durations, one window per phase.
+     */
+    private static final SampleWindow[] windows = new SampleWindow[PHASES];
+
+    static {
+        for (int i = 0; i < PHASES; i++) windows[i] = new SampleWindow();
+    }
+
+    /**
+     * Formatter for the HUD lines. Owned by the render thread.
+     */
+    private static final StatsTextFormatter formatter = new StatsTextFormatter();
+
+    /**
+     * End time of the previous frame, or 0 before the first frame.
+     */
+    private static long lastFrameEnd = 0;
+
+    /**
+     * Last time the snapshot was published (in nanoseconds).
+     */
+    private static long lastUpdateTime = 0;
+
+    /**
+     * Latest published breakdown, or null before the first one.
+     * Volatile so that readers always see a fully constructed snapshot.
+     */
+    private static volatile PhaseSnapshot snapshot = null;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private PhaseTimings() {
+    }
+
+    /**
+     * Marks the start of a phase.
+     *
+     * @param phase One of TICK, WORLD, GUI or SWAP
+     */
+    public static void begin(int phase) {
+        if (!ENABLED) return;
+        started[phase] = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of a phase started with {@link #begin(int)}.
+     *
+     * @param phase One of TICK, WORLD, GUI or SWAP
+     */
+    public static void end(int phase) {
+        if (!ENABLED) return;
+        accumulated[phase] += System.nanoTime() - started[phase];
+    }
+
+    /**
+     * Closes the current frame: records each phase's total for the frame and
+     * republishes the snapshot every UPDATE_INTERVAL_NS.
+     */
+    public static void endFrame() {
+        if (!ENABLED) return;
+        long now = System.nanoTime();
+        if (lastFrameEnd != 0) {
+            long covered = 0;
+            for (int i = 0; i < OTHER; i++) {
+                windows[i].add(now, accumulated[i]);
+                covered += accumulated[i];
+            }
+            windows[OTHER].add(now, Math.max(0, (now - lastFrameEnd) - covered));
+        }
+        Arrays.fill(accumulated, 0);
+        lastFrameEnd = now;
+
+        for (SampleWindow window : windows) {
+            window.removeOlderThan(now - WINDOW_NS); // Remove frames outside the rolling window
+        }
+        if (now - lastUpdateTime > UPDATE_INTERVAL_NS) {
+            lastUpdateTime = now;
+            publish();
+        }
+    }
+
+    /**
+     * Gets the latest per-phase breakdown.
+     * Safe to call from any thread.
+     *
+     * @return The most recent snapshot, or null if timing is disabled or no frame has finished
+     */
+    public static PhaseSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Builds and publishes a new snapshot from the rolling windows.
+     */
+    private static void publish() {
+        double[] avg = new double[PHASES];
+        double[] max = new double[PHASES];
+        for (int i = 0; i < PHASES; i++) {
+            avg[i] = windows[i].average() / 1_000_000.0;
+            max[i] = windows[i].max() / 1_000_000.0;
+        }
+        snapshot = new PhaseSnapshot(avg, max,
+                formatter.formatValueLine("Avg ms", NAMES, avg),
+                formatter.formatValueLine("Max ms", NAMES, max));
+    }
+}
@@ -0,0 +1,172 @@
+package net.honeyberries;
+
+/**
+ * Rolling window of timestamped 32-bit samples (for example per-frame phase durations).
+ * <p>
+ * Uses the same window logic as {@link FrameWindow}: samples are appended in time order,
+ * evicted once they are older than a cutoff, and stored in a growable primitive ring so
+ * the full window is kept at any sample rate, up to MAX_CAPACITY samples. A running sum
+ * makes the average O(1); the maximum is found by a scan when needed.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class SampleWindow {
+    /**
+     * Initial number of sample slots.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Upper bound on sample slots; beyond this the oldest samples are dropped.
+     */
+    private static final int MAX_CAPACITY = 1 << 21;
+
+    /**
+     * Sample timestamps in nanoseconds. Capacity is always a power of two.
+     */
+    private long[] times = new long[INITIAL_CAPACITY];
+
+    /**
+     * Sample values, parallel to times.
+     */
+    private int[] values = new int[INITIAL_CAPACITY];
+
+    /**
+     * Index of the oldest sample.
+     */
+    private int head = 0;
+
+    /**
+     * Number of samples in the window.
+     */
+    private int size = 0;
+
+    /**
+     * Sum of all sample values in the window.
+     */
+    private long sum = 0;
+
+    /**
+     * Appends a sample.
+     *
+     * @param t Timestamp of the sample in nanoseconds; must not be older than the previous one
+     * @param value Sample value (clamped to the int range)
+     */
+    public void add(long t, long value) {
+        if (size == times.length) {
+            if (times.length < MAX_CAPACITY) {
+                grow();
+            } else {
+                removeOldest(); // At the memory bound: overwrite oldest
+            }
+        }
+        int v = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+        int index = (head + size) & (times.length - 1);
+        times[index] = t;
+        values[index] = v;
+        size++;
+        sum += v;
+    }
+
+    /**
+     * Removes samples older than the specified cutoff time.
+     *
+     * @param cutoff Timestamp in nanoseconds; samples older than this are removed
+     */
+    public void removeOlderThan(long cutoff) {
+        while (size > 0 && times[head] < cutoff) {
+            removeOldest();
+        }
+    }
+
+    /**
+     * Removes every sample. Allocated storage is kept for reuse.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        sum = 0;
+    }
+
+    /**
+     * @return Number of samples in the window
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Sum of all sample values in the window
+     */
+    public long sum() {
+        return sum;
+    }
+
+    /**
+     * @return Average sample value, or 0 if the window is empty
+     */
+    public double average() {
+        return size == 0 ? 0.0 : (double) sum / size;
+    }
+
+    /**
+     * Finds the largest sample value with a single scan.
+     *
+     * @return The largest value, or 0 if the window is empty
+     */
+    public int max() {
+        int mask = times.length - 1;
+        int max = size == 0 ? 0 : Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, values[(head + i) & mask]);
+        }
+        return max;
+    }
+
+    /**
+     * Gets a sample value by age.
+     *
+     * @param i Index from the oldest sample (0) to the newest (size - 1)
+     * @return The sample value
+     */
+    public int value(int i) {
+        return values[(head + i) & (times.length - 1)];
+    }
+
+    /**
+     * Copies every sample value, oldest first, into the given buffer.
+     *
+     * @param dst Buffer of at least {@link #size()} elements
+     */
+    public void copyValues(long[] dst) {
+        int mask = times.length - 1;
+        for (int i = 0; i < size; i++) {
+            dst[i] = values[(head + i) & mask];
+        }
+    }
+
+    /**
+     * Removes the oldest sample.
+     */
+    private void removeOldest() {
+        sum -= values[head];
+        head = (head + 1) & (times.length - 1);
+        size--;
+    }
+
+    /**
+     * Doubles the ring capacity, unwrapping the contents to start at index 0.
+     */
+    private void grow() {
+        long[] biggerTimes = new long[times.length << 1];
+        int[] biggerValues = new int[values.length << 1];
+        int firstPart = Math.min(size, times.length - head);
+        System.arraycopy(times, head, biggerTimes, 0, firstPart);
+        System.arraycopy(times, 0, biggerTimes, firstPart, size - firstPart);
+        System.arraycopy(values, head, biggerValues, 0, firstPart);
+        System.arraycopy(values, 0, biggerValues, firstPart, size - firstPart);
+        times = biggerTimes;
+        values = biggerValues;
+        head = 0;
+    }
+}
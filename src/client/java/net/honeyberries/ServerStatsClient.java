@@ -0,0 +1,91 @@
+package net.honeyberries;
+
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.minecraft.client.Minecraft;
+
+/**
+ * Receives server tick statistics from {@link ServerTickStats} and formats them for the HUD.
+ * <p>
+ * While the option is on, the client subscribes with a {@link ServerTickSubscribePayload}
+ * whenever it joins a server that has the mod, and the server answers with one
+ * {@link ServerTickPayload} per second. Servers without the mod are never contacted.
+ * Payloads are handled on the client thread; the HUD line is replaced as a whole.
+ */
+public final class ServerStatsClient {
+    /**
+     * Whether server statistics are wanted.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile boolean enabled = false;
+
+    /**
+     * Formatter for the HUD line. Only used on the client thread.
+     */
+    private static final StatsTextFormatter formatter = new StatsTextFormatter();
+
+    /**
+     * HUD line for the latest payload, or null when not connected to a server that sends them.
+     * Volatile so that readers always see the latest string.
+     */
+    private static volatile String text = null;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private ServerStatsClient() {
+    }
+
+    /**
+     * Registers the payload receiver and the connection listeners.
+     * Called once during client initialization.
+     */
+    public static void register() {
+        ClientPlayNetworking.registerGlobalReceiver(ServerTickPayload.TYPE, (payload, context) -> {
+            if (!enabled) return;
+            text = formatter.formatServer(payload.tpsHundredths() / 100.0, payload.msptAvgMicros() / 1000.0,
+                    payload.msptP99Micros() / 1000.0, payload.msptMaxMicros() / 1000.0);
+        });
+        ClientPlayConnectionEvents.JOIN.register((handler, sender, client) -> {
+            if (enabled) subscribe(true);
+        });
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> text = null);
+    }
+
+    /**
+     * Turns the server statistics on or off, updating the subscription if connected.
+     *
+     * @param enable Whether server statistics are wanted
+     */
+    public static void setEnabled(boolean enable) {
+        if (enable == enabled) return;
+        enabled = enable;
+        if (!enable) text = null;
+        Minecraft.getInstance().execute(() -> {
+            if (Minecraft.getInstance().getConnection() != null) subscribe(enable);
+        });
+    }
+
+    /**
+     * Gets the HUD line with the server's tick rate and tick times.
+     * Safe to call from any thread.
+     *
+     * @return A string in the format "Server: 20.0 TPS | MSPT 12.3 avg, 31.0 p99, 45.2 max",
+     *         or null if no statistics are being received
+     */
+    public static String getText() {
+        return text;
+    }
+
+    /**
+     * Sends a subscription change, if the server has the mod. Must run on the client thread.
+     *
+     * @param subscribe Whether to receive server statistics
+     */
+    private static void subscribe(boolean subscribe) {
+        if (ClientPlayNetworking.canSend(ServerTickSubscribePayload.TYPE)) {
+            ClientPlayNetworking.send(new ServerTickSubscribePayload(subscribe));
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package net.honeyberries;
+
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.Util;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Optional recorder that streams every frame of a play session into a {@link SessionLog}.
+ * <p>
+ * The render thread does no extra work: the recorder is one more consumer of the
+ * lock-free ring that {@link FPSStats#recordFrame(long)} already publishes into. A
+ * background writer thread drains its own cursor every POLL_INTERVAL_NS and appends
+ * delta-encoded frames to a memory-mapped file, so there is no file I/O on the render
+ * thread and no locking between the two.
+ * <p>
+ * Logs are written to {@code <game dir>/fpsdisplay/sessions/}. When the recorder stops,
+ * the log can optionally be exported to a PresentMon-compatible CSV next to it.
+ */
+public final class SessionRecorder {
+    /**
+     * How often the writer drains the ring in nanoseconds (0.1 seconds).
+     */
+    private static final long POLL_INTERVAL_NS = 100_000_000L;
+
+    /**
+     * Size of each memory-mapped region of the data section (4 MB, ~20 minutes at 1000 FPS).
+     */
+    private static final int CHUNK_SIZE = 4 << 20;
+
+    /**
+     * Number of timestamps copied out of the ring per poll.
+     */
+    private static final int BATCH = 4096;
+
+    /**
+     * File name pattern for new session logs.
+     */
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'session-'yyyyMMdd-HHmmss'.fpslog'");
+
+    /**
+     * The running recorder, or null when recording is off.
+     * Only changed from the synchronized start/stop methods.
+     */
+    private static SessionRecorder active = null;
+
+    /**
+     * Log file being written.
+     */
+    private final Path file;
+
+    /**
+     * Whether to export a CSV when the recorder stops.
+     */
+    private final boolean exportCsv;
+
+    /**
+     * Channel the header and data regions are mapped from.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Mapped header region.
+     */
+    private final MappedByteBuffer header;
+
+    /**
+     * Currently mapped data region.
+     */
+    private MappedByteBuffer data;
+
+    /**
+     * File offset (relative to the end of the header) where the current data region starts.
+     */
+    private long dataOffset = 0;
+
+    /**
+     * Position of this recorder in the frame ring.
+     */
+    private final FrameRing.Cursor cursor;
+
+    /**
+     * Scratch buffer for draining the ring.
+     */
+    private final long[] buffer = new long[BATCH];
+
+    /**
+     * Timestamp of the last frame written, or -1 before the first frame.
+     */
+    private long lastTimestamp = -1;
+
+    /**
+     * Number of lost ring entries already written as escapes.
+     */
+    private long lostSeen = 0;
+
+    /**
+     * Background writer thread.
+     */
+    private final Thread thread;
+
+    /**
+     * Cleared to ask the writer thread to finish.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Creates the log file and maps its first regions.
+     *
+     * @param file Log file to create
+     * @param exportCsv Whether to export a CSV when stopping
+     * @throws IOException If the file cannot be created or mapped
+     */
+    private SessionRecorder(Path file, boolean exportCsv) throws IOException {
+        this.file = file;
+        this.exportCsv = exportCsv;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, SessionLog.HEADER_SIZE);
+        SessionLog.writeHeader(header, ProcessHandle.current().pid(), System.currentTimeMillis());
+        this.data = mapData(0);
+        this.cursor = new FrameRing.Cursor(FPSStats.ring().published()); // Record from now on
+
+        this.thread = new Thread(this::run, "FPSDisplay Session Writer");
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    /**
+     * Starts or stops recording to match the configuration.
+     *
+     * @param enabled Whether a session should be recorded
+     * @param exportCsv Whether to export a CSV when the recording stops
+     */
+    public static synchronized void setEnabled(boolean enabled, boolean exportCsv) {
+        if (enabled == (active != null)) return;
+        if (!enabled) {
+            stop();
+            return;
+        }
+
+        try {
+            Path dir = FabricLoader.getInstance().getGameDir().resolve("fpsdisplay/sessions");
+            Files.createDirectories(dir);
+            active = new SessionRecorder(dir.resolve(LocalDateTime.now().format(FILE_NAME)), exportCsv);
+            active.thread.start();
+            FPSDisplay.LOGGER.info("Recording frame times to {}", active.file);
+        } catch (IOException e) {
+            FPSDisplay.LOGGER.error("Failed to start FPS Display session recording", e);
+        }
+    }
+
+    /**
+     * Stops the current recording, if any, and waits for the writer to flush.
+     * The CSV export, if enabled, is not waited for; it runs on the IO pool afterwards.
+     * Called when recording is disabled and when the client shuts down.
+     */
+    public static synchronized void stop() {
+        if (active == null) return;
+        SessionRecorder recorder = active;
+        active = null;
+
+        recorder.running = false;
+        LockSupport.unpark(recorder.thread);
+        try {
+            recorder.thread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writer loop: drains the ring until stopped, then closes the log.
+     */
+    private void run() {
+        try {
+            while (running) {
+                drain();
+                LockSupport.parkNanos(POLL_INTERVAL_NS);
+            }
+            drain(); // Frames published since the last poll
+        } catch (IOException e) {
+            FPSDisplay.LOGGER.error("Failed to write FPS Display session log", e);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Appends every newly published frame to the mapped data region.
+     *
+     * @throws IOException If the next data region cannot be mapped
+     */
+    private void drain() throws IOException {
+        int n;
+        while ((n = FPSStats.ring().poll(cursor, buffer)) > 0) {
+            long lost = cursor.lost() - lostSeen;
+            lostSeen = cursor.lost();
+
+            for (int i = 0; i < n; i++) {
+                long t = buffer[i];
+                if (lastTimestamp < 0) {
+                    header.putLong(SessionLog.OFF_FIRST_FRAME_NS, t);
+                } else {
+                    if (data.remaining() < SessionLog.MAX_RECORD_BYTES) {
+                        dataOffset += data.position();
+                        data = mapData(dataOffset);
+                    }
+                    SessionLog.writeFrame(data, t - lastTimestamp, lost);
+                    lost = 0;
+                }
+                lastTimestamp = t;
+            }
+            header.putLong(SessionLog.OFF_DATA_LENGTH, dataOffset + data.position());
+        }
+    }
+
+    /**
+     * Maps the next region of the data section, growing the file as needed.
+     *
+     * @param offset Offset relative to the end of the header
+     * @return The mapped region
+     * @throws IOException If the region cannot be mapped
+     */
+    private MappedByteBuffer mapData(long offset) throws IOException {
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, SessionLog.HEADER_SIZE + offset, CHUNK_SIZE);
+        region.order(ByteOrder.LITTLE_ENDIAN);
+        return region;
+    }
+
+    /**
+     * Flushes the log, trims the unused tail of the last region and hands the CSV export,
+     * if enabled, to the IO pool so that {@link #stop()} only waits for the flush.
+     */
+    private void close() {
+        long length = dataOffset + data.position();
+        try {
+            data.force();
+            header.force();
+            channel.truncate(SessionLog.HEADER_SIZE + length);
+        } catch (IOException e) {
+            // Some platforms refuse to truncate mapped files; the header length keeps it readable
+            FPSDisplay.LOGGER.warn("Could not trim FPS Display session log {}", file, e);
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                FPSDisplay.LOGGER.error("Failed to close FPS Display session log", e);
+            }
+        }
+        FPSDisplay.LOGGER.info("Stopped recording frame times to {} ({} bytes)", file, SessionLog.HEADER_SIZE + length);
+
+        if (exportCsv) {
+            try {
+                Util.ioPool().execute(this::writeCsv);
+            } catch (RejectedExecutionException e) {
+                writeCsv(); // The pool has already shut down, so export on the writer thread
+            }
+        }
+    }
+
+    /**
+     * Exports the closed log to a PresentMon-compatible CSV next to it.
+     */
+    private void writeCsv() {
+        Path csv = file.resolveSibling(file.getFileName().toString().replace(".fpslog", ".csv"));
+        try {
+            SessionLog.exportCsv(file, csv);
+            FPSDisplay.LOGGER.info("Exported FPS Display session log to {}", csv);
+        } catch (IOException e) {
+            FPSDisplay.LOGGER.error("Failed to export FPS Display session log to CSV", e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package net.honeyberries;
+
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Mirrors frame durations and statistics snapshots into a memory-mapped file that
+ * external capture tools and overlays can read live, in the layout documented by
+ * {@link SharedFrameFile}.
+ * <p>
+ * Writing happens on the statistics consumer: {@link FPSStats} hands every drained frame
+ * to {@link #onFrame(long)} and every published snapshot to {@link #onSnapshot(StatsSnapshot, long)},
+ * so the render thread does no extra work. Each frame is one store into the mapped ring
+ * plus a release store of the frame count; each snapshot is written under a sequence
+ * counter. Neither ever waits for a reader.
+ * <p>
+ * The file is {@code <game dir>/fpsdisplay/frames.shm}. It is reused rather than
+ * deleted, so readers that keep it mapped see the live flag drop when the export stops
+ * and the frame count restart when it starts again.
+ */
+public final class SharedFrameExport {
+    /**
+     * Ring capacity in frames (a power of two); a few seconds even at very high frame rates.
+     */
+    private static final int CAPACITY = 1 << 14;
+
+    /**
+     * Running export, or null when disabled.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile SharedFrameExport active = null;
+
+    /**
+     * Path of the shared file.
+     */
+    private final Path path;
+
+    /**
+     * Channel the file is mapped through.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Mapped file.
+     */
+    private final MappedByteBuffer file;
+
+    /**
+     * Frames written to the ring. Owned by the consumer.
+     */
+    private long written = 0;
+
+    /**
+     * Current snapshot sequence. Owned by the consumer.
+     */
+    private long snapshotSeq = 0;
+
+    /**
+     * Creates or reuses the shared file and maps it.
+     *
+     * @param path The shared file
+     * @throws IOException If the file cannot be created or mapped
+     */
+    private SharedFrameExport(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.file = channel.map(FileChannel.MapMode.READ_WRITE, 0, SharedFrameFile.fileSize(CAPACITY));
+        this.file.order(ByteOrder.LITTLE_ENDIAN);
+        SharedFrameFile.writeHeader(file, ProcessHandle.current().pid(), CAPACITY);
+    }
+
+    /**
+     * Starts or stops the export to match the configuration.
+     *
+     * @param enabled Whether frame times should be mirrored into the shared file
+     */
+    public static synchronized void setEnabled(boolean enabled) {
+        if (enabled == (active != null)) return;
+        if (!enabled) {
+            stop();
+            return;
+        }
+
+        try {
+            Path dir = FabricLoader.getInstance().getGameDir().resolve("fpsdisplay");
+            Files.createDirectories(dir);
+            start(dir.resolve("frames.shm"));
+            FPSDisplay.LOGGER.info("Sharing frame times through {}", active.path);
+        } catch (IOException e) {
+            FPSDisplay.LOGGER.error("Failed to start FPS Display shared memory export", e);
+        }
+    }
+
+    /**
+     * Starts exporting into the given file, replacing any running export.
+     *
+     * @param path The shared file; created if missing
+     * @throws IOException If the file cannot be created or mapped
+     */
+    static synchronized void start(Path path) throws IOException {
+        stop();
+        active = new SharedFrameExport(path);
+    }
+
+    /**
+     * Stops the export, if running, and marks the file as no longer live.
+     * Called when the export is disabled and when the client shuts down.
+     */
+    public static synchronized void stop() {
+        if (active == null) return;
+        SharedFrameExport export = active;
+        active = null;
+
+        // The consumer may still finish a write it started; it only touches the ring and snapshot
+        export.file.putInt(SharedFrameFile.OFF_FLAGS, 0);
+        export.file.force();
+        try {
+            export.channel.close();
+        } catch (IOException e) {
+            FPSDisplay.LOGGER.warn("Failed to close {}", export.path, e);
+        }
+    }
+
+    /**
+     * Appends a frame to the shared ring. Called by the statistics consumer.
+     *
+     * @param durationNs Frame duration in nanoseconds
+     */
+    static void onFrame(long durationNs) {
+        SharedFrameExport export = active;
+        if (export == null) return;
+        long seq = export.written;
+        export.file.putLong(SharedFrameFile.HEADER_SIZE + (int) (seq & (CAPACITY - 1)) * Long.BYTES, durationNs);
+        export.written = seq + 1;
+        SharedFrameFile.LONGS.setRelease(export.file, SharedFrameFile.OFF_FRAMES_WRITTEN, seq + 1); // Slot first, then the count
+    }
+
+    /**
+     * Writes a published snapshot. Called by the statistics consumer.
+     *
+     * @param s The snapshot
+     * @param framesLost Frames the statistics thread has lost so far
+     */
+    static void onSnapshot(StatsSnapshot s, long framesLost) {
+        SharedFrameExport export = active;
+        if (export == null) return;
+        MappedByteBuffer file = export.file;
+        long seq = export.snapshotSeq;
+        SharedFrameFile.LONGS.setOpaque(file, SharedFrameFile.OFF_SNAPSHOT_SEQ, seq + 1); // Odd: being written
+        VarHandle.storeStoreFence();
+        file.putLong(SharedFrameFile.OFF_UPDATED_EPOCH_MS, System.currentTimeMillis());
+        file.putLong(SharedFrameFile.OFF_COMPUTED_AT_NS, s.computedAtNs());
+        file.putLong(SharedFrameFile.OFF_FRAMES_LOST, framesLost);
+        file.putDouble(SharedFrameFile.OFF_AVG_FPS, s.avgFps());
+        file.putDouble(SharedFrameFile.OFF_AVG_FPS + 8, s.onePercentLowFps());
+        file.putDouble(SharedFrameFile.OFF_AVG_FPS + 16, s.pointOnePercentLowFps());
+        file.putDouble(SharedFrameFile.OFF_AVG_FPS + 24, s.p50FrameTimeMs());
+        file.putDouble(SharedFrameFile.OFF_AVG_FPS + 32, s.p95FrameTimeMs());
+        file.putDouble(SharedFrameFile.OFF_AVG_FPS + 40, s.p99FrameTimeMs());
+        file.putDouble(SharedFrameFile.OFF_AVG_FPS + 48, s.p999FrameTimeMs());
+        file.putInt(SharedFrameFile.OFF_FRAME_COUNT, s.frameCount());
+        export.snapshotSeq = seq + 2;
+        SharedFrameFile.LONGS.setRelease(file, SharedFrameFile.OFF_SNAPSHOT_SEQ, seq + 2); // Even: consistent
+    }
+}
@@ -0,0 +1,277 @@
+package net.honeyberries;
+
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Samples the render thread's stack while a frame is stalled, for diagnosing stutters
+ * without attaching an external profiler.
+ * <p>
+ * A watchdog thread checks every few milliseconds whether the render thread has finished
+ * another frame, counted by {@link #onFrameEnd()} at the end of every
+ * {@code Minecraft.runTick}. The count advances on every screen, whether or not the HUD
+ * is drawn, so the title screen, loading screens and a hidden HUD are not mistaken for
+ * stalls. Once the current frame has run longer than the threshold,
+ * it captures the render thread's stack with {@link ThreadMXBean#getThreadInfo(long, int)},
+ * up to MAX_SAMPLES_PER_STALL times per stall. Because the stall is detected while it is
+ * still in progress, the samples show what the render thread is stuck in; the render
+ * thread itself does no extra work.
+ * <p>
+ * Samples are aggregated into a bounded map of collapsed stacks (root first, frames
+ * joined by ';', followed by the sample count). After each stall the map is written to
+ * {@code fpsdisplay/profiles/stalls-<date>.collapsed}, one file per time the sampler is
+ * enabled, which flamegraph.pl or speedscope turn into a flame graph.
+ * <p>
+ * Stack traces from the thread MXBean are only taken at safepoints, so frames in
+ * tight loops may be attributed to the nearest safepoint poll.
+ */
+public final class StallSampler {
+    /**
+     * How often the watchdog checks for new frames in nanoseconds (5 ms).
+     */
+    private static final long WATCH_INTERVAL_NS = 5_000_000L;
+
+    /**
+     * Time between samples during one stall in nanoseconds (10 ms).
+     */
+    private static final long SAMPLE_INTERVAL_NS = 10_000_000L;
+
+    /**
+     * Samples taken per stall at most; long freezes are not sampled further.
+     */
+    private static final int MAX_SAMPLES_PER_STALL = 20;
+
+    /**
+     * Stack frames captured per sample, counted from the innermost frame.
+     */
+    private static final int MAX_DEPTH = 128;
+
+    /**
+     * Distinct stacks kept; further new stacks are counted under OTHER.
+     */
+    private static final int MAX_STACKS = 4096;
+
+    /**
+     * Frame that samples are counted under once MAX_STACKS is reached.
+     */
+    private static final String OTHER = "[other]";
+
+    /**
+     * File name pattern for stall profiles.
+     */
+    private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'stalls-'yyyyMMdd-HHmmss'.collapsed'");
+
+    /**
+     * VarHandle for ordered access to {@link #framesEnded}.
+     */
+    private static final VarHandle FRAMES_ENDED;
+
+    static {
+        try {
+            FRAMES_ENDED = MethodHandles.lookup().findStaticVarHandle(StallSampler.class, "framesEnded", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Thread MXBean used to capture stacks.
+     */
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Stall threshold in nanoseconds.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile long thresholdNs = 100_000_000L;
+
+    /**
+     * Number of frames the render thread has finished. Written only by the render thread.
+     */
+    private static long framesEnded = 0;
+
+    /**
+     * Running watchdog thread, or null when disabled. Only changed from configure.
+     */
+    private static Watchdog watchdog = null;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private StallSampler() {
+    }
+
+    /**
+     * Starts or stops the watchdog to match the configuration.
+     *
+     * @param enabled Whether stalls should be sampled
+     * @param thresholdMs Frame duration in milliseconds after which the render thread is sampled
+     */
+    public static synchronized void configure(boolean enabled, int thresholdMs) {
+        thresholdNs = Math.max(1, thresholdMs) * 1_000_000L;
+        if (enabled == (watchdog != null)) return;
+        if (enabled) {
+            watchdog = new Watchdog(FabricLoader.getInstance().getGameDir().resolve("fpsdisplay/profiles")
+                    .resolve(LocalDateTime.now().format(FILE_NAME)));
+            watchdog.start();
+        } else {
+            stop();
+        }
+    }
+
+    /**
+     * Counts a finished frame. Called on the render thread at the end of every
+     * {@code Minecraft.runTick}; one ordered store, no fence.
+     */
+    public static void onFrameEnd() {
+        FRAMES_ENDED.setRelease(framesEnded + 1);
+    }
+
+    /**
+     * @return Number of frames the render thread has finished
+     */
+    private static long framesEnded() {
+        return (long) FRAMES_ENDED.getAcquire();
+    }
+
+    /**
+     * Stops the watchdog if it is running, writing any pending samples.
+     * Called when the client shuts down.
+     */
+    public static synchronized void stop() {
+        if (watchdog == null) return;
+        watchdog.running = false;
+        LockSupport.unpark(watchdog);
+        watchdog = null;
+    }
+
+    /**
+     * Watchdog thread; owns the aggregated stacks.
+     */
+    private static final class Watchdog extends Thread {
+        /**
+         * File the stacks are written to.
+         */
+        private final Path file;
+
+        /**
+         * Sample count of each collapsed stack.
+         */
+        private final Map<String, Long> stacks = new HashMap<>();
+
+        /**
+         * Reused builder for collapsed stacks.
+         */
+        private final StringBuilder stack = new StringBuilder(4096);
+
+        /**
+         * Whether the watchdog should keep running.
+         * Volatile to ensure visibility across threads.
+         */
+        private volatile boolean running = true;
+
+        /**
+         * Creates the watchdog.
+         *
+         * @param file File the stacks are written to
+         */
+        private Watchdog(Path file) {
+            super("FPSDisplay Stall Watchdog");
+            this.file = file;
+            setDaemon(true);
+        }
+
+        /**
+         * Watches the frame counter and samples the render thread during stalls.
+         */
+        @Override
+        public void run() {
+            long lastFrames = framesEnded();
+            long lastFrameNs = System.nanoTime();
+            long nextSampleNs = 0;
+            int samples = 0;
+
+            while (running) {
+                LockSupport.parkNanos(WATCH_INTERVAL_NS);
+                long now = System.nanoTime();
+                long frames = framesEnded();
+
+                if (frames != lastFrames) {
+                    if (samples > 0) write();
+                    lastFrames = frames;
+                    lastFrameNs = now;
+                    samples = 0;
+                    continue;
+                }
+                // Nothing to compare against until the first frame has ended
+                if (frames == 0 || samples >= MAX_SAMPLES_PER_STALL) continue;
+                if (now - lastFrameNs < thresholdNs || now < nextSampleNs) continue;
+
+                if (sample()) samples++;
+                nextSampleNs = now + SAMPLE_INTERVAL_NS;
+            }
+            if (samples > 0) write();
+        }
+
+        /**
+         * Captures the render thread's stack once and adds it to the aggregate.
+         *
+         * @return Whether a stack was captured
+         */
+        private boolean sample() {
+            long id = MemoryMonitor.renderThreadId();
+            if (id < 0) return false;
+            ThreadInfo info = THREADS.getThreadInfo(id, MAX_DEPTH);
+            if (info == null) return false;
+            StackTraceElement[] frames = info.getStackTrace();
+            if (frames.length == 0) return false;
+
+            stack.setLength(0);
+            stack.append(info.getThreadName());
+            for (int i = frames.length - 1; i >= 0; i--) {
+                stack.append(';').append(frames[i].getClassName()).append('.').append(frames[i].getMethodName());
+            }
+            String key = stack.toString();
+            if (!stacks.containsKey(key) && stacks.size() >= MAX_STACKS) {
+                key = info.getThreadName() + ";" + OTHER;
+            }
+            stacks.merge(key, 1L, Long::sum);
+            return true;
+        }
+
+        /**
+         * Rewrites the profile file with every stack collected so far.
+         */
+        private void write() {
+            try {
+                Files.createDirectories(file.getParent());
+                try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    for (Map.Entry<String, Long> entry : stacks.entrySet()) {
+                        out.write(entry.getKey());
+                        out.write(' ');
+                        out.write(Long.toString(entry.getValue()));
+                        out.newLine();
+                    }
+                }
+            } catch (IOException e) {
+                FPSDisplay.LOGGER.error("Failed to write stall profile {}", file, e);
+            }
+        }
+    }
+}
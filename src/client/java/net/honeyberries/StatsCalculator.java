@@ -0,0 +1,103 @@
+package net.honeyberries;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background thread that recalculates the {@link FPSStats} snapshot.
+ * <p>
+ * The render thread only appends timestamps to the frame ring. This thread wakes up
+ * every update interval, drains the ring and publishes new immutable snapshots, so
+ * tree queries and histogram walks never run inside a measured frame. It is a daemon
+ * platform thread at minimum priority, so it yields to the game when cores are scarce.
+ * The {@link NetworkStats} counters are rolled up on the same cadence.
+ */
+public final class StatsCalculator {
+    /**
+     * Shortest allowed update interval in milliseconds.
+     */
+    private static final int MIN_INTERVAL_MS = 16;
+
+    /**
+     * Longest allowed update interval in milliseconds.
+     * The frame ring is sized to hold every frame published in this time.
+     */
+    private static final int MAX_INTERVAL_MS = 2000;
+
+    /**
+     * Time between recalculations in nanoseconds.
+     * Volatile to ensure visibility across threads.
+     */
+    private static volatile long intervalNs = 500_000_000L;
+
+    /**
+     * The calculator thread, or null when not running.
+     * Only changed from the synchronized start/stop methods.
+     */
+    private static Thread thread = null;
+
+    /**
+     * Cleared to ask the calculator thread to finish.
+     */
+    private static volatile boolean running = false;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private StatsCalculator() {
+    }
+
+    /**
+     * Starts the calculator thread if it is not already running.
+     */
+    public static synchronized void start() {
+        if (thread != null) return;
+        running = true;
+        thread = new Thread(StatsCalculator::run, "FPSDisplay Stats");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stops the calculator thread and waits for it to finish.
+     * Called when the client shuts down.
+     */
+    public static synchronized void stop() {
+        if (thread == null) return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Sets how often the statistics are recalculated. Takes effect immediately.
+     *
+     * @param intervalMs Interval in milliseconds (clamped to 16-2000)
+     */
+    public static synchronized void setInterval(int intervalMs) {
+        intervalNs = Math.max(MIN_INTERVAL_MS, Math.min(MAX_INTERVAL_MS, intervalMs)) * 1_000_000L;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    /**
+     * Calculator loop: recalculates, then sleeps for the rest of the interval.
+     */
+    private static void run() {
+        while (running) {
+            long start = System.nanoTime();
+            try {
+                FPSStats.calculateStats();
+                NetworkStats.aggregate();
+            } catch (RuntimeException e) {
+                FPSDisplay.LOGGER.error("FPS Display statistics update failed", e);
+            }
+            LockSupport.parkNanos(intervalNs - (System.nanoTime() - start));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package net.honeyberries;
+
+/**
+ * Pre-formatted HUD strings for one {@link StatsSnapshot}.
+ * Built once per recalculation so the render path only hands out existing strings.
+ *
+ * @param avgLabelled Average FPS with the label, e.g. "FPS: 144"
+ * @param avgBare Average FPS without the label, e.g. "144"
+ * @param lows Lows line, e.g. "1% Low: 95 | 0.1% Low: 72"
+ */
+public record StatsText(String avgLabelled, String avgBare, String lows) {
+    /**
+     * Text shown before the first snapshot has been computed.
+     */
+    public static final StatsText EMPTY = new StatsTextFormatter().format(StatsSnapshot.EMPTY);
+
+    /**
+     * Gets the average FPS string in the requested style.
+     *
+     * @param showFpsText Whether to include the "FPS:" label
+     * @return The matching pre-formatted string
+     */
+    public String avg(boolean showFpsText) {
+        return showFpsText ? avgLabelled : avgBare;
+    }
+}
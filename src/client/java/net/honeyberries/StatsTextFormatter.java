@@ -0,0 +1,313 @@
+package net.honeyberries;
+
+import java.util.Arrays;
+
+/**
+ * Formats {@link StatsSnapshot} values into HUD strings without {@link java.util.Formatter}.
+ * <p>
+ * Digits are written into a reusable char buffer, so the only allocation per string is
+ * the resulting {@link String} itself. The buffer grows if a line does not fit. Values
+ * are rounded half-up to whole numbers, matching the previous {@code "%.0f"} output for
+ * non-negative numbers.
+ * <p>
+ * This class is not thread-safe; each formatting thread needs its own instance.
+ */
+public final class StatsTextFormatter {
+    /**
+     * Longest text a single number can append: a sign and 19 digits of a long.
+     */
+    private static final int MAX_NUMBER_CHARS = 20;
+
+    /**
+     * Scratch buffer the strings are assembled in.
+     */
+    private char[] buffer = new char[128];
+
+    /**
+     * Current write position in the buffer.
+     */
+    private int pos = 0;
+
+    /**
+     * Formats every HUD string for a snapshot.
+     * Negative lows are clamped to 0.
+     *
+     * @param snapshot The snapshot to format
+     * @return The formatted strings
+     */
+    public StatsText format(StatsSnapshot snapshot) {
+        pos = 0;
+        append("FPS: ").appendRounded(snapshot.avgFps());
+        String avgLabelled = take();
+
+        appendRounded(snapshot.avgFps());
+        String avgBare = take();
+
+        append("1% Low: ").appendRounded(Math.max(0.0, snapshot.onePercentLowFps()))
+                .append(" | 0.1% Low: ").appendRounded(Math.max(0.0, snapshot.pointOnePercentLowFps()));
+        String lows = take();
+
+        return new StatsText(avgLabelled, avgBare, lows);
+    }
+
+    /**
+     * Formats the one-line summary of a statistics window,
+     * e.g. "60s: 139 FPS | 1% Low: 88 | 0.1% Low: 61".
+     *
+     * @param label Window label
+     * @param snapshot Statistics for the window
+     * @return The formatted line
+     */
+    public String formatWindow(String label, StatsSnapshot snapshot) {
+        pos = 0;
+        append(label).append(": ").appendRounded(snapshot.avgFps())
+                .append(" FPS | 1% Low: ").appendRounded(Math.max(0.0, snapshot.onePercentLowFps()))
+                .append(" | 0.1% Low: ").appendRounded(Math.max(0.0, snapshot.pointOnePercentLowFps()));
+        return take();
+    }
+
+    /**
+     * Formats a labelled list of values with one decimal place,
+     * e.g. "Avg ms: Tick 0.4 | World 5.2" or "Work avg: Entities 280.4 | BEs 40.0".
+     *
+     * @param label Line label
+     * @param names Name of each value
+     * @param values Values, parallel to names
+     * @return The formatted line
+     */
+    public String formatValueLine(String label, String[] names, double[] values) {
+        pos = 0;
+        append(label).append(": ");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) append(" | ");
+            append(names[i]).append(" ").appendTenths(values[i]);
+        }
+        return take();
+    }
+
+    /**
+     * Formats the frame pacing line,
+     * e.g. "Pacing: SD 1.2 ms | Jitter 0.8 ms | Stutter 0.4% | Missed 3 @ 144 Hz".
+     *
+     * @param stdDevMs Frame time standard deviation in milliseconds
+     * @param meanDeltaMs Mean absolute frame-to-frame change in milliseconds
+     * @param stutterPercent Stutter score in percent
+     * @param missedRefreshes Missed refresh intervals in the window
+     * @param refreshRate Monitor refresh rate in Hz, or 0 if unknown
+     * @return The formatted line
+     */
+    public String formatPacing(double stdDevMs, double meanDeltaMs, double stutterPercent, int missedRefreshes, int refreshRate) {
+        pos = 0;
+        append("Pacing: SD ").appendTenths(stdDevMs).append(" ms | Jitter ").appendTenths(meanDeltaMs)
+                .append(" ms | Stutter ").appendTenths(stutterPercent).append("% | Missed ");
+        if (refreshRate <= 0) {
+            append("-");
+        } else {
+            appendRounded(missedRefreshes).append(" @ ").appendRounded(refreshRate).append(" Hz");
+        }
+        return take();
+    }
+
+    /**
+     * Formats the hitch counter line, e.g. "Hitches/min: 3 (GC: 1, Safepoint: 1)".
+     *
+     * @param hitches Number of hitches in the last minute
+     * @param gcHitches How many of them overlapped a GC pause
+     * @param safepointHitches How many of them overlapped another safepoint but no GC pause
+     * @return The formatted line
+     */
+    public String formatHitches(int hitches, int gcHitches, int safepointHitches) {
+        pos = 0;
+        append("Hitches/min: ").appendRounded(hitches).append(" (GC: ").appendRounded(gcHitches)
+                .append(", Safepoint: ").appendRounded(safepointHitches).append(")");
+        return take();
+    }
+
+    /**
+     * Formats the memory line, e.g. "Alloc: 312 MB/s | Heap: 1204/2048 MB | GC/min: 45 ms (3)".
+     *
+     * @param allocMbPerSec Allocation rate in MB per second
+     * @param heapUsedMb Heap in use in MB
+     * @param heapCommittedMb Heap committed in MB
+     * @param gcPauseMs GC pause time over the last minute in milliseconds
+     * @param gcCount Number of GC pauses over the last minute
+     * @return The formatted line
+     */
+    public String formatMemory(double allocMbPerSec, long heapUsedMb, long heapCommittedMb, long gcPauseMs, int gcCount) {
+        pos = 0;
+        append("Alloc: ").appendRounded(Math.max(0.0, allocMbPerSec))
+                .append(" MB/s | Heap: ").appendRounded(heapUsedMb).append("/").appendRounded(heapCommittedMb)
+                .append(" MB | GC/min: ").appendRounded(gcPauseMs).append(" ms (").appendRounded(gcCount).append(")");
+        return take();
+    }
+
+    /**
+     * Formats the server line, e.g. "Server: 20.0 TPS | MSPT 12.3 avg, 31.0 p99, 45.2 max".
+     *
+     * @param tps Ticks per second
+     * @param avgMs Average tick time in milliseconds
+     * @param p99Ms 99th percentile tick time in milliseconds
+     * @param maxMs Longest tick time in milliseconds
+     * @return The formatted line
+     */
+    public String formatServer(double tps, double avgMs, double p99Ms, double maxMs) {
+        pos = 0;
+        append("Server: ").appendTenths(tps).append(" TPS | MSPT ").appendTenths(avgMs)
+                .append(" avg, ").appendTenths(p99Ms).append(" p99, ").appendTenths(maxMs).append(" max");
+        return take();
+    }
+
+    /**
+     * Formats the CPU line, e.g. "CPU: Render 87% | Server 34% | Workers 120% (6)".
+     * Percentages are of one core.
+     *
+     * @param renderPercent CPU usage of the render thread
+     * @param serverPercent CPU usage of the integrated server thread, or negative if there is none
+     * @param workerPercent Combined CPU usage of the worker pool
+     * @param workers Number of worker pool threads
+     * @return The formatted line
+     */
+    public String formatCpu(double renderPercent, double serverPercent, double workerPercent, int workers) {
+        pos = 0;
+        append("CPU: Render ").appendRounded(renderPercent).append("% | Server ");
+        if (serverPercent < 0) {
+            append("-");
+        } else {
+            appendRounded(serverPercent).append("%");
+        }
+        append(" | Workers ").appendRounded(workerPercent).append("% (").appendRounded(workers).append(")");
+        return take();
+    }
+
+    /**
+     * Formats the load time line, e.g. "Startup 23.4 s | Reload 8.1 s | Last join 5.2 s".
+     *
+     * @param startupMs Time from JVM start to the title screen in milliseconds, or negative if unknown
+     * @param reloadMs Duration of the last resource reload in milliseconds, or negative if unknown
+     * @param joinMs Duration of the last world join in milliseconds, or negative if unknown
+     * @return The formatted line
+     */
+    public String formatLoadTimes(long startupMs, long reloadMs, long joinMs) {
+        pos = 0;
+        append("Startup ").appendSeconds(startupMs).append(" | Reload ").appendSeconds(reloadMs)
+                .append(" | Last join ").appendSeconds(joinMs);
+        return take();
+    }
+
+    /**
+     * Formats the network line, e.g. "Ping: 42 ms &plusmn;3 | In: 120 pkt/s 35.2 KB/s | Out: 40 pkt/s 4.1 KB/s".
+     *
+     * @param pingMs Average round-trip time in milliseconds, or negative if unknown
+     * @param jitterMs Average round-trip time change in milliseconds
+     * @param packetsIn Packets received per second
+     * @param bytesIn Bytes received per second
+     * @param packetsOut Packets sent per second
+     * @param bytesOut Bytes sent per second
+     * @return The formatted line
+     */
+    public String formatNetwork(double pingMs, double jitterMs, double packetsIn, double bytesIn, double packetsOut, double bytesOut) {
+        pos = 0;
+        append("Ping: ");
+        if (pingMs < 0) {
+            append("-");
+        } else {
+            appendRounded(pingMs).append(" ms \u00B1").appendRounded(jitterMs);
+        }
+        append(" | In: ").appendRounded(packetsIn).append(" pkt/s ").appendTenths(bytesIn / 1024.0)
+                .append(" KB/s | Out: ").appendRounded(packetsOut).append(" pkt/s ").appendTenths(bytesOut / 1024.0).append(" KB/s");
+        return take();
+    }
+
+    /**
+     * Appends a duration in seconds with one decimal, or "-" if it is unknown.
+     *
+     * @param ms Duration in milliseconds, or negative if unknown
+     * @return This formatter, for chaining
+     */
+    private StatsTextFormatter appendSeconds(long ms) {
+        if (ms < 0) return append("-");
+        return appendTenths(ms / 1000.0).append(" s");
+    }
+
+    /**
+     * Appends literal text to the buffer.
+     *
+     * @param text Text to append
+     * @return This formatter, for chaining
+     */
+    private StatsTextFormatter append(String text) {
+        ensureCapacity(text.length());
+        text.getChars(0, text.length(), buffer, pos);
+        pos += text.length();
+        return this;
+    }
+
+    /**
+     * Appends a value rounded half-up to a whole number.
+     * Non-finite values are written as 0.
+     *
+     * @param value The value to append
+     * @return This formatter, for chaining
+     */
+    private StatsTextFormatter appendRounded(double value) {
+        ensureCapacity(MAX_NUMBER_CHARS);
+        long n = Double.isFinite(value) ? Math.round(value) : 0;
+        if (n < 0) {
+            buffer[pos++] = '-';
+            n = -n;
+        }
+
+        // Write digits backwards into place
+        int digits = 1;
+        for (long rest = n / 10; rest > 0; rest /= 10) digits++;
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + (n % 10));
+            n /= 10;
+        }
+        pos = end;
+        return this;
+    }
+
+    /**
+     * Appends a value rounded half-up to one decimal place.
+     * Non-finite values are written as 0.0.
+     *
+     * @param value The value to append
+     * @return This formatter, for chaining
+     */
+    private StatsTextFormatter appendTenths(double value) {
+        ensureCapacity(MAX_NUMBER_CHARS + 2);
+        long tenths = Double.isFinite(value) ? Math.round(value * 10) : 0;
+        if (tenths < 0) {
+            buffer[pos++] = '-';
+            tenths = -tenths;
+        }
+        appendRounded(tenths / 10);
+        buffer[pos++] = '.';
+        buffer[pos++] = (char) ('0' + (tenths % 10));
+        return this;
+    }
+
+    /**
+     * Grows the buffer so that the given number of chars fit after the write position.
+     *
+     * @param extra Number of chars about to be written
+     */
+    private void ensureCapacity(int extra) {
+        if (pos + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, pos + extra));
+        }
+    }
+
+    /**
+     * Creates a string from the buffer contents and resets the buffer.
+     *
+     * @return The assembled string
+     */
+    private String take() {
+        String s = new String(buffer, 0, pos);
+        pos = 0;
+        return s;
+    }
+}
@@ -0,0 +1,46 @@
+package net.honeyberries;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Counts the bytes passing through the head of the client connection's pipeline.
+ * <p>
+ * Installed first in the pipeline, so it sees exactly what is read from and written to
+ * the socket: compressed and encrypted frames. In-memory connections to an integrated
+ * server carry packet objects rather than buffers and are not counted. The handler
+ * keeps no state of its own, so one instance is shared by every connection.
+ */
+@ChannelHandler.Sharable
+public final class TrafficCounter extends ChannelDuplexHandler {
+    /**
+     * Name of the handler in the pipeline.
+     */
+    public static final String NAME = "fpsdisplay_traffic";
+
+    /**
+     * The shared instance.
+     */
+    public static final TrafficCounter INSTANCE = new TrafficCounter();
+
+    /**
+     * Private constructor; use INSTANCE.
+     */
+    private TrafficCounter() {
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof ByteBuf buf) NetworkStats.onBytesIn(buf.readableBytes());
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof ByteBuf buf) NetworkStats.onBytesOut(buf.readableBytes());
+        ctx.write(msg, promise);
+    }
+}
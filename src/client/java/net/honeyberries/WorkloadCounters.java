@@ -0,0 +1,152 @@
+package net.honeyberries;
+
+/**
+ * Per-frame render workload counters collected by render mixins.
+ * <p>
+ * Counted for every frame:
+ * - ENTITIES: entities extracted for rendering ({@code EntityRenderDispatcher.extractEntity})
+ * - BLOCK_ENTITIES: block entities extracted for rendering
+ *   ({@code BlockEntityRenderDispatcher.tryExtractRenderState} returning a state)
+ * - SECTIONS: chunk sections in view when the world was rendered ({@code LevelRenderer.visibleSections})
+ * - REBUILDS: chunk section rebuilds requested by the frame, synchronous or on the worker pool
+ * <p>
+ * Every hook is a plain field write on the render thread. When the frame is recorded,
+ * {@link FPSStats#recordFrame(long)} packs the counters into one {@code long} with
+ * {@link #takeFrame()} and publishes it next to the frame's timestamp, so the
+ * statistics thread stores it with that frame's duration.
+ * <p>
+ * Packed layout, each field saturating at its maximum: entities and block entities
+ * 16 bits each, sections 20 bits, rebuilds 12 bits.
+ * <p>
+ * All methods except {@link #unpack(long, int)} must only be called from the render thread.
+ */
+public final class WorkloadCounters {
+    /**
+     * Entities rendered.
+     */
+    public static final int ENTITIES = 0;
+
+    /**
+     * Block entities rendered.
+     */
+    public static final int BLOCK_ENTITIES = 1;
+
+    /**
+     * Chunk sections in view.
+     */
+    public static final int SECTIONS = 2;
+
+    /**
+     * Chunk section rebuilds requested.
+     */
+    public static final int REBUILDS = 3;
+
+    /**
+     * Number of counters.
+     */
+    public static final int COUNTERS = 4;
+
+    /**
+     * Bit offset of each counter in the packed value.
+     */
+    private static final int[] SHIFT = {0, 16, 32, 52};
+
+    /**
+     * Largest value of each counter in the packed value.
+     */
+    private static final long[] MAX = {0xFFFF, 0xFFFF, 0xF_FFFF, 0xFFF};
+
+    /**
+     * Entities rendered in the current frame.
+     */
+    private static int entities = 0;
+
+    /**
+     * Block entities rendered in the current frame.
+     */
+    private static int blockEntities = 0;
+
+    /**
+     * Chunk sections in view in the current frame.
+     */
+    private static int sections = 0;
+
+    /**
+     * Chunk section rebuilds requested in the current frame.
+     */
+    private static int rebuilds = 0;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private WorkloadCounters() {
+    }
+
+    /**
+     * Counts an entity extracted for rendering.
+     */
+    public static void countEntity() {
+        entities++;
+    }
+
+    /**
+     * Counts a block entity extracted for rendering.
+     */
+    public static void countBlockEntity() {
+        blockEntities++;
+    }
+
+    /**
+     * Sets the number of chunk sections in view for the current frame.
+     *
+     * @param count Number of visible sections
+     */
+    public static void setSections(int count) {
+        sections = count;
+    }
+
+    /**
+     * Counts a chunk section rebuild request.
+     */
+    public static void countRebuild() {
+        rebuilds++;
+    }
+
+    /**
+     * Packs the current frame's counters and resets them for the next frame.
+     *
+     * @return The packed counters
+     */
+    static long takeFrame() {
+        long packed = pack(ENTITIES, entities) | pack(BLOCK_ENTITIES, blockEntities)
+                | pack(SECTIONS, sections) | pack(REBUILDS, rebuilds);
+        entities = 0;
+        blockEntities = 0;
+        sections = 0;
+        rebuilds = 0;
+        return packed;
+    }
+
+    /**
+     * Reads one counter from a packed value.
+     *
+     * @param packed Value returned by {@link #takeFrame()}
+     * @param counter One of the counter constants
+     * @return The counter's value
+     */
+    public static int unpack(long packed, int counter) {
+        return (int) ((packed >>> SHIFT[counter]) & MAX[counter]);
+    }
+
+    /**
+     * Places a counter in its packed field, saturating at the field's maximum.
+     *
+     * @param counter One of the counter constants
+     * @param value The counter's value
+     * @return The value shifted into place
+     */
+    private static long pack(int counter, int value) {
+        return Math.min(Math.max(0, value), MAX[counter]) << SHIFT[counter];
+    }
+}
@@ -0,0 +1,14 @@
+package net.honeyberries;
+
+/**
+ * Immutable render workload of the rolling window, overall and for its slowest frames.
+ * Published by {@link FPSStats}; the arrays are indexed by the {@link WorkloadCounters}
+ * constants and must not be modified.
+ *
+ * @param avg Average of each counter per frame over the window
+ * @param worst Average of each counter over the slowest 1% of frames
+ * @param avgLine Pre-formatted HUD line with the averages
+ * @param worstLine Pre-formatted HUD line with the slowest frames' averages
+ */
+public record WorkloadSnapshot(double[] avg, double[] worst, String avgLine, String worstLine) {
+}
@@ -0,0 +1,21 @@
+package net.honeyberries.mixin.client;
+
+import net.honeyberries.WorkloadCounters;
+import net.minecraft.client.renderer.blockentity.BlockEntityRenderDispatcher;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Counts block entities extracted for rendering for {@link WorkloadCounters}.
+ * Block entities that are out of range or have no renderer return no state and are not counted.
+ * The counter is diagnostic only, so a missing target leaves it at 0 instead of failing.
+ */
+@Mixin(BlockEntityRenderDispatcher.class)
+public abstract class BlockEntityRenderDispatcherMixin {
+    @Inject(method = "tryExtractRenderState", at = @At("RETURN"), require = 0)
+    private void fpsdisplay$countBlockEntity(CallbackInfoReturnable<?> cir) {
+        if (cir.getReturnValue() != null) WorkloadCounters.countBlockEntity();
+    }
+}
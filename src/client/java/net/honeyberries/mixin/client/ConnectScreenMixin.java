@@ -0,0 +1,20 @@
+package net.honeyberries.mixin.client;
+
+import net.honeyberries.LoadTimings;
+import net.minecraft.client.gui.screens.ConnectScreen;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Starts timing a world join for {@link LoadTimings} when a server connection starts.
+ * Without this target the join is timed from the start of the play phase instead.
+ */
+@Mixin(ConnectScreen.class)
+public abstract class ConnectScreenMixin {
+    @Inject(method = "startConnecting", at = @At("HEAD"), require = 0)
+    private static void fpsdisplay$beginJoin(CallbackInfo ci) {
+        LoadTimings.beginJoin(true);
+    }
+}
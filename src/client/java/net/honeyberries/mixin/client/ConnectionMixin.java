@@ -0,0 +1,41 @@
+package net.honeyberries.mixin.client;
+
+import io.netty.channel.ChannelHandlerContext;
+import net.honeyberries.NetworkStats;
+import net.honeyberries.TrafficCounter;
+import net.minecraft.network.Connection;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketFlow;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Counts packets and socket bytes of the client's own connection for {@link NetworkStats}.
+ * Connections an integrated server accepts (which receive serverbound packets) are skipped.
+ * Pongs to the pings NetworkStats sends are dropped before the packet listener sees them.
+ */
+@Mixin(Connection.class)
+public abstract class ConnectionMixin {
+    @Shadow
+    public abstract PacketFlow getReceiving();
+
+    @Inject(method = "channelActive", at = @At("TAIL"))
+    private void fpsdisplay$addTrafficCounter(ChannelHandlerContext ctx, CallbackInfo ci) {
+        if (getReceiving() == PacketFlow.CLIENTBOUND && ctx.pipeline().get(TrafficCounter.NAME) == null) {
+            ctx.pipeline().addFirst(TrafficCounter.NAME, TrafficCounter.INSTANCE);
+        }
+    }
+
+    @Inject(method = "channelRead0(Lio/netty/channel/ChannelHandlerContext;Lnet/minecraft/network/protocol/Packet;)V", at = @At("HEAD"), cancellable = true)
+    private void fpsdisplay$countPacketIn(ChannelHandlerContext ctx, Packet<?> packet, CallbackInfo ci) {
+        if (getReceiving() == PacketFlow.CLIENTBOUND && NetworkStats.onPacketIn(packet)) ci.cancel();
+    }
+
+    @Inject(method = "sendPacket", at = @At("HEAD"))
+    private void fpsdisplay$countPacketOut(CallbackInfo ci) {
+        if (getReceiving() == PacketFlow.CLIENTBOUND) NetworkStats.onPacketOut();
+    }
+}
@@ -0,0 +1,20 @@
+package net.honeyberries.mixin.client;
+
+import net.honeyberries.WorkloadCounters;
+import net.minecraft.client.renderer.entity.EntityRenderDispatcher;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Counts entities extracted for rendering for {@link WorkloadCounters}.
+ * The counter is diagnostic only, so a missing target leaves it at 0 instead of failing.
+ */
+@Mixin(EntityRenderDispatcher.class)
+public abstract class EntityRenderDispatcherMixin {
+    @Inject(method = "extractEntity", at = @At("HEAD"), require = 0)
+    private void fpsdisplay$countEntity(CallbackInfoReturnable<?> cir) {
+        WorkloadCounters.countEntity();
+    }
+}
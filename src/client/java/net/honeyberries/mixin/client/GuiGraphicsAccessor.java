@@ -0,0 +1,19 @@
+package net.honeyberries.mixin.client;
+
+import net.minecraft.client.gui.GuiGraphics;
+import net.minecraft.client.gui.render.state.GuiRenderState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+/**
+ * Exposes the render state that {@link GuiGraphics} submits elements to, so that
+ * custom batched elements can be submitted alongside the vanilla ones.
+ */
+@Mixin(GuiGraphics.class)
+public interface GuiGraphicsAccessor {
+    /**
+     * @return The GUI render state of this graphics context
+     */
+    @Accessor("guiRenderState")
+    GuiRenderState fpsdisplay$getGuiRenderState();
+}
@@ -0,0 +1,24 @@
+package net.honeyberries.mixin.client;
+
+import net.honeyberries.PhaseTimings;
+import net.minecraft.client.gui.Gui;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Times HUD building for {@link PhaseTimings}.
+ */
+@Mixin(Gui.class)
+public abstract class GuiMixin {
+    @Inject(method = "render", at = @At("HEAD"))
+    private void fpsdisplay$beginGui(CallbackInfo ci) {
+        PhaseTimings.begin(PhaseTimings.GUI);
+    }
+
+    @Inject(method = "render", at = @At("RETURN"))
+    private void fpsdisplay$endGui(CallbackInfo ci) {
+        PhaseTimings.end(PhaseTimings.GUI);
+    }
+}
@@ -0,0 +1,24 @@
+package net.honeyberries.mixin.client;
+
+import net.honeyberries.PhaseTimings;
+import net.minecraft.client.gui.render.GuiRenderer;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Times GUI drawing (HUD and screens) for {@link PhaseTimings}.
+ */
+@Mixin(GuiRenderer.class)
+public abstract class GuiRendererMixin {
+    @Inject(method = "render", at = @At("HEAD"))
+    private void fpsdisplay$beginGuiDraw(CallbackInfo ci) {
+        PhaseTimings.begin(PhaseTimings.GUI);
+    }
+
+    @Inject(method = "render", at = @At("RETURN"))
+    private void fpsdisplay$endGuiDraw(CallbackInfo ci) {
+        PhaseTimings.end(PhaseTimings.GUI);
+    }
+}
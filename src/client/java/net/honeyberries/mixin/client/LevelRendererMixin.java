@@ -0,0 +1,40 @@
+package net.honeyberries.mixin.client;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.honeyberries.LoadTimings;
+import net.honeyberries.PhaseTimings;
+import net.honeyberries.WorkloadCounters;
+import net.minecraft.client.renderer.LevelRenderer;
+import net.minecraft.client.renderer.chunk.SectionRenderDispatcher;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Times world rendering for {@link PhaseTimings} and records the chunk sections in view
+ * for {@link WorkloadCounters}. After a world join it reports rendered sections to
+ * {@link LoadTimings} until the first chunk appears.
+ */
+@Mixin(LevelRenderer.class)
+public abstract class LevelRendererMixin {
+    @Shadow
+    @Final
+    private ObjectArrayList<SectionRenderDispatcher.RenderSection> visibleSections;
+
+    @Inject(method = "renderLevel", at = @At("HEAD"))
+    private void fpsdisplay$beginWorld(CallbackInfo ci) {
+        PhaseTimings.begin(PhaseTimings.WORLD);
+    }
+
+    @Inject(method = "renderLevel", at = @At("RETURN"))
+    private void fpsdisplay$endWorld(CallbackInfo ci) {
+        PhaseTimings.end(PhaseTimings.WORLD);
+        WorkloadCounters.setSections(visibleSections.size());
+        if (LoadTimings.isAwaitingChunks()) {
+            LoadTimings.onWorldRendered(((LevelRenderer) (Object) this).countRenderedSections());
+        }
+    }
+}
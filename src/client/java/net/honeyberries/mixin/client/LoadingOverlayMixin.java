@@ -0,0 +1,28 @@
+package net.honeyberries.mixin.client;
+
+import net.honeyberries.LoadTimings;
+import net.minecraft.client.gui.screens.LoadingOverlay;
+import net.minecraft.server.packs.resources.ReloadInstance;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Times every resource reload shown by a loading overlay for {@link LoadTimings}.
+ * The timing is diagnostic only, so a missing target leaves it unmeasured instead of failing.
+ */
+@Mixin(LoadingOverlay.class)
+public abstract class LoadingOverlayMixin {
+    @Shadow
+    @Final
+    private ReloadInstance reload;
+
+    @Inject(method = "<init>", at = @At("RETURN"), require = 0)
+    private void fpsdisplay$timeReload(CallbackInfo ci) {
+        long start = LoadTimings.beginReload();
+        reload.done().thenRun(() -> LoadTimings.endReload(start));
+    }
+}
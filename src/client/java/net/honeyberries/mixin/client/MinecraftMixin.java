@@ -0,0 +1,39 @@
+package net.honeyberries.mixin.client;
+
+import net.honeyberries.LoadTimings;
+import net.honeyberries.PhaseTimings;
+import net.honeyberries.StallSampler;
+import net.minecraft.client.Minecraft;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Times the client tick and closes each frame for {@link PhaseTimings}, counts finished
+ * frames for the {@link StallSampler} watchdog, and starts timing singleplayer world
+ * joins for {@link LoadTimings}.
+ */
+@Mixin(Minecraft.class)
+public abstract class MinecraftMixin {
+    @Inject(method = "tick", at = @At("HEAD"))
+    private void fpsdisplay$beginTick(CallbackInfo ci) {
+        PhaseTimings.begin(PhaseTimings.TICK);
+    }
+
+    @Inject(method = "tick", at = @At("RETURN"))
+    private void fpsdisplay$endTick(CallbackInfo ci) {
+        PhaseTimings.end(PhaseTimings.TICK);
+    }
+
+    @Inject(method = "runTick", at = @At("RETURN"))
+    private void fpsdisplay$endFrame(CallbackInfo ci) {
+        PhaseTimings.endFrame();
+        StallSampler.onFrameEnd();
+    }
+
+    @Inject(method = "doWorldLoad", at = @At("HEAD"), require = 0)
+    private void fpsdisplay$beginWorldLoad(CallbackInfo ci) {
+        LoadTimings.beginJoin(true);
+    }
+}
@@ -0,0 +1,20 @@
+package net.honeyberries.mixin.client;
+
+import net.honeyberries.WorkloadCounters;
+import net.minecraft.client.renderer.chunk.SectionRenderDispatcher;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Counts chunk section rebuilds handed to the worker pool for {@link WorkloadCounters}.
+ * The counter is diagnostic only, so a missing target leaves it at 0 instead of failing.
+ */
+@Mixin(SectionRenderDispatcher.RenderSection.class)
+public abstract class RenderSectionMixin {
+    @Inject(method = "rebuildSectionAsync", at = @At("HEAD"), require = 0)
+    private void fpsdisplay$countAsyncRebuild(CallbackInfo ci) {
+        WorkloadCounters.countRebuild();
+    }
+}
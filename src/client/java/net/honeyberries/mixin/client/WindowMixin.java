@@ -0,0 +1,24 @@
+package net.honeyberries.mixin.client;
+
+import com.mojang.blaze3d.platform.Window;
+import net.honeyberries.PhaseTimings;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Times the buffer swap, including any vsync wait, for {@link PhaseTimings}.
+ */
+@Mixin(Window.class)
+public abstract class WindowMixin {
+    @Inject(method = "updateDisplay", at = @At("HEAD"))
+    private void fpsdisplay$beginSwap(CallbackInfo ci) {
+        PhaseTimings.begin(PhaseTimings.SWAP);
+    }
+
+    @Inject(method = "updateDisplay", at = @At("RETURN"))
+    private void fpsdisplay$endSwap(CallbackInfo ci) {
+        PhaseTimings.end(PhaseTimings.SWAP);
+    }
+}
@@ -0,0 +1,64 @@
+package net.honeyberries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the HUD text paths that {@link FPSRenderer} calls once per rendered frame.
+ * Run with the GC profiler (enabled in build.gradle) to see allocations per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DisplayStringBenchmark {
+    /**
+     * Publishes a realistic snapshot so the strings contain non-trivial numbers.
+     */
+    @Setup(Level.Trial)
+    public void publishSnapshot() {
+        long clock = 1_000_000_000L;
+        for (int i = 0; i < 1200; i++) {
+            clock += (i % 100 == 0) ? 16_000_000L : 4_166_667L;
+            FPSStats.recordFrame(clock);
+        }
+        FPSStats.calculateStats();
+    }
+
+    /**
+     * Average FPS line with the "FPS:" label.
+     *
+     * @return The display string
+     */
+    @Benchmark
+    public String displayStringAvg() {
+        return FPSStats.getDisplayStringAvg(true);
+    }
+
+    /**
+     * Average FPS line without the label.
+     *
+     * @return The display string
+     */
+    @Benchmark
+    public String displayStringAvgBare() {
+        return FPSStats.getDisplayStringAvg(false);
+    }
+
+    /**
+     * Advanced stats line with the 1% and 0.1% lows.
+     *
+     * @return The display string
+     */
+    @Benchmark
+    public String displayStringLows() {
+        return FPSStats.getDisplayStringLows();
+    }
+}
@@ -0,0 +1,103 @@
+package net.honeyberries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link FPSStats}: recording a frame on the render thread and one
+ * recalculation on the calculator thread.
+ * <p>
+ * Frames are fed from a simulated clock so the rolling window fills exactly as it
+ * would at the given frame rate, without a running game. A small amount of jitter and
+ * an occasional long frame keep the lows meaningful.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FPSStatsBenchmark {
+    /**
+     * Simulated frame rate.
+     */
+    @Param({"60", "240", "1000", "5000"})
+    public int fps;
+
+    /**
+     * Whether lows are read from the histogram or from an exact sort.
+     */
+    @Param({"true", "false"})
+    public boolean histogram;
+
+    /**
+     * Simulated System.nanoTime().
+     */
+    private long clock;
+
+    /**
+     * Number of frames generated so far, used to place jitter and long frames.
+     */
+    private long frame;
+
+    /**
+     * Nominal frame duration for the simulated frame rate in nanoseconds.
+     */
+    private long frameNs;
+
+    /**
+     * Configures the statistics mode and fills the rolling window with five seconds of frames.
+     */
+    @Setup(Level.Trial)
+    public void fillWindow() {
+        FPSStats.configureHistogram(histogram, 2);
+        frameNs = 1_000_000_000L / fps;
+        clock = 1_000_000_000L;
+        for (int i = 0; i < fps * 5; i++) {
+            FPSStats.recordFrame(nextFrame());
+        }
+        FPSStats.calculateStats();
+    }
+
+    /**
+     * Render-thread cost of recording one frame (the recalculation runs on its own thread).
+     *
+     * @return The simulated timestamp, to keep the call from being eliminated
+     */
+    @Benchmark
+    public long recordFrame() {
+        long now = nextFrame();
+        FPSStats.recordFrame(now);
+        return now;
+    }
+
+    /**
+     * Cost of one recalculation over a full window.
+     *
+     * @return The published snapshot
+     */
+    @Benchmark
+    public StatsSnapshot calculateStats() {
+        FPSStats.calculateStats();
+        return FPSStats.snapshot();
+    }
+
+    /**
+     * Advances the simulated clock by one frame.
+     *
+     * @return The new timestamp in nanoseconds
+     */
+    private long nextFrame() {
+        frame++;
+        long jitter = (frame * 7919) % (frameNs / 10 + 1); // Deterministic +-10% spread
+        long spike = (frame % 500 == 0) ? frameNs * 4 : 0; // One long frame every 500
+        clock += frameNs + jitter + spike;
+        return clock;
+    }
+}
@@ -0,0 +1,63 @@
+package net.honeyberries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the session writer's encoding cost for one second of frames at 1000 FPS.
+ * The render thread pays nothing for recording, so this is the whole overhead; it runs
+ * on the background writer thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionLogBenchmark {
+    /**
+     * Frames per simulated second.
+     */
+    private static final int FRAMES = 1000;
+
+    /**
+     * Frame durations around 1 ms with some jitter.
+     */
+    private final long[] durations = new long[FRAMES];
+
+    /**
+     * Direct buffer standing in for the memory-mapped data region.
+     */
+    private final ByteBuffer out = ByteBuffer.allocateDirect(FRAMES * SessionLog.MAX_RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Generates the frame durations.
+     */
+    @Setup(Level.Trial)
+    public void generate() {
+        for (int i = 0; i < FRAMES; i++) {
+            durations[i] = 1_000_000L + (i * 7919L) % 200_000L;
+        }
+    }
+
+    /**
+     * Encodes one second of frames.
+     *
+     * @return Encoded size in bytes, to keep the work from being eliminated
+     */
+    @Benchmark
+    public int encodeOneSecond() {
+        out.clear();
+        for (int i = 0; i < FRAMES; i++) {
+            SessionLog.writeFrame(out, durations[i], 0);
+        }
+        return out.position();
+    }
+}
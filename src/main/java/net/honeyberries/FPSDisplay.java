@@ -2,6 +2,8 @@ package net.honeyberries;
 
 import net.fabricmc.api.ModInitializer;
 
+import java.lang.management.ManagementFactory;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,14 +26,33 @@ public class FPSDisplay implements ModInitializer {
 	 */
 	public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
 
+	/**
+	 * Milliseconds after JVM start when the common initializer ran, or -1 before.
+	 * Volatile to ensure visibility across threads.
+	 */
+	private static volatile long initializedAtMs = -1;
+
 	/**
 	 * Called when the mod is initialized.
 	 * This code runs as soon as Minecraft is in a mod-load-ready state.
+	 * Registers the server tick statistics, which run on dedicated and integrated servers,
+	 * and records when initialization ran for the client's load timings.
 	 * Note: Some things (like resources) may still be uninitialized at this point.
 	 */
 	@Override
 	public void onInitialize() {
+		initializedAtMs = ManagementFactory.getRuntimeMXBean().getUptime();
+		ServerTickStats.register();
 
 		LOGGER.info("FPS Display initialized!");
 	}
+
+	/**
+	 * Gets when the common initializer ran.
+	 *
+	 * @return Milliseconds after JVM start, or -1 if it has not run yet
+	 */
+	public static long initializedAtMs() {
+		return initializedAtMs;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package net.honeyberries;
+
+import java.util.Arrays;
+
+/**
+ * Frame statistics math shared by the HUD, benchmarks and the offline analyzer.
+ * <p>
+ * Everything here works on plain frame durations and has no dependency on the game,
+ * so {@link FrameTimeAnalyzer} produces exactly the numbers the HUD shows for the same
+ * frames:
+ * - Average FPS: frame count divided by the summed frame time
+ * - 1% low FPS: average FPS of the slowest 1% of frames
+ * - 0.1% low FPS: average FPS of the slowest 0.1% of frames
+ * - Frame time percentiles (p50, p95, p99, p99.9), nearest-rank
+ * <p>
+ * Statistics are either exact, from sorted durations or an {@link OrderStatisticTree},
+ * or read from a {@link FrameTimeHistogram} with its error bound.
+ */
+public final class FrameStats {
+	/**
+	 * Private constructor to prevent instantiation.
+	 * This is a utility class with only static methods.
+	 */
+	private FrameStats() {
+	}
+
+	/**
+	 * Calculates every statistic exactly by sorting frame durations.
+	 *
+	 * @param durations Frame durations in nanoseconds; sorted in place
+	 * @param n Number of valid entries in durations (at least 1)
+	 * @param at Time to stamp the snapshot with
+	 * @return Statistics for the frames
+	 */
+	public static StatsSnapshot exactSnapshot(long[] durations, int n, long at) {
+		// 1% low: average FPS of the slowest 1% of frames
+		int k1 = Math.max(1, (int) Math.ceil(n * 0.01));
+		// 0.1% low: average FPS of the slowest 0.1% of frames
+		int k01 = Math.max(1, (int) Math.ceil(n * 0.001));
+
+		long sum = 0;
+		for (int i = 0; i < n; i++) {
+			if (durations[i] <= 0) durations[i] = 1; // Guard against zero/negative
+			sum += durations[i];
+		}
+
+		// Sort durations ascending (shortest to longest)
+		Arrays.sort(durations, 0, n);
+
+		// Compute 1% and 0.1% low FPS using helper
+		return new StatsSnapshot(
+				avgWorstFps(sum, n),
+				avgWorstFps(sumOfLargest(durations, n, k1), k1),
+				avgWorstFps(sumOfLargest(durations, n, k01), k01),
+				percentileMs(durations, n, 50),
+				percentileMs(durations, n, 95),
+				percentileMs(durations, n, 99),
+				percentileMs(durations, n, 99.9),
+				n,
+				at);
+	}
+
+	/**
+	 * Reads every statistic exactly from an order-statistic tree, without sorting.
+	 * Gives the same result as {@link #exactSnapshot(long[], int, long)} for the same frames.
+	 *
+	 * @param t Tree of the frame durations in a window
+	 * @param at Time to stamp the snapshot with
+	 * @return Statistics for the window, or {@link StatsSnapshot#EMPTY} if it has no frames
+	 */
+	public static StatsSnapshot orderedSnapshot(OrderStatisticTree t, long at) {
+		int n = t.size();
+		if (n <= 0) return StatsSnapshot.EMPTY;
+
+		int k1 = Math.max(1, (int) Math.ceil(n * 0.01));
+		int k01 = Math.max(1, (int) Math.ceil(n * 0.001));
+		return new StatsSnapshot(
+				avgWorstFps(t.getTotalSum(), n),
+				avgWorstFps(t.sumOfLargest(k1), k1),
+				avgWorstFps(t.sumOfLargest(k01), k01),
+				t.select(rank(n, 50)) / 1_000_000.0,
+				t.select(rank(n, 95)) / 1_000_000.0,
+				t.select(rank(n, 99)) / 1_000_000.0,
+				t.select(rank(n, 99.9)) / 1_000_000.0,
+				n,
+				at);
+	}
+
+	/**
+	 * Reads every statistic from a histogram.
+	 * The average uses the exact sum of the recorded durations; the lows and percentiles
+	 * carry the histogram's error bound.
+	 *
+	 * @param h Histogram of the frames in a window
+	 * @param at Time to stamp the snapshot with
+	 * @return Statistics for the window, or {@link StatsSnapshot#EMPTY} if it has no frames
+	 */
+	public static StatsSnapshot histogramSnapshot(FrameTimeHistogram h, long at) {
+		int n = h.getTotalCount();
+		if (n <= 0) return StatsSnapshot.EMPTY;
+
+		int k1 = Math.max(1, (int) Math.ceil(n * 0.01));
+		int k01 = Math.max(1, (int) Math.ceil(n * 0.001));
+		return new StatsSnapshot(
+				avgWorstFps(h.getTotalSum(), n),
+				avgWorstFps(h.sumOfLargest(k1), k1),
+				avgWorstFps(h.sumOfLargest(k01), k01),
+				h.valueAtPercentile(50) / 1_000_000.0,
+				h.valueAtPercentile(95) / 1_000_000.0,
+				h.valueAtPercentile(99) / 1_000_000.0,
+				h.valueAtPercentile(99.9) / 1_000_000.0,
+				n,
+				at);
+	}
+
+	/**
+	 * Sums the worst (slowest) k frames of a sorted duration buffer.
+	 * Used to compute 1% and 0.1% low FPS metrics.
+	 *
+	 * @param durations Sorted frame durations in nanoseconds (ascending order)
+	 * @param n Number of valid entries in durations
+	 * @param k Number of slowest frames to sum (from the end of the sorted range)
+	 * @return Total duration of the slowest k frames in nanoseconds
+	 */
+	private static long sumOfLargest(long[] durations, int n, int k) {
+		long sum = 0;
+		for (int i = Math.max(0, n - k); i < n; i++) sum += durations[i];
+		return sum;
+	}
+
+	/**
+	 * Calculates the average FPS for k frames from their summed duration.
+	 * Also gives the average FPS of a whole window when k is its frame count.
+	 *
+	 * @param sumNs Total duration of the k frames in nanoseconds
+	 * @param k Number of frames the sum covers
+	 * @return Average FPS for the k frames, or 0.0 if invalid input
+	 */
+	public static double avgWorstFps(long sumNs, int k) {
+		if (k <= 0 || sumNs <= 0) return 0.0;
+		return k * 1_000_000_000.0 / sumNs;
+	}
+
+	/**
+	 * Reads a percentile from sorted frame durations (nearest-rank method).
+	 *
+	 * @param durations Sorted frame durations in nanoseconds (ascending order)
+	 * @param n Number of valid entries in durations
+	 * @param percentile Percentile in the range 0-100
+	 * @return Frame time in milliseconds at the given percentile
+	 */
+	private static double percentileMs(long[] durations, int n, double percentile) {
+		return durations[rank(n, percentile) - 1] / 1_000_000.0;
+	}
+
+	/**
+	 * Calculates the nearest rank of a percentile.
+	 *
+	 * @param n Number of values (at least 1)
+	 * @param percentile Percentile in the range 0-100
+	 * @return Rank from 1 (smallest) to n (largest)
+	 */
+	private static int rank(int n, double percentile) {
+		int rank = (int) Math.ceil(percentile / 100.0 * n);
+		return Math.max(1, Math.min(n, rank));
+	}
+}
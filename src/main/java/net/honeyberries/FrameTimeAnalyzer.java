@@ -0,0 +1,411 @@
+package net.honeyberries;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * Command-line analyzer for frame-time captures, runnable without the game:
+ * <pre>
+ * java -cp fpsdisplay.jar net.honeyberries.FrameTimeAnalyzer [options] &lt;file or directory&gt;...
+ *   --histogram &lt;digits&gt;  Read the statistics from a histogram with 1-3 significant digits,
+ *                         like the HUD's histogram mode (default: exact, like exact mode)
+ *   --csv                 Print comma-separated values with full precision instead of a table
+ *   --threads &lt;n&gt;         Number of files analyzed in parallel (default: all cores)
+ * </pre>
+ * Reads session logs ({@code .fpslog}) and CSV captures ({@code .csv}) with a
+ * {@code msBetweenPresents} or {@code FrameTime} column, such as PresentMon captures and
+ * the mod's own exports. Directories are searched recursively for both.
+ * <p>
+ * Files are read with NIO, memory-mapped when larger than MAP_THRESHOLD, and analyzed in
+ * parallel on a {@link ForkJoinPool}. The statistics come from {@link FrameStats}, the same
+ * code the HUD uses, so the numbers match the HUD exactly for the same frames. A table
+ * row is printed per file, followed by an aggregate row over every frame of every file.
+ */
+public final class FrameTimeAnalyzer {
+	/**
+	 * Files larger than this are memory-mapped instead of read into the heap (1 MB).
+	 */
+	private static final long MAP_THRESHOLD = 1 << 20;
+
+	/**
+	 * Number of files below which a task analyzes its files itself instead of splitting.
+	 */
+	private static final int SPLIT_THRESHOLD = 2;
+
+	/**
+	 * Names of the CSV columns that hold the frame time in milliseconds, in order of preference.
+	 */
+	private static final String[] FRAME_TIME_COLUMNS = {"msBetweenPresents", "FrameTime"};
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 * This is a utility class with only static methods.
+	 */
+	private FrameTimeAnalyzer() {
+	}
+
+	/**
+	 * Analysis of one capture.
+	 *
+	 * @param file The capture
+	 * @param durations Frame durations in nanoseconds, or null if the file could not be read
+	 * @param stats Statistics for the file, or null if it could not be read
+	 * @param error Why the file could not be read, or null
+	 */
+	record FileResult(Path file, long[] durations, StatsSnapshot stats, String error) {
+	}
+
+	/**
+	 * Entry point.
+	 *
+	 * @param args Options and the files or directories to analyze
+	 */
+	public static void main(String[] args) {
+		int digits = 0;
+		boolean csv = false;
+		int threads = Runtime.getRuntime().availableProcessors();
+		List<Path> inputs = new ArrayList<>();
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+					case "--histogram" -> digits = Integer.parseInt(args[++i]);
+					case "--csv" -> csv = true;
+					case "--threads" -> threads = Math.max(1, Integer.parseInt(args[++i]));
+					default -> inputs.add(Path.of(args[i]));
+				}
+			}
+		} catch (RuntimeException e) {
+			inputs.clear(); // Missing or malformed option value
+		}
+		if (inputs.isEmpty()) {
+			System.err.println("Usage: FrameTimeAnalyzer [--histogram <digits>] [--csv] [--threads <n>] <file or directory>...");
+			System.exit(2);
+		}
+
+		List<Path> files;
+		try {
+			files = findCaptures(inputs);
+		} catch (IOException e) {
+			System.err.println("Could not list captures: " + e.getMessage());
+			System.exit(2);
+			return;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		List<FileResult> results = pool.invoke(new AnalyzeTask(files, 0, files.size(), digits));
+		pool.shutdown();
+
+		boolean failed = false;
+		for (FileResult r : results) {
+			if (r.error() != null) {
+				System.err.println(r.file() + ": " + r.error());
+				failed = true;
+			}
+		}
+		print(System.out, results, aggregate(results, digits), csv);
+		System.exit(failed ? 1 : 0);
+	}
+
+	/**
+	 * Expands directories into the captures they contain.
+	 *
+	 * @param inputs Files and directories given on the command line
+	 * @return Every capture, in a stable order
+	 * @throws IOException If a directory cannot be listed
+	 */
+	static List<Path> findCaptures(List<Path> inputs) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for (Path input : inputs) {
+			if (!Files.isDirectory(input)) {
+				files.add(input);
+				continue;
+			}
+			try (Stream<Path> walk = Files.walk(input)) {
+				walk.filter(Files::isRegularFile)
+						.filter(p -> p.toString().endsWith(".fpslog") || p.toString().endsWith(".csv"))
+						.sorted()
+						.forEach(files::add);
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Analyzes one capture.
+	 *
+	 * @param file The capture
+	 * @param digits Histogram precision, or 0 for exact statistics
+	 * @return The result, with an error message if the file could not be read
+	 */
+	static FileResult analyze(Path file, int digits) {
+		try {
+			long[] durations = file.toString().endsWith(".fpslog") ? readSessionLog(file) : readCsv(file);
+			if (durations.length == 0) return new FileResult(file, null, null, "no frames");
+			return new FileResult(file, durations, stats(durations.clone(), durations.length, digits), null);
+		} catch (IOException | RuntimeException e) {
+			return new FileResult(file, null, null, e.getMessage() != null ? e.getMessage() : e.toString());
+		}
+	}
+
+	/**
+	 * Calculates statistics for a set of frames the same way the HUD does.
+	 *
+	 * @param durations Frame durations in nanoseconds; may be reordered
+	 * @param n Number of valid entries
+	 * @param digits Histogram precision, or 0 for exact statistics
+	 * @return The statistics
+	 */
+	static StatsSnapshot stats(long[] durations, int n, int digits) {
+		if (digits <= 0) return FrameStats.exactSnapshot(durations, n, 0);
+
+		FrameTimeHistogram histogram = new FrameTimeHistogram(digits);
+		for (int i = 0; i < n; i++) histogram.record(durations[i]);
+		return FrameStats.histogramSnapshot(histogram, 0);
+	}
+
+	/**
+	 * Calculates statistics over every frame of every readable capture.
+	 *
+	 * @param results Per-file results
+	 * @param digits Histogram precision, or 0 for exact statistics
+	 * @return The aggregate statistics, or {@link StatsSnapshot#EMPTY} if no frames were read
+	 */
+	static StatsSnapshot aggregate(List<FileResult> results, int digits) {
+		long total = 0;
+		for (FileResult r : results) if (r.durations() != null) total += r.durations().length;
+		if (total == 0) return StatsSnapshot.EMPTY;
+		if (total > Integer.MAX_VALUE - 8) throw new IllegalStateException("Too many frames to aggregate: " + total);
+
+		long[] all = new long[(int) total];
+		int pos = 0;
+		for (FileResult r : results) {
+			if (r.durations() == null) continue;
+			System.arraycopy(r.durations(), 0, all, pos, r.durations().length);
+			pos += r.durations().length;
+		}
+		return stats(all, all.length, digits);
+	}
+
+	/**
+	 * Reads the frame durations of a session log.
+	 *
+	 * @param file The log
+	 * @return Frame durations in nanoseconds, in order
+	 * @throws IOException If the file cannot be read or is not a session log
+	 */
+	static long[] readSessionLog(Path file) throws IOException {
+		long[][] buffer = {new long[8192]};
+		int[] n = {0};
+		SessionLog.read(file, (timestampNs, durationNs, lostBefore) -> {
+			if (n[0] == buffer[0].length) buffer[0] = Arrays.copyOf(buffer[0], n[0] * 2);
+			buffer[0][n[0]++] = durationNs;
+		});
+		return Arrays.copyOf(buffer[0], n[0]);
+	}
+
+	/**
+	 * Reads the frame durations of a CSV capture.
+	 * Values are converted from milliseconds and rounded to whole nanoseconds, which
+	 * restores the exact durations of a CSV exported from a session log.
+	 *
+	 * @param file The capture
+	 * @return Frame durations in nanoseconds, in order
+	 * @throws IOException If the file cannot be read or has no frame time column
+	 */
+	static long[] readCsv(Path file) throws IOException {
+		ByteBuffer data = load(file);
+		int column = -1;
+		long[] durations = new long[8192];
+		int n = 0;
+
+		while (data.hasRemaining()) {
+			String line = nextLine(data);
+			if (line.isEmpty()) continue;
+			String[] fields = line.split(",", -1);
+			if (column < 0) {
+				column = frameTimeColumn(fields);
+				if (column < 0) throw new IOException("No msBetweenPresents or FrameTime column");
+				continue;
+			}
+			if (column >= fields.length || fields[column].isBlank()) continue;
+
+			if (n == durations.length) durations = Arrays.copyOf(durations, n * 2);
+			durations[n++] = Math.round(Double.parseDouble(fields[column].trim()) * 1_000_000.0);
+		}
+		if (column < 0) throw new IOException("Empty CSV capture");
+		return Arrays.copyOf(durations, n);
+	}
+
+	/**
+	 * Reads a whole file, memory-mapping it when it is large.
+	 *
+	 * @param file The file
+	 * @return Its contents, positioned at the start
+	 * @throws IOException If the file cannot be read or is larger than 2 GB
+	 */
+	private static ByteBuffer load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) throw new IOException("File too large: " + size + " bytes");
+			if (size > MAP_THRESHOLD) return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+				// Keep reading until full
+			}
+			return buffer.flip();
+		}
+	}
+
+	/**
+	 * Reads one line from a buffer, without its line terminator.
+	 *
+	 * @param data Buffer positioned at the start of a line; advanced past the line
+	 * @return The line, decoded as UTF-8
+	 */
+	private static String nextLine(ByteBuffer data) {
+		int start = data.position();
+		int end = start;
+		while (end < data.limit() && data.get(end) != '\n') end++;
+		data.position(Math.min(data.limit(), end + 1));
+		if (end > start && data.get(end - 1) == '\r') end--;
+
+		byte[] bytes = new byte[end - start];
+		data.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Finds the frame time column in a CSV header.
+	 *
+	 * @param header Header fields
+	 * @return Index of the column, or -1 if there is none
+	 */
+	private static int frameTimeColumn(String[] header) {
+		for (String name : FRAME_TIME_COLUMNS) {
+			for (int i = 0; i < header.length; i++) {
+				if (header[i].trim().equalsIgnoreCase(name)) return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Prints the per-file rows and the aggregate row.
+	 * In table mode FPS values are rounded half-up to whole numbers, as on the HUD.
+	 *
+	 * @param out Stream to print to
+	 * @param results Per-file results; unreadable files are skipped
+	 * @param all Aggregate statistics
+	 * @param csv Whether to print comma-separated values with full precision
+	 */
+	static void print(PrintStream out, List<FileResult> results, StatsSnapshot all, boolean csv) {
+		if (csv) {
+			out.println("File,Frames,AvgFps,OnePercentLowFps,PointOnePercentLowFps,P50Ms,P95Ms,P99Ms,P999Ms");
+		} else {
+			out.printf(Locale.ROOT, "%-40s %9s %8s %8s %8s %8s %8s %8s %8s%n",
+					"File", "Frames", "Avg FPS", "1% Low", "0.1% Low", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms");
+		}
+		for (FileResult r : results) {
+			if (r.stats() != null) row(out, r.file().toString(), r.stats(), csv);
+		}
+		row(out, "ALL", all, csv);
+	}
+
+	/**
+	 * Prints one row.
+	 *
+	 * @param out Stream to print to
+	 * @param name Row name
+	 * @param s Statistics for the row
+	 * @param csv Whether to print comma-separated values with full precision
+	 */
+	private static void row(PrintStream out, String name, StatsSnapshot s, boolean csv) {
+		if (csv) {
+			out.println(name.replace(',', '_') + "," + s.frameCount() + "," + s.avgFps() + "," + s.onePercentLowFps()
+					+ "," + s.pointOnePercentLowFps() + "," + s.p50FrameTimeMs() + "," + s.p95FrameTimeMs()
+					+ "," + s.p99FrameTimeMs() + "," + s.p999FrameTimeMs());
+			return;
+		}
+		String shown = name.length() > 40 ? "..." + name.substring(name.length() - 37) : name;
+		out.printf(Locale.ROOT, "%-40s %9d %8d %8d %8d %8.2f %8.2f %8.2f %8.2f%n",
+				shown, s.frameCount(), Math.round(s.avgFps()), Math.round(Math.max(0.0, s.onePercentLowFps())),
+				Math.round(Math.max(0.0, s.pointOnePercentLowFps())),
+				s.p50FrameTimeMs(), s.p95FrameTimeMs(), s.p99FrameTimeMs(), s.p999FrameTimeMs());
+	}
+
+	/**
+	 * Analyzes a range of files, splitting it in half until it is small.
+	 * Never serialized, although every ForkJoinTask is Serializable.
+	 */
+	@SuppressWarnings("serial")
+	private static final class AnalyzeTask extends RecursiveTask<List<FileResult>> {
+		/**
+		 * Every file being analyzed.
+		 */
+		private final List<Path> files;
+
+		/**
+		 * First file of this task's range.
+		 */
+		private final int from;
+
+		/**
+		 * End of this task's range (exclusive).
+		 */
+		private final int to;
+
+		/**
+		 * Histogram precision, or 0 for exact statistics.
+		 */
+		private final int digits;
+
+		/**
+		 * Creates a task for a range of files.
+		 *
+		 * @param files Every file being analyzed
+		 * @param from First file of the range
+		 * @param to End of the range (exclusive)
+		 * @param digits Histogram precision, or 0 for exact statistics
+		 */
+		AnalyzeTask(List<Path> files, int from, int to, int digits) {
+			this.files = files;
+			this.from = from;
+			this.to = to;
+			this.digits = digits;
+		}
+
+		/**
+		 * @return Results for the range, in file order
+		 */
+		@Override
+		protected List<FileResult> compute() {
+			if (to - from <= SPLIT_THRESHOLD) {
+				List<FileResult> results = new ArrayList<>(to - from);
+				for (int i = from; i < to; i++) results.add(analyze(files.get(i), digits));
+				return results;
+			}
+
+			int mid = (from + to) >>> 1;
+			AnalyzeTask left = new AnalyzeTask(files, from, mid, digits);
+			left.fork();
+			List<FileResult> right = new AnalyzeTask(files, mid, to, digits).compute();
+			List<FileResult> results = new ArrayList<>(left.join());
+			results.addAll(right);
+			return results;
+		}
+	}
+}
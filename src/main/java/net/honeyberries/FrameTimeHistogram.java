@@ -0,0 +1,292 @@
+package net.honeyberries;
+
+import java.util.Arrays;
+
+/**
+ * Log/linear bucketed histogram of frame durations, in the style of HdrHistogram.
+ * <p>
+ * Values (nanoseconds) below the sub-bucket count are stored exactly. Larger values
+ * fall into power-of-two ranges that are each split into a fixed number of linear
+ * sub-buckets, which bounds the relative error of any reading by the configured
+ * number of significant digits:
+ * - 1 digit: ~6% worst-case error
+ * - 2 digits: ~0.8% worst-case error
+ * - 3 digits: ~0.1% worst-case error
+ * <p>
+ * Recording and removing a value is O(1) and never allocates. Percentile and
+ * "sum of the slowest k" queries walk the bucket array once (O(buckets)).
+ * <p>
+ * This class is not thread-safe; callers must provide their own synchronization.
+ */
+public final class FrameTimeHistogram {
+    /**
+     * Largest trackable duration in nanoseconds (60 seconds).
+     * Longer frames are clamped into the top bucket.
+     */
+    private static final long MAX_VALUE_NS = 60_000_000_000L;
+
+    /**
+     * Number of significant decimal digits preserved by the bucket layout.
+     */
+    private final int significantDigits;
+
+    /**
+     * log2 of the number of sub-buckets per power-of-two range.
+     */
+    private final int subBucketBits;
+
+    /**
+     * Half the sub-bucket count; the number of new buckets each power-of-two range adds.
+     */
+    private final int subBucketHalfCount;
+
+    /**
+     * Frame counts per bucket.
+     */
+    private final int[] counts;
+
+    /**
+     * Number of values currently recorded.
+     */
+    private int totalCount = 0;
+
+    /**
+     * Exact sum of all values currently recorded, in nanoseconds.
+     */
+    private long totalSum = 0;
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param significantDigits Precision of the bucket layout (clamped to 1-3)
+     */
+    public FrameTimeHistogram(int significantDigits) {
+        this.significantDigits = Math.max(1, Math.min(3, significantDigits));
+
+        // Enough sub-buckets that two adjacent values 10^-digits apart never share one
+        int largestSingleUnit = 2 * (int) Math.pow(10, this.significantDigits);
+        this.subBucketBits = 32 - Integer.numberOfLeadingZeros(largestSingleUnit - 1);
+        this.subBucketHalfCount = 1 << (subBucketBits - 1);
+        this.counts = new int[indexFor(MAX_VALUE_NS) + 1];
+    }
+
+    /**
+     * @return The number of significant digits this histogram was built with
+     */
+    public int getSignificantDigits() {
+        return significantDigits;
+    }
+
+    /**
+     * @return The number of values currently recorded
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return The exact sum of all recorded values in nanoseconds
+     */
+    public long getTotalSum() {
+        return totalSum;
+    }
+
+    /**
+     * Records a single frame duration.
+     *
+     * @param valueNs Frame duration in nanoseconds (clamped to at least 1)
+     */
+    public void record(long valueNs) {
+        long v = clamp(valueNs);
+        counts[indexFor(v)]++;
+        totalCount++;
+        totalSum += v;
+    }
+
+    /**
+     * Removes a frame duration previously added with {@link #record(long)}.
+     * Used when frames leave the rolling window.
+     *
+     * @param valueNs Frame duration in nanoseconds, exactly as it was recorded
+     */
+    public void remove(long valueNs) {
+        long v = clamp(valueNs);
+        int index = indexFor(v);
+        if (counts[index] == 0) return; // Never recorded; ignore rather than go negative
+        counts[index]--;
+        totalCount--;
+        totalSum -= v;
+    }
+
+    /**
+     * Removes every recorded value.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        totalSum = 0;
+    }
+
+    /**
+     * Copies every non-empty bucket into sparse arrays and empties this histogram.
+     * Used to store a short interval compactly so it can later be added to or removed
+     * from a histogram with the same precision.
+     *
+     * @param indices Receives the bucket indices; needs room for {@link #getTotalCount()} entries
+     * @param bucketCounts Receives the count of each bucket, parallel to indices
+     * @return Number of entries written
+     */
+    int drainBuckets(int[] indices, int[] bucketCounts) {
+        int n = 0;
+        for (int i = 0; i < counts.length && totalCount > 0; i++) {
+            int c = counts[i];
+            if (c == 0) continue;
+            indices[n] = i;
+            bucketCounts[n++] = c;
+            counts[i] = 0;
+            totalCount -= c;
+        }
+        totalSum = 0;
+        return n;
+    }
+
+    /**
+     * Adds buckets produced by {@link #drainBuckets(int[], int[])}.
+     *
+     * @param indices Bucket indices
+     * @param bucketCounts Count of each bucket, parallel to indices
+     * @param n Number of entries
+     * @param sum Exact sum of the values the buckets hold, in nanoseconds
+     */
+    void addBuckets(int[] indices, int[] bucketCounts, int n, long sum) {
+        for (int i = 0; i < n; i++) {
+            counts[indices[i]] += bucketCounts[i];
+            totalCount += bucketCounts[i];
+        }
+        totalSum += sum;
+    }
+
+    /**
+     * Removes buckets previously added with {@link #addBuckets(int[], int[], int, long)}.
+     *
+     * @param indices Bucket indices
+     * @param bucketCounts Count of each bucket, parallel to indices
+     * @param n Number of entries
+     * @param sum Exact sum of the values the buckets hold, in nanoseconds
+     */
+    void removeBuckets(int[] indices, int[] bucketCounts, int n, long sum) {
+        for (int i = 0; i < n; i++) {
+            counts[indices[i]] -= bucketCounts[i];
+            totalCount -= bucketCounts[i];
+        }
+        totalSum -= sum;
+    }
+
+    /**
+     * Gets the frame duration at the given percentile.
+     *
+     * @param percentile Percentile in the range 0-100 (e.g. 99.9)
+     * @return Representative duration in nanoseconds, or 0 if the histogram is empty
+     */
+    public long valueAtPercentile(double percentile) {
+        if (totalCount == 0) return 0;
+        double p = Math.max(0.0, Math.min(100.0, percentile));
+        long target = Math.max(1, (long) Math.ceil(p / 100.0 * totalCount));
+
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) return representativeValue(i);
+        }
+        return representativeValue(counts.length - 1);
+    }
+
+    /**
+     * Approximates the sum of the k slowest recorded frames.
+     * Whole buckets contribute their representative value times their count, so the
+     * result carries the same relative error bound as any single reading.
+     *
+     * @param k Number of slowest frames to include
+     * @return Sum of the k largest durations in nanoseconds
+     */
+    public long sumOfLargest(int k) {
+        int remaining = Math.min(k, totalCount);
+        long sum = 0;
+        for (int i = counts.length - 1; i >= 0 && remaining > 0; i--) {
+            int c = counts[i];
+            if (c == 0) continue;
+            int take = Math.min(c, remaining);
+            sum += take * representativeValue(i);
+            remaining -= take;
+        }
+        return sum;
+    }
+
+    /**
+     * Gets the bucket a duration is counted in.
+     * Bucket indices are ordered like the durations they hold.
+     *
+     * @param valueNs Duration in nanoseconds
+     * @return Bucket index
+     */
+    int bucketOf(long valueNs) {
+        return indexFor(clamp(valueNs));
+    }
+
+    /**
+     * Gets the bucket holding the k-th slowest recorded frame.
+     *
+     * @param k Rank from the slowest frame, starting at 1
+     * @return Bucket index, or 0 if fewer than k frames are recorded
+     */
+    int bucketOfLargest(int k) {
+        int remaining = k;
+        for (int i = counts.length - 1; i >= 0; i--) {
+            remaining -= counts[i];
+            if (remaining <= 0) return i;
+        }
+        return 0;
+    }
+
+    /**
+     * Maps a value to its bucket index.
+     *
+     * @param v Value in nanoseconds, already clamped
+     * @return Index into the counts array
+     */
+    private int indexFor(long v) {
+        int bucketCount = subBucketHalfCount << 1;
+        if (v < bucketCount) return (int) v; // Linear region: exact
+
+        // Shift so the value keeps subBucketBits significant bits
+        int exponent = (63 - Long.numberOfLeadingZeros(v)) - (subBucketBits - 1);
+        int subBucket = (int) (v >>> exponent); // In [half, count)
+        return (exponent + 1) * subBucketHalfCount + (subBucket - subBucketHalfCount);
+    }
+
+    /**
+     * Gets the value reported for a bucket: the midpoint of its range.
+     *
+     * @param index Bucket index
+     * @return Representative value in nanoseconds
+     */
+    private long representativeValue(int index) {
+        int bucketCount = subBucketHalfCount << 1;
+        if (index < bucketCount) return index;
+
+        int exponent = index / subBucketHalfCount - 1;
+        long subBucket = index % subBucketHalfCount + subBucketHalfCount;
+        long low = subBucket << exponent;
+        return low + ((1L << exponent) >> 1);
+    }
+
+    /**
+     * Clamps a duration into the trackable range.
+     *
+     * @param valueNs Raw duration in nanoseconds
+     * @return Duration in the range [1, MAX_VALUE_NS]
+     */
+    private static long clamp(long valueNs) {
+        return Math.max(1, Math.min(MAX_VALUE_NS, valueNs)); // Guard against zero/negative
+    }
+}
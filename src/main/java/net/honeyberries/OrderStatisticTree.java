@@ -0,0 +1,344 @@
+package net.honeyberries;
+
+import java.util.Arrays;
+
+/**
+ * Multiset of frame durations that answers exact order-statistic queries in O(log n).
+ * <p>
+ * A treap (randomized balanced binary search tree) whose nodes live in parallel
+ * primitive arrays, so adding and removing values never allocates once the arrays
+ * have grown to the window size. Each node holds a distinct duration with its
+ * multiplicity, and every subtree keeps its value count and exact sum. That gives:
+ * - {@link #add(long)} and {@link #remove(long)}: O(log n) expected
+ * - {@link #sumOfLargest(int)}: exact sum of the k slowest frames, O(log n)
+ * - {@link #select(int)}: the k-th smallest value, O(log n)
+ * <p>
+ * Unlike {@link FrameTimeHistogram} the answers are exact, and unlike sorting a copy
+ * of the window they cost the same however often they are asked.
+ * <p>
+ * This class is not thread-safe; callers must provide their own synchronization.
+ */
+public final class OrderStatisticTree {
+	/**
+	 * Index of the empty subtree. Slot 0 of every array is reserved for it.
+	 */
+	private static final int NIL = 0;
+
+	/**
+	 * Initial number of node slots, including NIL.
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * Duration of each node in nanoseconds.
+	 */
+	private long[] key = new long[INITIAL_CAPACITY];
+
+	/**
+	 * Number of copies of the node's duration.
+	 */
+	private int[] multiplicity = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Number of values in the node's subtree, copies included.
+	 */
+	private int[] count = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Sum of the values in the node's subtree in nanoseconds.
+	 */
+	private long[] sum = new long[INITIAL_CAPACITY];
+
+	/**
+	 * Left child of each node.
+	 */
+	private int[] left = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Right child of each node; also links the free list.
+	 */
+	private int[] right = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Heap priority of each node.
+	 */
+	private int[] priority = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Root node.
+	 */
+	private int root = NIL;
+
+	/**
+	 * First node of the free list, or NIL if it is empty.
+	 */
+	private int free = NIL;
+
+	/**
+	 * Lowest slot that has never been used.
+	 */
+	private int nextUnused = 1;
+
+	/**
+	 * State of the xorshift generator for priorities.
+	 */
+	private int seed = 0x2545F491;
+
+	/**
+	 * @return The number of values currently stored
+	 */
+	public int size() {
+		return count[root];
+	}
+
+	/**
+	 * @return The exact sum of all stored values in nanoseconds
+	 */
+	public long getTotalSum() {
+		return sum[root];
+	}
+
+	/**
+	 * Adds a value.
+	 *
+	 * @param value Duration in nanoseconds (clamped to at least 1)
+	 */
+	public void add(long value) {
+		root = insert(root, Math.max(1, value));
+	}
+
+	/**
+	 * Removes one copy of a value previously added with {@link #add(long)}.
+	 * Values that are not present are ignored.
+	 *
+	 * @param value Duration in nanoseconds, exactly as it was added
+	 */
+	public void remove(long value) {
+		root = delete(root, Math.max(1, value));
+	}
+
+	/**
+	 * Removes every value.
+	 */
+	public void clear() {
+		root = NIL;
+		free = NIL;
+		nextUnused = 1;
+	}
+
+	/**
+	 * Sums the k largest values.
+	 *
+	 * @param k Number of largest values to include
+	 * @return Exact sum of the k largest values in nanoseconds
+	 */
+	public long sumOfLargest(int k) {
+		long total = 0;
+		int remaining = Math.min(k, size());
+		int node = root;
+		while (node != NIL && remaining > 0) {
+			int r = right[node];
+			if (count[r] >= remaining) {
+				node = r;
+				continue;
+			}
+			total += sum[r];
+			remaining -= count[r];
+			int take = Math.min(multiplicity[node], remaining);
+			total += take * key[node];
+			remaining -= take;
+			node = left[node];
+		}
+		return total;
+	}
+
+	/**
+	 * Finds the k-th smallest value.
+	 *
+	 * @param rank Rank from 1 (smallest) to {@link #size()} (largest); clamped into that range
+	 * @return The value at that rank in nanoseconds, or 0 if empty
+	 */
+	public long select(int rank) {
+		if (size() == 0) return 0;
+		int remaining = Math.max(1, Math.min(size(), rank));
+		int node = root;
+		while (true) {
+			int l = left[node];
+			if (remaining <= count[l]) {
+				node = l;
+			} else if (remaining <= count[l] + multiplicity[node]) {
+				return key[node];
+			} else {
+				remaining -= count[l] + multiplicity[node];
+				node = right[node];
+			}
+		}
+	}
+
+	/**
+	 * Inserts a value into a subtree.
+	 *
+	 * @param node Root of the subtree
+	 * @param value Value to insert
+	 * @return New root of the subtree
+	 */
+	private int insert(int node, long value) {
+		if (node == NIL) return newNode(value);
+		if (value == key[node]) {
+			multiplicity[node]++;
+		} else if (value < key[node]) {
+			int child = insert(left[node], value); // May grow the arrays, so store after the call
+			left[node] = child;
+			if (priority[child] > priority[node]) node = rotateRight(node);
+		} else {
+			int child = insert(right[node], value);
+			right[node] = child;
+			if (priority[child] > priority[node]) node = rotateLeft(node);
+		}
+		update(node);
+		return node;
+	}
+
+	/**
+	 * Removes one copy of a value from a subtree.
+	 *
+	 * @param node Root of the subtree
+	 * @param value Value to remove
+	 * @return New root of the subtree
+	 */
+	private int delete(int node, long value) {
+		if (node == NIL) return NIL; // Not present
+		if (value < key[node]) {
+			left[node] = delete(left[node], value);
+		} else if (value > key[node]) {
+			right[node] = delete(right[node], value);
+		} else {
+			if (multiplicity[node] > 1) {
+				multiplicity[node]--;
+			} else {
+				return unlink(node);
+			}
+		}
+		update(node);
+		return node;
+	}
+
+	/**
+	 * Removes a node by rotating it down until it has at most one child.
+	 *
+	 * @param node Node to remove
+	 * @return New root of its subtree
+	 */
+	private int unlink(int node) {
+		if (left[node] == NIL || right[node] == NIL) {
+			int child = left[node] == NIL ? right[node] : left[node];
+			release(node);
+			return child;
+		}
+
+		int top;
+		if (priority[left[node]] > priority[right[node]]) {
+			top = rotateRight(node);
+			right[top] = unlink(node);
+		} else {
+			top = rotateLeft(node);
+			left[top] = unlink(node);
+		}
+		update(top);
+		return top;
+	}
+
+	/**
+	 * Rotates a node's left child above it.
+	 *
+	 * @param node The node
+	 * @return The new subtree root
+	 */
+	private int rotateRight(int node) {
+		int l = left[node];
+		left[node] = right[l];
+		right[l] = node;
+		update(node);
+		update(l);
+		return l;
+	}
+
+	/**
+	 * Rotates a node's right child above it.
+	 *
+	 * @param node The node
+	 * @return The new subtree root
+	 */
+	private int rotateLeft(int node) {
+		int r = right[node];
+		right[node] = left[r];
+		left[r] = node;
+		update(node);
+		update(r);
+		return r;
+	}
+
+	/**
+	 * Recomputes a node's subtree count and sum from its children.
+	 *
+	 * @param node The node
+	 */
+	private void update(int node) {
+		count[node] = count[left[node]] + count[right[node]] + multiplicity[node];
+		sum[node] = sum[left[node]] + sum[right[node]] + multiplicity[node] * key[node];
+	}
+
+	/**
+	 * Takes a node slot from the free list, or a new one, and initialises it.
+	 *
+	 * @param value Value the node holds
+	 * @return The node
+	 */
+	private int newNode(long value) {
+		int node;
+		if (free != NIL) {
+			node = free;
+			free = right[node];
+		} else {
+			if (nextUnused == key.length) grow();
+			node = nextUnused++;
+		}
+
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+
+		key[node] = value;
+		multiplicity[node] = 1;
+		count[node] = 1;
+		sum[node] = value;
+		left[node] = NIL;
+		right[node] = NIL;
+		priority[node] = seed;
+		return node;
+	}
+
+	/**
+	 * Returns a node slot to the free list.
+	 *
+	 * @param node The node
+	 */
+	private void release(int node) {
+		right[node] = free;
+		free = node;
+	}
+
+	/**
+	 * Doubles the capacity of every node array.
+	 */
+	private void grow() {
+		int capacity = key.length * 2;
+		key = Arrays.copyOf(key, capacity);
+		multiplicity = Arrays.copyOf(multiplicity, capacity);
+		count = Arrays.copyOf(count, capacity);
+		sum = Arrays.copyOf(sum, capacity);
+		left = Arrays.copyOf(left, capacity);
+		right = Arrays.copyOf(right, capacity);
+		priority = Arrays.copyOf(priority, capacity);
+	}
+}
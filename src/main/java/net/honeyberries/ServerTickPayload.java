@@ -0,0 +1,41 @@
+package net.honeyberries;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.Identifier;
+
+/**
+ * Server tick statistics sent from the server to subscribed clients once per second.
+ * Every value is a VarInt in fixed-point units, so a payload is about ten bytes.
+ *
+ * @param msptAvgMicros Average tick time in microseconds
+ * @param msptP99Micros 99th percentile tick time in microseconds
+ * @param msptMaxMicros Longest tick time in microseconds
+ * @param tpsHundredths Ticks per second times 100
+ */
+public record ServerTickPayload(int msptAvgMicros, int msptP99Micros, int msptMaxMicros, int tpsHundredths) implements CustomPacketPayload {
+	/**
+	 * Payload type, registered for server-to-client play packets.
+	 */
+	public static final Type<ServerTickPayload> TYPE = new Type<>(Identifier.fromNamespaceAndPath(FPSDisplay.MOD_ID, "server_tick"));
+
+	/**
+	 * Wire format of the payload.
+	 */
+	public static final StreamCodec<ByteBuf, ServerTickPayload> CODEC = StreamCodec.composite(
+			ByteBufCodecs.VAR_INT, ServerTickPayload::msptAvgMicros,
+			ByteBufCodecs.VAR_INT, ServerTickPayload::msptP99Micros,
+			ByteBufCodecs.VAR_INT, ServerTickPayload::msptMaxMicros,
+			ByteBufCodecs.VAR_INT, ServerTickPayload::tpsHundredths,
+			ServerTickPayload::new);
+
+	/**
+	 * @return The payload type
+	 */
+	@Override
+	public Type<ServerTickPayload> type() {
+		return TYPE;
+	}
+}
@@ -0,0 +1,182 @@
+package net.honeyberries;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Measures server tick times and sends them to subscribed clients.
+ * <p>
+ * Every tick is timed between the start and end tick events and added to a rolling
+ * window of the last WINDOW_TICKS ticks, kept in a ring and a {@link FrameTimeHistogram}
+ * like the client's frame statistics. That costs two System.nanoTime() calls and O(1)
+ * bookkeeping per tick. Once per second, and only while at least one client is
+ * subscribed, the window is summarised into a {@link ServerTickPayload}: average,
+ * 99th percentile and longest tick time, plus the tick rate actually achieved.
+ * <p>
+ * Clients opt in with a {@link ServerTickSubscribePayload}. Works the same on dedicated
+ * and integrated servers. Everything runs on the server thread, so nothing is locked.
+ */
+public final class ServerTickStats {
+	/**
+	 * Number of ticks in the rolling window (5 seconds at 20 TPS).
+	 */
+	private static final int WINDOW_TICKS = 100;
+
+	/**
+	 * Time between payloads in nanoseconds (1 second).
+	 */
+	private static final long SEND_INTERVAL_NS = 1_000_000_000L;
+
+	/**
+	 * Start time of each tick in the window, indexed like durations.
+	 */
+	private static final long[] starts = new long[WINDOW_TICKS];
+
+	/**
+	 * Duration of each tick in the window in nanoseconds; a ring starting at head.
+	 */
+	private static final long[] durations = new long[WINDOW_TICKS];
+
+	/**
+	 * Tick durations in the window, kept in sync with the ring.
+	 */
+	private static final FrameTimeHistogram histogram = new FrameTimeHistogram(2);
+
+	/**
+	 * Index of the oldest tick in the ring.
+	 */
+	private static int head = 0;
+
+	/**
+	 * Number of ticks in the ring.
+	 */
+	private static int size = 0;
+
+	/**
+	 * Start time of the current tick.
+	 */
+	private static long tickStart = 0;
+
+	/**
+	 * Time the last payload was sent.
+	 */
+	private static long lastSendNs = 0;
+
+	/**
+	 * Players that asked for server tick statistics.
+	 */
+	private static final Set<UUID> subscribers = new HashSet<>();
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 * This is a utility class with only static methods.
+	 */
+	private ServerTickStats() {
+	}
+
+	/**
+	 * Registers the payload types, the tick listeners and the subscription handling.
+	 * Called once from the common initializer.
+	 */
+	public static void register() {
+		PayloadTypeRegistry.playS2C().register(ServerTickPayload.TYPE, ServerTickPayload.CODEC);
+		PayloadTypeRegistry.playC2S().register(ServerTickSubscribePayload.TYPE, ServerTickSubscribePayload.CODEC);
+
+		ServerTickEvents.START_SERVER_TICK.register(server -> tickStart = System.nanoTime());
+		ServerTickEvents.END_SERVER_TICK.register(ServerTickStats::onTickEnd);
+		ServerLifecycleEvents.SERVER_STARTING.register(server -> reset()); // Integrated servers are reused across worlds
+
+		ServerPlayNetworking.registerGlobalReceiver(ServerTickSubscribePayload.TYPE, (payload, context) -> {
+			UUID id = context.player().getUUID();
+			if (payload.subscribe()) {
+				subscribers.add(id);
+			} else {
+				subscribers.remove(id);
+			}
+		});
+		ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> subscribers.remove(handler.player.getUUID()));
+	}
+
+	/**
+	 * Records the tick that just ended and sends the statistics when they are due.
+	 *
+	 * @param server The ticking server
+	 */
+	private static void onTickEnd(MinecraftServer server) {
+		long now = System.nanoTime();
+		if (tickStart == 0) return; // Ended a tick we did not see start
+
+		long duration = now - tickStart;
+		if (size == WINDOW_TICKS) {
+			histogram.remove(durations[head]);
+			head = (head + 1) % WINDOW_TICKS;
+			size--;
+		}
+		int tail = (head + size) % WINDOW_TICKS;
+		starts[tail] = tickStart;
+		durations[tail] = duration;
+		histogram.record(duration);
+		size++;
+
+		if (now - lastSendNs < SEND_INTERVAL_NS || subscribers.isEmpty()) return;
+		lastSendNs = now;
+		send(server, summarise());
+	}
+
+	/**
+	 * Summarises the window into a payload.
+	 *
+	 * @return Statistics for the ticks in the window
+	 */
+	private static ServerTickPayload summarise() {
+		long max = 0;
+		for (int i = 0; i < size; i++) max = Math.max(max, durations[(head + i) % WINDOW_TICKS]);
+
+		// Ticks per second from the spacing of tick starts; needs at least two ticks
+		long first = starts[head];
+		long last = starts[(head + size - 1) % WINDOW_TICKS];
+		double tps = size > 1 && last > first ? (size - 1) * 1_000_000_000.0 / (last - first) : 0.0;
+
+		return new ServerTickPayload(
+				(int) (histogram.getTotalSum() / Math.max(1, size) / 1000),
+				(int) (histogram.valueAtPercentile(99) / 1000),
+				(int) (max / 1000),
+				(int) Math.round(tps * 100));
+	}
+
+	/**
+	 * Sends a payload to every subscribed player that can receive it.
+	 *
+	 * @param server The server the players are on
+	 * @param payload The payload to send
+	 */
+	private static void send(MinecraftServer server, ServerTickPayload payload) {
+		for (UUID id : subscribers) {
+			ServerPlayer player = server.getPlayerList().getPlayer(id);
+			if (player != null && ServerPlayNetworking.canSend(player, ServerTickPayload.TYPE)) {
+				ServerPlayNetworking.send(player, payload);
+			}
+		}
+	}
+
+	/**
+	 * Empties the window and forgets every subscriber.
+	 */
+	private static void reset() {
+		histogram.reset();
+		head = 0;
+		size = 0;
+		tickStart = 0;
+		lastSendNs = 0;
+		subscribers.clear();
+	}
+}
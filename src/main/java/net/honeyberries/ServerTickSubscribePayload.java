@@ -0,0 +1,33 @@
+package net.honeyberries;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.Identifier;
+
+/**
+ * Sent by a client to start or stop receiving {@link ServerTickPayload}s.
+ *
+ * @param subscribe Whether the client wants server tick statistics
+ */
+public record ServerTickSubscribePayload(boolean subscribe) implements CustomPacketPayload {
+	/**
+	 * Payload type, registered for client-to-server play packets.
+	 */
+	public static final Type<ServerTickSubscribePayload> TYPE = new Type<>(Identifier.fromNamespaceAndPath(FPSDisplay.MOD_ID, "server_tick_subscribe"));
+
+	/**
+	 * Wire format of the payload.
+	 */
+	public static final StreamCodec<ByteBuf, ServerTickSubscribePayload> CODEC = ByteBufCodecs.BOOL
+			.map(ServerTickSubscribePayload::new, ServerTickSubscribePayload::subscribe);
+
+	/**
+	 * @return The payload type
+	 */
+	@Override
+	public Type<ServerTickSubscribePayload> type() {
+		return TYPE;
+	}
+}
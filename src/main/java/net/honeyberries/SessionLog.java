@@ -0,0 +1,265 @@
+package net.honeyberries;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary session log format and readers for it.
+ * <p>
+ * Layout (little-endian):
+ * <pre>
+ * offset size field
+ *      0    4 magic "FPSL" (0x4650534C)
+ *      4    4 format version (1)
+ *      8    8 process id of the game
+ *     16    8 wall-clock start time (epoch milliseconds)
+ *     24    8 timestamp of the first frame (System.nanoTime())
+ *     32    8 number of valid data bytes after the header
+ *     40    - frame records
+ * </pre>
+ * Each frame record is the frame duration in nanoseconds as an unsigned LEB128 varint
+ * (2-4 bytes for typical frame times). A zero byte is an escape: it is followed by the
+ * number of frames the recorder lost as a varint, then the duration of the next
+ * recorded frame, which then spans the gap.
+ */
+public final class SessionLog {
+    /**
+     * File magic, "FPSL" in ASCII.
+     */
+    static final int MAGIC = 0x4650534C;
+
+    /**
+     * Current format version.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Size of the fixed header in bytes.
+     */
+    static final int HEADER_SIZE = 40;
+
+    /**
+     * Offset of the process id field.
+     */
+    static final int OFF_PID = 8;
+
+    /**
+     * Offset of the wall-clock start time field.
+     */
+    static final int OFF_START_EPOCH_MS = 16;
+
+    /**
+     * Offset of the first frame timestamp field.
+     */
+    static final int OFF_FIRST_FRAME_NS = 24;
+
+    /**
+     * Offset of the valid data length field.
+     */
+    static final int OFF_DATA_LENGTH = 32;
+
+    /**
+     * Largest number of bytes a single frame record (including an escape) can take.
+     */
+    static final int MAX_RECORD_BYTES = 1 + 10 + 10;
+
+    /**
+     * Column layout compatible with PresentMon CSV captures.
+     */
+    private static final String CSV_HEADER = "Application,ProcessID,SwapChainAddress,Runtime,SyncInterval,PresentFlags,Dropped,"
+            + "TimeInSeconds,msBetweenPresents,msBetweenDisplayChange,msInPresentAPI,msUntilRenderComplete,msUntilDisplayed";
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private SessionLog() {
+    }
+
+    /**
+     * Receives the frames of a session log in order.
+     */
+    @FunctionalInterface
+    public interface FrameVisitor {
+        /**
+         * Called once per recorded frame.
+         *
+         * @param timestampNs End of the frame relative to the first frame (in nanoseconds)
+         * @param durationNs Duration of the frame in nanoseconds
+         * @param lostBefore Number of frames the recorder lost right before this one
+         */
+        void frame(long timestampNs, long durationNs, long lostBefore);
+    }
+
+    /**
+     * Session log header fields.
+     *
+     * @param pid Process id of the game that recorded the log
+     * @param startEpochMillis Wall-clock time the recording started
+     * @param firstFrameNanos System.nanoTime() of the first frame
+     * @param dataLength Number of valid data bytes after the header
+     */
+    public record Header(long pid, long startEpochMillis, long firstFrameNanos, long dataLength) {
+    }
+
+    /**
+     * Writes a fresh header into the start of a buffer.
+     *
+     * @param header Buffer positioned anywhere; only absolute writes are used
+     * @param pid Process id of the game
+     * @param startEpochMillis Wall-clock start time
+     */
+    static void writeHeader(ByteBuffer header, long pid, long startEpochMillis) {
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putLong(OFF_PID, pid);
+        header.putLong(OFF_START_EPOCH_MS, startEpochMillis);
+        header.putLong(OFF_FIRST_FRAME_NS, 0);
+        header.putLong(OFF_DATA_LENGTH, 0);
+    }
+
+    /**
+     * Encodes one frame record.
+     *
+     * @param out Destination with at least MAX_RECORD_BYTES remaining
+     * @param durationNs Frame duration in nanoseconds (zero or negative is stored as 1)
+     * @param lostBefore Number of frames lost right before this one
+     */
+    static void writeFrame(ByteBuffer out, long durationNs, long lostBefore) {
+        if (lostBefore > 0) {
+            out.put((byte) 0);
+            putVarLong(out, lostBefore);
+        }
+        putVarLong(out, Math.max(1, durationNs)); // Zero is reserved for the escape
+    }
+
+    /**
+     * Reads a session log, memory-mapping its data section.
+     *
+     * @param file The log file
+     * @param visitor Receives every frame in order
+     * @return The header of the log
+     * @throws IOException If the file cannot be read or is not a session log
+     */
+    public static Header read(Path file, FrameVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(channel, file);
+            if (header.dataLength() > Integer.MAX_VALUE) throw new IOException("Session log too large: " + file);
+
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, header.dataLength());
+            long t = 0;
+            while (data.hasRemaining()) {
+                long lost = 0;
+                long d = getVarLong(data);
+                if (d == 0) {
+                    lost = getVarLong(data);
+                    d = getVarLong(data);
+                }
+                t += d;
+                visitor.frame(t, d, lost);
+            }
+            return header;
+        }
+    }
+
+    /**
+     * Exports a session log to CSV using the PresentMon column layout, so it can be
+     * loaded by the same tools as PresentMon captures. Columns that have no equivalent
+     * in the game are written as 0; frames following a recorder overrun are marked
+     * as dropped.
+     *
+     * @param log The session log to read
+     * @param csv The CSV file to write (replaced if it exists)
+     * @throws IOException If either file cannot be accessed
+     */
+    public static void exportCsv(Path log, Path csv) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+
+            StringBuilder line = new StringBuilder(128);
+            IOException[] failure = new IOException[1];
+            long pid;
+            try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+                pid = readHeader(channel, log).pid();
+            }
+            read(log, (timestampNs, durationNs, lostBefore) -> {
+                if (failure[0] != null) return;
+                double ms = durationNs / 1_000_000.0;
+                line.setLength(0);
+                line.append("Minecraft,").append(pid).append(",0x0000000000000000,OpenGL,0,0,")
+                        .append(lostBefore > 0 ? 1 : 0).append(',')
+                        .append(timestampNs / 1_000_000_000.0).append(',')
+                        .append(ms).append(',').append(ms).append(",0,0,0");
+                try {
+                    writer.write(line.toString());
+                    writer.newLine();
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) throw failure[0];
+        }
+    }
+
+    /**
+     * Reads and validates the header of a session log.
+     *
+     * @param channel Open channel to the log
+     * @param file Path of the log, for error messages
+     * @return The parsed header, with the data length clamped to the file size
+     * @throws IOException If the file cannot be read or is not a session log
+     */
+    private static Header readHeader(FileChannel channel, Path file) throws IOException {
+        if (channel.size() < HEADER_SIZE) throw new IOException("Not a session log: " + file);
+        ByteBuffer head = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(head, 0);
+        if (head.getInt(0) != MAGIC) throw new IOException("Not a session log: " + file);
+        if (head.getInt(4) != VERSION) throw new IOException("Unsupported session log version " + head.getInt(4));
+
+        long dataLength = Math.min(head.getLong(OFF_DATA_LENGTH), channel.size() - HEADER_SIZE);
+        return new Header(head.getLong(OFF_PID), head.getLong(OFF_START_EPOCH_MS),
+                head.getLong(OFF_FIRST_FRAME_NS), dataLength);
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint.
+     *
+     * @param out Destination buffer
+     * @param value Non-negative value to write
+     */
+    static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     *
+     * @param in Source buffer
+     * @return The decoded value
+     */
+    static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0 && shift < 64);
+        return value;
+    }
+}
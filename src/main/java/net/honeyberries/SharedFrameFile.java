@@ -0,0 +1,397 @@
+package net.honeyberries;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Shared-memory frame-time file format and a reader for other processes.
+ * <p>
+ * While the export is enabled, the game keeps {@code <game dir>/fpsdisplay/frames.shm}
+ * memory-mapped and mirrors every frame duration and every published statistics
+ * snapshot into it, so capture tools and overlays can follow the frame times live by
+ * mapping the same file, without hooking the game.
+ * <p>
+ * Layout (little-endian, every long 8-byte aligned):
+ * <pre>
+ * offset size field
+ *      0    4 magic "FPSM" (0x4650534D)
+ *      4    4 format version (1)
+ *      8    4 ring capacity in frames (a power of two)
+ *     12    4 flags: bit 0 is set while the game is writing the file
+ *     16    8 process id of the game
+ *     24    8 frames written: total number of frames ever written to the ring
+ *     32    8 snapshot sequence: odd while the snapshot below is being written
+ *     40    8 wall-clock time of the snapshot (epoch milliseconds)
+ *     48    8 game's System.nanoTime() when the snapshot was calculated
+ *     56    8 frames lost by the game's statistics thread since it started
+ *     64    8 average FPS (double)
+ *     72    8 1% low FPS (double)
+ *     80    8 0.1% low FPS (double)
+ *     88    8 p50 frame time in milliseconds (double)
+ *     96    8 p95 frame time in milliseconds (double)
+ *    104    8 p99 frame time in milliseconds (double)
+ *    112    8 p99.9 frame time in milliseconds (double)
+ *    120    4 frames in the statistics window
+ *    124    4 reserved
+ *    128    - ring: capacity frame durations in nanoseconds (longs)
+ * </pre>
+ * Both sections are updated without locks:
+ * - Ring: the frame with sequence number s is stored in slot {@code s % capacity}, then
+ *   the frames-written count is raised to s + 1 with release semantics. A reader copies
+ *   the slots it wants after reading the count, then reads the count again; slots at or
+ *   below {@code count - capacity} may have been overwritten while it copied.
+ * - Snapshot: the writer makes the sequence odd, writes the fields and makes it even
+ *   again. A reader retries until it reads the same even sequence before and after
+ *   copying the fields.
+ * <p>
+ * Frames are mirrored by the game's statistics thread as it drains them, so they appear
+ * in batches once per update interval. {@link Reader} implements both protocols, and
+ * running this class prints the live statistics of a running game:
+ * <pre>
+ * java -cp fpsdisplay.jar net.honeyberries.SharedFrameFile &lt;game dir&gt;/fpsdisplay/frames.shm
+ * </pre>
+ */
+public final class SharedFrameFile {
+    /**
+     * File magic, "FPSM" in ASCII.
+     */
+    static final int MAGIC = 0x4650534D;
+
+    /**
+     * Current format version.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Offset of the ring capacity field.
+     */
+    static final int OFF_CAPACITY = 8;
+
+    /**
+     * Offset of the flags field.
+     */
+    static final int OFF_FLAGS = 12;
+
+    /**
+     * Offset of the process id field.
+     */
+    static final int OFF_PID = 16;
+
+    /**
+     * Offset of the frames-written count.
+     */
+    static final int OFF_FRAMES_WRITTEN = 24;
+
+    /**
+     * Offset of the snapshot sequence.
+     */
+    static final int OFF_SNAPSHOT_SEQ = 32;
+
+    /**
+     * Offset of the snapshot's wall-clock time.
+     */
+    static final int OFF_UPDATED_EPOCH_MS = 40;
+
+    /**
+     * Offset of the snapshot's calculation time.
+     */
+    static final int OFF_COMPUTED_AT_NS = 48;
+
+    /**
+     * Offset of the lost frame count.
+     */
+    static final int OFF_FRAMES_LOST = 56;
+
+    /**
+     * Offset of the average FPS; the other statistics follow in StatsSnapshot order.
+     */
+    static final int OFF_AVG_FPS = 64;
+
+    /**
+     * Offset of the window frame count.
+     */
+    static final int OFF_FRAME_COUNT = 120;
+
+    /**
+     * Size of the header, which is also the offset of the ring.
+     */
+    static final int HEADER_SIZE = 128;
+
+    /**
+     * Flag set while the game is writing the file.
+     */
+    static final int FLAG_LIVE = 1;
+
+    /**
+     * Ordered access to the longs of a mapped file, by byte offset.
+     */
+    static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private SharedFrameFile() {
+    }
+
+    /**
+     * Calculates the file size for a ring capacity.
+     *
+     * @param capacity Ring capacity in frames
+     * @return The file size in bytes
+     */
+    static int fileSize(int capacity) {
+        return HEADER_SIZE + capacity * Long.BYTES;
+    }
+
+    /**
+     * Writes a fresh header with an empty ring and snapshot, marked live.
+     *
+     * @param file Mapped file of at least fileSize(capacity) bytes
+     * @param pid Process id of the game
+     * @param capacity Ring capacity in frames (a power of two)
+     */
+    static void writeHeader(ByteBuffer file, long pid, int capacity) {
+        file.order(ByteOrder.LITTLE_ENDIAN);
+        for (int offset = 0; offset < HEADER_SIZE; offset += Long.BYTES) file.putLong(offset, 0);
+        file.putInt(4, VERSION);
+        file.putInt(OFF_CAPACITY, capacity);
+        file.putInt(OFF_FLAGS, FLAG_LIVE);
+        file.putLong(OFF_PID, pid);
+        VarHandle.releaseFence();
+        file.putInt(0, MAGIC); // Last, so a reader never sees the magic with a half-written header
+    }
+
+    /**
+     * Live view of a shared frame file, for use in another process.
+     * Each reader keeps its own ring position. Not thread-safe.
+     */
+    public static final class Reader implements AutoCloseable {
+        /**
+         * Mapped file.
+         */
+        private final MappedByteBuffer file;
+
+        /**
+         * Channel the file is mapped through.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Ring capacity in frames.
+         */
+        private final int capacity;
+
+        /**
+         * Sequence number of the next frame to read.
+         */
+        private long next;
+
+        /**
+         * Frames overwritten before this reader could copy them.
+         */
+        private long missed = 0;
+
+        /**
+         * Maps a shared frame file. Reading starts with the frames written from now on.
+         *
+         * @param path The file
+         * @throws IOException If the file cannot be mapped or is not a supported shared frame file
+         */
+        public Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                if (channel.size() < HEADER_SIZE) throw new IOException("Not a shared frame file: " + path);
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                if (header.getInt(0) != MAGIC) throw new IOException("Not a shared frame file: " + path);
+                if (header.getInt(4) != VERSION) throw new IOException("Unsupported shared frame file version " + header.getInt(4) + ": " + path);
+                this.capacity = header.getInt(OFF_CAPACITY);
+                if (capacity <= 0 || Integer.bitCount(capacity) != 1 || channel.size() < fileSize(capacity)) {
+                    throw new IOException("Corrupt shared frame file: " + path);
+                }
+
+                this.file = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize(capacity));
+                this.file.order(ByteOrder.LITTLE_ENDIAN);
+                this.next = framesWritten();
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * @return Whether the game is currently writing the file
+         */
+        public boolean isLive() {
+            return (file.getInt(OFF_FLAGS) & FLAG_LIVE) != 0;
+        }
+
+        /**
+         * @return Process id of the game that wrote the file
+         */
+        public long pid() {
+            return file.getLong(OFF_PID);
+        }
+
+        /**
+         * @return Ring capacity in frames
+         */
+        public int capacity() {
+            return capacity;
+        }
+
+        /**
+         * @return Total number of frames the game has written to the ring
+         */
+        public long framesWritten() {
+            return (long) LONGS.getAcquire(file, OFF_FRAMES_WRITTEN);
+        }
+
+        /**
+         * @return Frames this reader skipped because the game overwrote them first
+         */
+        public long missed() {
+            return missed;
+        }
+
+        /**
+         * Copies the frame durations written since the last call.
+         * Frames the game overwrote before they could be copied are skipped and counted
+         * in {@link #missed()}.
+         *
+         * @param dst Buffer for durations in nanoseconds
+         * @return Number of durations copied into dst, oldest first
+         */
+        public int poll(long[] dst) {
+            long end = framesWritten();
+            if (end < next) next = end; // The game restarted the file
+            long start = Math.max(next, end - capacity);
+            int count = (int) Math.min(end - start, dst.length);
+            if (count <= 0) return 0;
+
+            for (int i = 0; i < count; i++) {
+                dst[i] = file.getLong(HEADER_SIZE + (int) ((start + i) & (capacity - 1)) * Long.BYTES);
+            }
+
+            VarHandle.acquireFence(); // Anything at or below the slot being written now may be torn
+            long firstValid = framesWritten() - capacity + 1;
+            int skip = (int) Math.max(0, Math.min(count, firstValid - start));
+            if (skip > 0) {
+                System.arraycopy(dst, skip, dst, 0, count - skip);
+                count -= skip;
+            }
+
+            missed += (start + skip) - next;
+            next = start + skip + count;
+            return count;
+        }
+
+        /**
+         * Reads a consistent copy of the latest statistics.
+         * The returned computedAtNs is on the game's System.nanoTime() timeline.
+         *
+         * @return The snapshot, or null if the game kept writing it through every attempt
+         */
+        public StatsSnapshot snapshot() {
+            for (int attempt = 0; attempt < 100; attempt++) {
+                long seq = (long) LONGS.getAcquire(file, OFF_SNAPSHOT_SEQ);
+                if ((seq & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                StatsSnapshot s = new StatsSnapshot(
+                        file.getDouble(OFF_AVG_FPS),
+                        file.getDouble(OFF_AVG_FPS + 8),
+                        file.getDouble(OFF_AVG_FPS + 16),
+                        file.getDouble(OFF_AVG_FPS + 24),
+                        file.getDouble(OFF_AVG_FPS + 32),
+                        file.getDouble(OFF_AVG_FPS + 40),
+                        file.getDouble(OFF_AVG_FPS + 48),
+                        file.getInt(OFF_FRAME_COUNT),
+                        file.getLong(OFF_COMPUTED_AT_NS));
+                VarHandle.acquireFence();
+                if ((long) LONGS.getAcquire(file, OFF_SNAPSHOT_SEQ) == seq) return s;
+            }
+            return null;
+        }
+
+        /**
+         * Wall-clock time of the latest snapshot. Read without the snapshot protocol,
+         * so it may belong to a snapshot that is being replaced.
+         *
+         * @return Epoch milliseconds, or 0 before the first snapshot
+         */
+        public long updatedEpochMillis() {
+            return file.getLong(OFF_UPDATED_EPOCH_MS);
+        }
+
+        /**
+         * Frames lost by the game's statistics thread. Read without the snapshot protocol.
+         *
+         * @return The lost frame count
+         */
+        public long framesLost() {
+            return file.getLong(OFF_FRAMES_LOST);
+        }
+
+        /**
+         * Closes the channel. The mapping stays valid until it is garbage collected.
+         *
+         * @throws IOException If the channel cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Follows a shared frame file and prints the frames received and the latest
+     * statistics once per second, until the game stops writing it.
+     *
+     * @param args Path of the shared frame file
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: SharedFrameFile <game dir>/fpsdisplay/frames.shm");
+            System.exit(2);
+            return;
+        }
+
+        try (Reader reader = new Reader(Path.of(args[0]))) {
+            System.out.println("Following frame times of process " + reader.pid() + " (ring of " + reader.capacity() + " frames)");
+            long[] frames = new long[reader.capacity()];
+            while (reader.isLive()) {
+                Thread.sleep(1000);
+                int n = reader.poll(frames);
+                long sum = 0, max = 0;
+                for (int i = 0; i < n; i++) {
+                    sum += frames[i];
+                    max = Math.max(max, frames[i]);
+                }
+                StatsSnapshot s = reader.snapshot();
+                System.out.println(String.format(Locale.ROOT,
+                        "%5d frames  mean %6.2f ms  max %6.2f ms  missed %d | %s",
+                        n, n == 0 ? 0.0 : sum / 1e6 / n, max / 1e6, reader.missed(),
+                        s == null ? "snapshot busy" : String.format(Locale.ROOT,
+                                "%.0f FPS, 1%% low %.0f, 0.1%% low %.0f, p99 %.2f ms", s.avgFps(),
+                                s.onePercentLowFps(), s.pointOnePercentLowFps(), s.p99FrameTimeMs())));
+            }
+            System.out.println("The game stopped writing " + args[0]);
+        } catch (IOException e) {
+            System.err.println("Cannot read " + args[0] + ": " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
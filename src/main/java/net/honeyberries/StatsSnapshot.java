@@ -0,0 +1,34 @@
+package net.honeyberries;
+
+/**
+ * Immutable view of the FPS statistics at one point in time.
+ * Calculated by {@link FrameStats}. In game, a new instance is published by FPSStats
+ * each time the statistics are recalculated, so readers on any thread always see a
+ * consistent set of values.
+ *
+ * @param avgFps Average FPS over the rolling window
+ * @param onePercentLowFps Average FPS of the slowest 1% of frames
+ * @param pointOnePercentLowFps Average FPS of the slowest 0.1% of frames
+ * @param p50FrameTimeMs Median frame time in milliseconds
+ * @param p95FrameTimeMs 95th percentile frame time in milliseconds
+ * @param p99FrameTimeMs 99th percentile frame time in milliseconds
+ * @param p999FrameTimeMs 99.9th percentile frame time in milliseconds
+ * @param frameCount Number of frame intervals in the window
+ * @param computedAtNs Time the snapshot was computed (System.nanoTime())
+ */
+public record StatsSnapshot(
+        double avgFps,
+        double onePercentLowFps,
+        double pointOnePercentLowFps,
+        double p50FrameTimeMs,
+        double p95FrameTimeMs,
+        double p99FrameTimeMs,
+        double p999FrameTimeMs,
+        int frameCount,
+        long computedAtNs
+) {
+    /**
+     * Snapshot used before enough frames have been recorded.
+     */
+    public static final StatsSnapshot EMPTY = new StatsSnapshot(0, 0, 0, 0, 0, 0, 0, 0, 0);
+}
@@ -0,0 +1,170 @@
+package net.honeyberries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static net.honeyberries.TestFrames.MS;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Feeds frames to {@link Benchmark} the way the statistics consumer does and checks the
+ * {@link BenchmarkReport} it aggregates them into.
+ */
+class BenchmarkTest {
+    /**
+     * Nanoseconds per second.
+     */
+    private static final long SECOND = 1_000_000_000L;
+
+    /**
+     * Directory for reports.
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * A run of known frames reports the statistics, standard deviation and hitches worked out by hand.
+     */
+    @Test
+    void knownFramesGiveKnownReport() {
+        long[] durations = new long[1000];
+        Arrays.fill(durations, 10 * MS);
+        for (int i = 0; i < 10; i++) durations[i * 100] = 40 * MS;
+
+        Benchmark.Result result = run(20, 0, "known", durations);
+        BenchmarkReport r = result.report();
+
+        assertEquals("known", r.label());
+        assertEquals(20.0, r.durationSec(), 1e-9);
+        assertEquals(1000, r.frames());
+        assertEquals(1000 / 10.3, r.avgFps(), 1e-9);
+        assertEquals(25.0, r.onePercentLowFps(), 1e-9);
+        assertEquals(25.0, r.pointOnePercentLowFps(), 1e-9);
+        assertEquals(10.0, r.p50FrameTimeMs(), 1e-9);
+        assertEquals(10.0, r.p99FrameTimeMs(), 1e-9);
+        assertEquals(40.0, r.p999FrameTimeMs(), 1e-9);
+        // Mean 10.3 ms: 990 frames 0.3 ms below it and 10 frames 29.7 ms above it
+        assertEquals(Math.sqrt((990 * 0.09 + 10 * 882.09) / 1000), r.stdDevFrameTimeMs(), 1e-9);
+        assertEquals(10, r.hitches());
+        assertArrayEquals(durations, result.frameTimesNs());
+    }
+
+    /**
+     * Frames that end during the warm-up are discarded, and a random run aggregates into
+     * the exact statistics of the measured frames.
+     */
+    @Test
+    void warmupFramesAreDiscarded() {
+        Random random = new Random(15);
+        long[] warmup = new long[120];
+        for (int i = 0; i < warmup.length; i++) warmup[i] = 5 * MS; // 0.6 s, inside the 1 s warm-up
+        long[] measured = TestFrames.frameTimes(random, 3_000);
+
+        long[] frames = new long[warmup.length + 1 + measured.length];
+        System.arraycopy(warmup, 0, frames, 0, warmup.length);
+        frames[warmup.length] = 600 * MS; // Ends past the warm-up; measured
+        System.arraycopy(measured, 0, frames, warmup.length + 1, measured.length);
+
+        Benchmark.Result result = run(120, 1, "random", frames);
+        long[] expectedFrames = Arrays.copyOfRange(frames, warmup.length, frames.length);
+        assertArrayEquals(expectedFrames, result.frameTimesNs());
+
+        BenchmarkReport r = result.report();
+        StatsSnapshot exact = FrameStats.exactSnapshot(expectedFrames.clone(), expectedFrames.length, 0);
+        assertEquals(1, r.warmupSec());
+        assertEquals(expectedFrames.length, r.frames());
+        assertEquals(exact.avgFps(), r.avgFps());
+        assertEquals(exact.onePercentLowFps(), r.onePercentLowFps());
+        assertEquals(exact.pointOnePercentLowFps(), r.pointOnePercentLowFps());
+        assertEquals(exact.p50FrameTimeMs(), r.p50FrameTimeMs());
+        assertEquals(exact.p95FrameTimeMs(), r.p95FrameTimeMs());
+        assertEquals(exact.p99FrameTimeMs(), r.p99FrameTimeMs());
+        assertEquals(exact.p999FrameTimeMs(), r.p999FrameTimeMs());
+
+        long threshold = HitchDetector.threshold(exact.p50FrameTimeMs());
+        assertEquals(Arrays.stream(expectedFrames).filter(d -> d > threshold).count(), r.hitches());
+    }
+
+    /**
+     * A cancelled run never reports, and only one run can be active at a time.
+     */
+    @Test
+    void cancelledRunDoesNotReport() {
+        List<Benchmark.Result> results = new ArrayList<>();
+        assertTrue(Benchmark.start(1, 0, "cancelled", results::add));
+        assertFalse(Benchmark.start(1, 0, "second", results::add));
+        long start = System.nanoTime();
+        Benchmark.onFrame(start + 10 * MS, 10 * MS);
+
+        assertTrue(Benchmark.cancel());
+        assertFalse(Benchmark.isRunning());
+        Benchmark.onFrame(start + 2 * SECOND, 10 * MS);
+        assertTrue(results.isEmpty());
+        assertFalse(Benchmark.cancel());
+    }
+
+    /**
+     * A written report becomes the baseline it is compared against, and the comparison
+     * shows the percentage change of every metric.
+     *
+     * @throws IOException If the report cannot be written
+     */
+    @Test
+    void reportRoundTripsAsBaseline() throws IOException {
+        long[] durations = new long[600];
+        Arrays.fill(durations, 10 * MS);
+        Benchmark.Result result = run(10, 0, "baseline", durations);
+
+        assertNull(Benchmark.readBaseline(dir));
+        Benchmark.write(dir, result);
+        Benchmark.saveBaseline(dir);
+        BenchmarkReport baseline = Benchmark.readBaseline(dir);
+        assertEquals(result.report(), baseline);
+
+        Arrays.fill(durations, 8 * MS);
+        BenchmarkReport faster = run(10, 0, "faster", durations).report();
+        List<String> lines = Benchmark.describe(faster, baseline);
+        assertEquals("Benchmark 'faster': 600 frames in 10 s", lines.get(0));
+        assertEquals("Avg: 125 FPS (+25.0%)", lines.get(1));
+        assertEquals("p50: 8.00 ms (-20.0%)", lines.get(4));
+        assertEquals("Hitches: 0 (baseline 0)", lines.get(9));
+        assertEquals("Avg: 125 FPS", Benchmark.describe(faster, null).get(1));
+    }
+
+    /**
+     * Runs a benchmark over frames that end back to back from the start of the run,
+     * then ends it with a frame past its end.
+     *
+     * @param seconds Length of the measured part in seconds; longer than the frames
+     * @param warmupSec Seconds to discard first
+     * @param label Label for the report
+     * @param durations Frame durations in nanoseconds
+     * @return The finished run
+     */
+    private static Benchmark.Result run(int seconds, int warmupSec, String label, long[] durations) {
+        List<Benchmark.Result> results = new ArrayList<>();
+        assertTrue(Benchmark.start(seconds, warmupSec, label, results::add));
+        long t = System.nanoTime(); // At or after the start of the run
+        for (long d : durations) {
+            t += d;
+            Benchmark.onFrame(t, d);
+        }
+        assertTrue(Benchmark.isRunning());
+        Benchmark.onFrame(t + (seconds + warmupSec) * SECOND, 10 * MS);
+
+        assertFalse(Benchmark.isRunning());
+        assertEquals(1, results.size());
+        return results.get(0);
+    }
+}
@@ -0,0 +1,175 @@
+package net.honeyberries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static net.honeyberries.TestFrames.MS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that statistics read from a {@link FrameTimeHistogram} stay within its documented
+ * relative error of the exact statistics for the same frames.
+ */
+class FrameStatsTest {
+    /**
+     * Documented worst-case relative error, indexed by significant digits.
+     */
+    private static final double[] RELATIVE_ERROR = {Double.NaN, 0.0625, 0.008, 0.001};
+
+    /**
+     * A steady 60 FPS with 1% hitches and one stall reads the same from every precision.
+     */
+    @Test
+    void knownFramesMatchExactStatistics() {
+        long[] durations = new long[1000];
+        Arrays.fill(durations, 16_667_000L);
+        for (int i = 0; i < 10; i++) durations[i * 97] = 50 * MS; // 1% of frames hitch
+        durations[500] = 100 * MS; // One long stall
+
+        for (int digits = 1; digits <= 3; digits++) {
+            assertWithinError(durations, durations.length, digits);
+        }
+    }
+
+    /**
+     * The exact statistics that the histogram is compared against are themselves right.
+     */
+    @Test
+    void knownFramesHaveExpectedExactStatistics() {
+        long[] durations = new long[1000];
+        Arrays.fill(durations, 10 * MS);
+        for (int i = 0; i < 10; i++) durations[i] = 40 * MS;
+
+        StatsSnapshot exact = FrameStats.exactSnapshot(durations, durations.length, 0);
+        assertEquals(1000 / 10.3, exact.avgFps(), 1e-9);
+        assertEquals(25.0, exact.onePercentLowFps(), 1e-9);
+        assertEquals(25.0, exact.pointOnePercentLowFps(), 1e-9);
+        assertEquals(10.0, exact.p50FrameTimeMs(), 1e-9);
+        assertEquals(10.0, exact.p95FrameTimeMs(), 1e-9);
+        assertEquals(10.0, exact.p99FrameTimeMs(), 1e-9);
+        assertEquals(40.0, exact.p999FrameTimeMs(), 1e-9);
+    }
+
+    /**
+     * Randomized windows of every size and precision stay within the error bound.
+     */
+    @Test
+    void randomFramesMatchExactStatistics() {
+        Random random = new Random(0x46505344L);
+        for (int run = 0; run < 200; run++) {
+            int n = 1 + random.nextInt(20_000);
+            long[] durations = TestFrames.frameTimes(random, n);
+
+            assertWithinError(durations, n, 1 + run % 3);
+        }
+    }
+
+    /**
+     * A histogram that frames slide through matches the exact statistics of the frames still in it.
+     */
+    @Test
+    void removedFramesNoLongerCount() {
+        Random random = new Random(42);
+        int n = 5_000;
+        long[] durations = TestFrames.frameTimes(random, n);
+
+        // Slide a window over the frames the way FPSStats evicts old ones
+        int keep = 1_000;
+        FrameTimeHistogram histogram = new FrameTimeHistogram(2);
+        for (int i = 0; i < n; i++) {
+            histogram.record(durations[i]);
+            if (i >= keep) histogram.remove(durations[i - keep]);
+        }
+
+        long[] window = Arrays.copyOfRange(durations, n - keep, n);
+        assertEquals(keep, histogram.getTotalCount());
+        assertSnapshotWithin(FrameStats.exactSnapshot(window, keep, 0), FrameStats.histogramSnapshot(histogram, 0), RELATIVE_ERROR[2]);
+    }
+
+    /**
+     * The bucket found for the k-th slowest frame is the bucket that frame is counted in,
+     * so ranking frames by bucket puts exactly the k slowest at or above it.
+     */
+    @Test
+    void bucketOfLargestHoldsKthSlowestFrame() {
+        Random random = new Random(22);
+        for (int digits = 1; digits <= 3; digits++) {
+            int n = 10_000;
+            long[] durations = new long[n];
+            FrameTimeHistogram histogram = new FrameTimeHistogram(digits);
+            for (int i = 0; i < n; i++) {
+                durations[i] = TestFrames.frameTime(random);
+                histogram.record(durations[i]);
+            }
+            Arrays.sort(durations);
+
+            for (int k : new int[]{1, 10, 100, 5_000, n}) {
+                int bucket = histogram.bucketOfLargest(k);
+                assertEquals(histogram.bucketOf(durations[n - k]), bucket, "k = " + k);
+                long above = Arrays.stream(durations).filter(d -> histogram.bucketOf(d) > bucket).count();
+                long at = Arrays.stream(durations).filter(d -> histogram.bucketOf(d) == bucket).count();
+                assertTrue(above < k && above + at >= k, "k = " + k);
+            }
+        }
+        assertEquals(0, new FrameTimeHistogram(2).bucketOfLargest(1));
+    }
+
+    /**
+     * An empty histogram reports no statistics rather than zeros from an empty walk.
+     */
+    @Test
+    void emptyHistogramGivesEmptySnapshot() {
+        assertEquals(StatsSnapshot.EMPTY, FrameStats.histogramSnapshot(new FrameTimeHistogram(2), 0));
+    }
+
+    /**
+     * Records frames into a histogram and compares its snapshot with the exact one.
+     *
+     * @param durations Frame durations in nanoseconds
+     * @param n Number of valid entries in durations
+     * @param digits Histogram precision in significant digits
+     */
+    private static void assertWithinError(long[] durations, int n, int digits) {
+        FrameTimeHistogram histogram = new FrameTimeHistogram(digits);
+        for (int i = 0; i < n; i++) histogram.record(durations[i]);
+
+        StatsSnapshot estimate = FrameStats.histogramSnapshot(histogram, 0);
+        StatsSnapshot exact = FrameStats.exactSnapshot(durations.clone(), n, 0);
+        assertSnapshotWithin(exact, estimate, RELATIVE_ERROR[digits]);
+    }
+
+    /**
+     * Asserts that every statistic of a histogram snapshot is within the relative error of the exact one.
+     * Lows are compared as frame times, since the error bound applies to durations rather than rates.
+     *
+     * @param exact Statistics from sorted durations
+     * @param estimate Statistics from the histogram
+     * @param error Allowed relative error
+     */
+    private static void assertSnapshotWithin(StatsSnapshot exact, StatsSnapshot estimate, double error) {
+        assertEquals(exact.frameCount(), estimate.frameCount());
+        assertEquals(exact.avgFps(), estimate.avgFps(), 1e-9 * exact.avgFps(), "average uses the exact sum");
+        assertWithin("1% low frame time", 1 / exact.onePercentLowFps(), 1 / estimate.onePercentLowFps(), error);
+        assertWithin("0.1% low frame time", 1 / exact.pointOnePercentLowFps(), 1 / estimate.pointOnePercentLowFps(), error);
+        assertWithin("p50", exact.p50FrameTimeMs(), estimate.p50FrameTimeMs(), error);
+        assertWithin("p95", exact.p95FrameTimeMs(), estimate.p95FrameTimeMs(), error);
+        assertWithin("p99", exact.p99FrameTimeMs(), estimate.p99FrameTimeMs(), error);
+        assertWithin("p99.9", exact.p999FrameTimeMs(), estimate.p999FrameTimeMs(), error);
+    }
+
+    /**
+     * Asserts that a value is within a relative error of the expected value.
+     *
+     * @param name Statistic being compared, for the failure message
+     * @param expected Exact value
+     * @param actual Estimated value
+     * @param error Allowed relative error
+     */
+    private static void assertWithin(String name, double expected, double actual, double error) {
+        double relative = Math.abs(actual - expected) / expected;
+        assertTrue(relative <= error, name + ": expected " + expected + " but got " + actual + " (" + relative + " relative error)");
+    }
+}
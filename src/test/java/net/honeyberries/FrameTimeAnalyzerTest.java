@@ -0,0 +1,122 @@
+package net.honeyberries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks that {@link FrameTimeAnalyzer} reports the statistics the HUD would show for
+ * the same frames, whichever capture format they are read from.
+ */
+class FrameTimeAnalyzerTest {
+    /**
+     * Directory for the captures.
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * A PresentMon-style CSV, with other columns around the frame time and Windows line
+     * endings, gives exactly the statistics of its frames.
+     *
+     * @throws IOException If the capture cannot be written
+     */
+    @Test
+    void presentMonCsvMatchesExactStatistics() throws IOException {
+        long[] durations = TestFrames.frameTimes(new Random(1), 5_000);
+        StringBuilder csv = new StringBuilder("Application,ProcessID,TimeInSeconds,msBetweenPresents,msUntilDisplayed\r\n");
+        long t = 0;
+        for (long d : durations) {
+            t += d;
+            csv.append("game.exe,1234,").append(t / 1e9).append(',').append(d / 1e6).append(",0.5\r\n");
+        }
+        Path file = dir.resolve("presentmon.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        FrameTimeAnalyzer.FileResult result = FrameTimeAnalyzer.analyze(file, 0);
+        assertNull(result.error());
+        assertArrayEquals(durations, result.durations());
+        assertEquals(FrameStats.exactSnapshot(durations.clone(), durations.length, 0), result.stats());
+    }
+
+    /**
+     * A session log and the CSV exported from it give the same, exact statistics, including
+     * for a log large enough to be memory-mapped.
+     *
+     * @throws IOException If the captures cannot be written
+     */
+    @Test
+    void sessionLogAndItsCsvExportMatchExactStatistics() throws IOException {
+        long[] durations = TestFrames.frameTimes(new Random(2), 200_000);
+        Path log = writeSessionLog(dir.resolve("session.fpslog"), durations);
+        Path csv = dir.resolve("session.csv");
+        SessionLog.exportCsv(log, csv);
+
+        StatsSnapshot expected = FrameStats.exactSnapshot(durations.clone(), durations.length, 0);
+        for (Path file : List.of(log, csv)) {
+            FrameTimeAnalyzer.FileResult result = FrameTimeAnalyzer.analyze(file, 0);
+            assertNull(result.error(), file.toString());
+            assertArrayEquals(durations, result.durations(), file.toString());
+            assertEquals(expected, result.stats(), file.toString());
+        }
+    }
+
+    /**
+     * Histogram mode gives the HUD's histogram statistics, and the aggregate row covers the
+     * frames of every readable capture found in a directory.
+     *
+     * @throws IOException If the captures cannot be written
+     */
+    @Test
+    void aggregateCoversEveryCapture() throws IOException {
+        long[] first = TestFrames.frameTimes(new Random(3), 3_000);
+        long[] second = TestFrames.frameTimes(new Random(4), 1_000);
+        writeSessionLog(dir.resolve("a.fpslog"), first);
+        writeSessionLog(dir.resolve("b.fpslog"), second);
+        Files.writeString(dir.resolve("c.csv"), "Frame,Other\n1,2\n");
+
+        List<Path> files = FrameTimeAnalyzer.findCaptures(List.of(dir));
+        assertEquals(3, files.size());
+        List<FrameTimeAnalyzer.FileResult> results = files.stream().map(f -> FrameTimeAnalyzer.analyze(f, 2)).toList();
+        assertNotNull(results.get(2).error());
+
+        FrameTimeHistogram histogram = new FrameTimeHistogram(2);
+        for (long d : first) histogram.record(d);
+        assertEquals(FrameStats.histogramSnapshot(histogram, 0), results.get(0).stats());
+        for (long d : second) histogram.record(d);
+        assertEquals(FrameStats.histogramSnapshot(histogram, 0), FrameTimeAnalyzer.aggregate(results, 2));
+    }
+
+    /**
+     * Writes a session log in the recorder's format.
+     *
+     * @param file Path of the log
+     * @param durations Frame durations in nanoseconds
+     * @return The path of the log
+     * @throws IOException If the log cannot be written
+     */
+    private static Path writeSessionLog(Path file, long[] durations) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SessionLog.HEADER_SIZE + durations.length * SessionLog.MAX_RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        SessionLog.writeHeader(buffer, 1234, 0);
+        buffer.position(SessionLog.HEADER_SIZE);
+        for (long d : durations) SessionLog.writeFrame(buffer, d, 0);
+        buffer.putLong(SessionLog.OFF_DATA_LENGTH, buffer.position() - SessionLog.HEADER_SIZE);
+        Files.write(file, Arrays.copyOf(buffer.array(), buffer.position()));
+        return file;
+    }
+}
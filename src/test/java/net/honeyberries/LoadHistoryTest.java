@@ -0,0 +1,60 @@
+package net.honeyberries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks the load time history file format and the trend shown by {@code /fpsdisplay loadtimes}.
+ */
+class LoadHistoryTest {
+    /**
+     * A formatted entry parses back to itself; the header and damaged lines are skipped.
+     */
+    @Test
+    void linesRoundTrip() {
+        LoadHistory.Entry entry = new LoadHistory.Entry(1_767_225_600_000L, LoadHistory.STARTUP, 41_250, 212);
+        assertEquals("1767225600000,startup,41250,212", LoadHistory.format(entry));
+        assertEquals(entry, LoadHistory.parse(LoadHistory.format(entry)));
+
+        assertNull(LoadHistory.parse(LoadHistory.HEADER));
+        assertNull(LoadHistory.parse(""));
+        assertNull(LoadHistory.parse("1767225600000,startup,41250"));
+        assertNull(LoadHistory.parse("1767225600000,startup,4125x,212"));
+    }
+
+    /**
+     * Each event's latest result is compared with the median of at most ten results before it,
+     * and the best result covers every run.
+     */
+    @Test
+    void latestResultIsComparedWithRecentMedian() {
+        List<LoadHistory.Entry> history = new ArrayList<>();
+        long t = 0;
+        for (long ms : new long[]{40_000, 42_000, 38_000}) history.add(new LoadHistory.Entry(t++, LoadHistory.STARTUP, ms, 200));
+        for (long ms = 1_000; ms <= 11_000; ms += 1_000) history.add(new LoadHistory.Entry(t++, LoadHistory.JOIN, ms, 200));
+        history.add(new LoadHistory.Entry(t++, LoadHistory.RELOAD, 5_000, 200));
+        history.add(new LoadHistory.Entry(t++, LoadHistory.STARTUP, 44_000, 201));
+        history.add(new LoadHistory.Entry(t, LoadHistory.JOIN, 12_000, 201));
+
+        assertEquals(List.of(
+                // Median of 38, 40 and 42 s
+                "Startup: 44.0 s (+10.0% vs 40.0 s median of the previous 3), best 38.0 s over 4 runs",
+                "Reload: 5.0 s (first run)",
+                // Only the previous 10 joins (2 to 11 s) count: median 6.5 s
+                "Join: 12.0 s (+84.6% vs 6.5 s median of the previous 10), best 1.0 s over 12 runs"),
+                LoadHistory.describe(history));
+    }
+
+    /**
+     * Without results there is a hint on how to record them.
+     */
+    @Test
+    void emptyHistoryExplainsHowToRecord() {
+        assertEquals(List.of("No load times recorded yet; enable Load Times and restart the game"), LoadHistory.describe(List.of()));
+    }
+}
@@ -0,0 +1,150 @@
+package net.honeyberries;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares {@link OrderStatisticTree} with a sorted copy of the same values.
+ */
+class OrderStatisticTreeTest {
+    /**
+     * Percentiles the HUD reads from the tree.
+     */
+    private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+
+    /**
+     * A sliding window of random frame times answers every query exactly like a sorted array,
+     * including windows larger than the tree's initial capacity and runs of repeated values.
+     */
+    @Test
+    void slidingWindowMatchesSortedArray() {
+        Random random = new Random(0x05715L);
+        for (int run = 0; run < 40; run++) {
+            OrderStatisticTree tree = new OrderStatisticTree();
+            ArrayDeque<Long> window = new ArrayDeque<>();
+            int windowSize = 1 + random.nextInt(5_000);
+            // Few distinct values in some runs, so nodes hold many copies
+            long range = run % 2 == 0 ? 20 : 50_000_000;
+
+            for (int i = 0; i < 3 * windowSize; i++) {
+                long value = 1 + (long) (random.nextDouble() * range);
+                tree.add(value);
+                window.addLast(value);
+                if (window.size() > windowSize) tree.remove(window.removeFirst());
+                if (random.nextInt(windowSize) == 0) assertMatches(window, tree, random);
+            }
+            assertMatches(window, tree, random);
+        }
+    }
+
+    /**
+     * Removing every value in random order leaves an empty tree, and removing a value that
+     * was never added changes nothing.
+     */
+    @Test
+    void removalsInAnyOrder() {
+        Random random = new Random(7);
+        OrderStatisticTree tree = new OrderStatisticTree();
+        long[] values = new long[3_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + random.nextInt(1_000);
+            tree.add(values[i]);
+        }
+
+        tree.remove(5_000);
+        assertEquals(values.length, tree.size());
+
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long t = values[i];
+            values[i] = values[j];
+            values[j] = t;
+        }
+        ArrayDeque<Long> remaining = new ArrayDeque<>();
+        for (long v : values) remaining.add(v);
+        while (!remaining.isEmpty()) {
+            tree.remove(remaining.removeFirst());
+            if (remaining.size() % 250 == 0) assertMatches(remaining, tree, random);
+        }
+
+        assertEquals(0, tree.size());
+        assertEquals(0, tree.getTotalSum());
+        assertEquals(0, tree.select(1));
+        assertEquals(0, tree.sumOfLargest(10));
+    }
+
+    /**
+     * A cleared tree reuses its slots and behaves like a new one.
+     */
+    @Test
+    void clearedTreeStartsOver() {
+        Random random = new Random(11);
+        OrderStatisticTree tree = new OrderStatisticTree();
+        for (int i = 0; i < 2_000; i++) tree.add(1 + random.nextInt(100_000));
+        tree.clear();
+        assertEquals(0, tree.size());
+
+        ArrayDeque<Long> values = new ArrayDeque<>();
+        for (int i = 0; i < 500; i++) {
+            long v = 1 + random.nextInt(100_000);
+            tree.add(v);
+            values.add(v);
+        }
+        assertMatches(values, tree, random);
+    }
+
+    /**
+     * Asserts that the tree holds exactly the given values.
+     * Checks size, sum, the HUD percentiles, the 1% and 0.1% lows and random ranks against a
+     * sorted array, and the tree's snapshot against {@link FrameStats#exactSnapshot}.
+     *
+     * @param values Values that should be in the tree
+     * @param tree Tree under test
+     * @param random Source of random ranks
+     */
+    private static void assertMatches(ArrayDeque<Long> values, OrderStatisticTree tree, Random random) {
+        int n = values.size();
+        long[] sorted = new long[n];
+        int i = 0;
+        for (long v : values) sorted[i++] = v;
+        long[] unsorted = sorted.clone();
+        Arrays.sort(sorted);
+
+        assertEquals(n, tree.size());
+        assertEquals(Arrays.stream(sorted).sum(), tree.getTotalSum());
+        if (n == 0) return;
+
+        for (double p : PERCENTILES) {
+            int rank = Math.max(1, Math.min(n, (int) Math.ceil(p / 100.0 * n)));
+            assertEquals(sorted[rank - 1], tree.select(rank), "p" + p);
+        }
+        for (int k : new int[]{1, Math.max(1, (int) Math.ceil(n * 0.01)), Math.max(1, (int) Math.ceil(n * 0.001)), n, n + 5}) {
+            assertEquals(sumOfLargest(sorted, k), tree.sumOfLargest(k), "sum of largest " + k);
+        }
+        for (int probe = 0; probe < 20; probe++) {
+            int rank = 1 + random.nextInt(n);
+            assertEquals(sorted[rank - 1], tree.select(rank), "rank " + rank);
+            assertEquals(sumOfLargest(sorted, rank), tree.sumOfLargest(rank), "sum of largest " + rank);
+        }
+
+        assertEquals(FrameStats.exactSnapshot(unsorted, n, 0), FrameStats.orderedSnapshot(tree, 0));
+    }
+
+    /**
+     * Sums the k largest values of a sorted array.
+     *
+     * @param sorted Values in ascending order
+     * @param k Number of largest values to include
+     * @return Their sum
+     */
+    private static long sumOfLargest(long[] sorted, int k) {
+        long total = 0;
+        for (int i = Math.max(0, sorted.length - k); i < sorted.length; i++) total += sorted[i];
+        return total;
+    }
+}
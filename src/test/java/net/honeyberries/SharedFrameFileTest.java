@@ -0,0 +1,181 @@
+package net.honeyberries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs {@link SharedFrameExport} against {@link SharedFrameFile.Reader} on one file.
+ * <p>
+ * Every frame the writer mirrors has its own sequence number plus one as its duration,
+ * and every snapshot repeats one counter in all of its fields, so a stale slot or a
+ * snapshot mixed from two writes shows up as a value that does not fit.
+ */
+class SharedFrameFileTest {
+    /**
+     * Frames the concurrent writer mirrors; enough to lap the ring many times.
+     */
+    private static final int FRAMES = 10_000_000;
+
+    /**
+     * The writer publishes a snapshot after this many frames.
+     */
+    private static final int FRAMES_PER_SNAPSHOT = 1_000;
+
+    /**
+     * Directory for the shared file.
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * A reader racing a writer sees every frame it copies in order and intact, and every
+     * snapshot whole. Frames it cannot keep up with are counted as missed, never returned.
+     *
+     * @throws Exception If the file cannot be mapped or the writer fails
+     */
+    @Test
+    void concurrentReaderNeverSeesTornData() throws Exception {
+        Path file = dir.resolve("frames.shm");
+        SharedFrameExport.start(file);
+        try (SharedFrameFile.Reader reader = new SharedFrameFile.Reader(file)) {
+            assertTrue(reader.isLive());
+            assertEquals(ProcessHandle.current().pid(), reader.pid());
+
+            AtomicReference<Throwable> writerError = new AtomicReference<>();
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < FRAMES; i++) {
+                        SharedFrameExport.onFrame(i + 1);
+                        if ((i + 1) % FRAMES_PER_SNAPSHOT == 0) SharedFrameExport.onSnapshot(snapshot(i + 1), i + 1);
+                    }
+                } catch (Throwable t) {
+                    writerError.set(t);
+                }
+            }, "Shared Frame Writer");
+            writer.start();
+
+            long[] frames = new long[reader.capacity()];
+            long received = 0;
+            long lastSnapshot = 0;
+            int polls = 0;
+            boolean writing = true;
+            while (writing) {
+                writing = writer.isAlive(); // Checked before the poll, so the last poll sees every frame
+                int n = reader.poll(frames);
+                long first = reader.missed() + received + 1;
+                for (int i = 0; i < n; i++) {
+                    assertEquals(first + i, frames[i], "frame out of order or torn");
+                }
+                received += n;
+
+                StatsSnapshot s = reader.snapshot();
+                if (s != null && s.computedAtNs() != 0) {
+                    long counter = s.computedAtNs();
+                    assertSnapshot(counter, s);
+                    assertTrue(counter >= lastSnapshot, "snapshot went back from " + lastSnapshot + " to " + counter);
+                    lastSnapshot = counter;
+                }
+
+                // Fall behind now and then so the writer laps the ring while a copy is in flight
+                if (++polls % 8 == 0) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            writer.join();
+            assertNull(writerError.get());
+
+            assertEquals(FRAMES, reader.framesWritten());
+            assertEquals(FRAMES, received + reader.missed(), "every frame is either received or missed");
+            assertEquals(0, reader.poll(frames));
+
+            StatsSnapshot last = reader.snapshot();
+            assertNotNull(last);
+            assertSnapshot(FRAMES, last);
+            assertEquals(FRAMES, reader.framesLost());
+
+            SharedFrameExport.stop();
+            assertFalse(reader.isLive());
+        } finally {
+            SharedFrameExport.stop();
+        }
+    }
+
+    /**
+     * A reader that falls more than a ring behind reports the overwritten frames as missed
+     * and resumes with the oldest frame that is still intact.
+     *
+     * @throws IOException If the file cannot be mapped
+     */
+    @Test
+    void readerDetectsRingWrap() throws IOException {
+        Path file = dir.resolve("frames.shm");
+        SharedFrameExport.start(file);
+        try (SharedFrameFile.Reader reader = new SharedFrameFile.Reader(file)) {
+            int capacity = reader.capacity();
+            long[] frames = new long[capacity];
+
+            long written = 2L * capacity + 5;
+            for (long i = 0; i < written; i++) SharedFrameExport.onFrame(i + 1);
+
+            int n = reader.poll(frames);
+            assertTrue(n > 0 && n <= capacity, "copied " + n + " frames");
+            assertTrue(reader.missed() >= written - capacity, "missed only " + reader.missed() + " frames");
+            assertEquals(written, reader.missed() + n);
+            for (int i = 0; i < n; i++) assertEquals(reader.missed() + i + 1, frames[i]);
+
+            // Once caught up, nothing more is missed
+            long missed = reader.missed();
+            for (long i = written; i < written + 10; i++) SharedFrameExport.onFrame(i + 1);
+            assertEquals(10, reader.poll(frames));
+            assertEquals(missed, reader.missed());
+            assertEquals(written + 1, frames[0]);
+        } finally {
+            SharedFrameExport.stop();
+        }
+    }
+
+    /**
+     * A reader only accepts files with the shared frame header.
+     *
+     * @throws IOException If the test file cannot be written
+     */
+    @Test
+    void readerRejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[SharedFrameFile.fileSize(16)]);
+        assertThrows(IOException.class, () -> new SharedFrameFile.Reader(file).close());
+    }
+
+    /**
+     * Builds a snapshot with every field set from one counter.
+     *
+     * @param counter The counter
+     * @return The snapshot
+     */
+    private static StatsSnapshot snapshot(long counter) {
+        double v = counter;
+        return new StatsSnapshot(v, v, v, v, v, v, v, (int) counter, counter);
+    }
+
+    /**
+     * Asserts that every field of a snapshot holds the same counter, as written by {@link #snapshot(long)}.
+     *
+     * @param counter Expected counter
+     * @param s Snapshot read back
+     */
+    private static void assertSnapshot(long counter, StatsSnapshot s) {
+        assertEquals(snapshot(counter), s, "torn snapshot");
+    }
+}
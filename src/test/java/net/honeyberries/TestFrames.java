@@ -0,0 +1,46 @@
+package net.honeyberries;
+
+import java.util.Random;
+
+/**
+ * Frame times shared by the tests: around 60 FPS with a long tail of occasional hitches.
+ */
+final class TestFrames {
+    /**
+     * Nanoseconds per millisecond.
+     */
+    static final long MS = 1_000_000L;
+
+    /**
+     * Private constructor to prevent instantiation.
+     * This is a utility class with only static methods.
+     */
+    private TestFrames() {
+    }
+
+    /**
+     * Draws a log-normal frame time around 16.7 ms; one frame in 200 is a hitch 5 to 54
+     * times longer. The result is clamped to between 1 ms and 2 s.
+     *
+     * @param random Source of randomness
+     * @return Frame duration in nanoseconds
+     */
+    static long frameTime(Random random) {
+        double ms = 16.667 * Math.exp(random.nextGaussian() * 0.4);
+        if (random.nextInt(200) == 0) ms *= 5 + random.nextInt(50); // Occasional hitch
+        return (long) (Math.max(1.0, Math.min(2000.0, ms)) * MS);
+    }
+
+    /**
+     * Draws a run of frame times with {@link #frameTime(Random)}.
+     *
+     * @param random Source of randomness
+     * @param n Number of frames
+     * @return Frame durations in nanoseconds
+     */
+    static long[] frameTimes(Random random, int n) {
+        long[] durations = new long[n];
+        for (int i = 0; i < n; i++) durations[i] = frameTime(random);
+        return durations;
+    }
+}